@@ -57,4 +57,23 @@ public interface ISearchOptions {
 	 */
 	public static final String PRIORITY_VALUE_DEFAULT = PRIORITY_VALUE_TIMELINESS;
 
+	/**
+	 * Search option asking for the search documents to be populated, and the
+	 * matches of the participants to be located, on several threads. The
+	 * value is {@link #PARALLEL_VALUE_ENABLED} or {@link Boolean#TRUE}; the
+	 * search is sequential by default. Matches are still passed to the
+	 * requestor one at a time, and canceling the progress monitor stops the
+	 * search as before. Only use this option with participants whose
+	 * <code>populateSearchDocument</code> and <code>locateMatches</code>
+	 * methods can run on several threads at once. A participant with many
+	 * files has <code>locateMatches</code> called several times, with a scope
+	 * of a part of the files each time.
+	 */
+	public static final String PARALLEL_OPTION = "org.eclipse.wst.common.core.search.PARALLEL"; //$NON_NLS_1$
+	/**
+	 * Choice for the {@link #PARALLEL_OPTION} search option that enables the
+	 * parallel search.
+	 */
+	public static final String PARALLEL_VALUE_ENABLED = "PARALLEL_SEARCH"; //$NON_NLS_1$
+
 }
@@ -11,14 +11,18 @@
 
 package org.eclipse.wst.common.core.search;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.wst.common.core.search.document.SearchDocumentSet;
 import org.eclipse.wst.common.core.search.internal.Messages;
+import org.eclipse.wst.common.core.search.internal.ParallelSearch;
 import org.eclipse.wst.common.core.search.internal.SearchDocumentSetImpl;
 import org.eclipse.wst.common.core.search.pattern.SearchPattern;
 import org.eclipse.wst.common.core.search.scope.SearchScope;
@@ -44,6 +48,18 @@ import org.eclipse.wst.common.core.search.scope.SearchScope;
  */
 public class SearchEngine implements ISearchOptions
 {
+	/**
+	 * In a parallel search, a participant's files are split into about this
+	 * many chunks for each processor, so that the threads stay busy when some
+	 * files take longer than others.
+	 */
+	private static final int CHUNKS_PER_PROCESSOR = 4;
+
+	/**
+	 * In a parallel search, a participant's files are not split into chunks of
+	 * fewer files than this.
+	 */
+	private static final int MIN_CHUNK_SIZE = 16;
 
 	/**
 	 * Searches for matches of a given search pattern using a specified set of search
@@ -116,6 +132,11 @@ public class SearchEngine implements ISearchOptions
                 {                  
                 }
 			}
+            if (participants != null && ParallelSearch.isEnabled(searchOptions))
+            {
+                locateMatchesInParallel(set, pattern, participants, scopeArray, requestor, searchOptions, monitor);
+                return;
+            }
             for (int i = 0, l = participants == null ? 0 : participants.length; i < l; i++)
             {        
                 if (monitor != null && monitor.isCanceled())                                  
@@ -163,6 +184,103 @@ public class SearchEngine implements ISearchOptions
 		}
 	}
 
+	/**
+	 * Locates the matches of the participants on several threads. The files of
+	 * each participant's scope are split into chunks, so that the matches of a
+	 * single participant are also located on several threads, and each chunk is
+	 * given to the participant's locateMatches as a scope of its own. The
+	 * matches are passed to the requestor one at a time, and doneSearching is
+	 * called once for each participant, after all of its chunks are done.
+	 */
+	private void locateMatchesInParallel(final SearchDocumentSet set, final SearchPattern pattern,
+			final SearchParticipant[] participants, final SearchScope[] scopeArray,
+			SearchRequestor requestor, final Map searchOptions, IProgressMonitor monitor)
+			throws CoreException
+	{
+		if (monitor != null && monitor.isCanceled())
+			throw new OperationCanceledException();
+
+		final List chunks = new ArrayList();
+		final int[] remaining = new int[participants.length];
+		for (int i = 0; i < participants.length; i++)
+		{
+			remaining[i] = addChunks(chunks, i, scopeArray[i]);
+		}
+
+		final SearchRequestor serializingRequestor = ParallelSearch.createSerializingRequestor(requestor);
+		final IProgressMonitor cancelMonitor = ParallelSearch.createCancelMonitor(monitor);
+		try
+		{
+			ParallelSearch.run(new ParallelSearch.Task()
+			{
+				public void run(int index)
+				{
+					Chunk chunk = (Chunk) chunks.get(index);
+					SearchParticipant participant = participants[chunk.participant];
+					try
+					{
+						// the scope could be null if the partcipant barfed and exeption in the first loop
+						if (chunk.scope != null)
+						{
+							participant.locateMatches(set, pattern, chunk.scope, serializingRequestor, searchOptions, cancelMonitor);
+						}
+					}
+					catch (Exception e)
+					{
+					}
+					finally
+					{
+						boolean last;
+						synchronized (remaining)
+						{
+							last = --remaining[chunk.participant] == 0;
+						}
+						if (last)
+							participant.doneSearching(pattern, searchOptions);
+					}
+				}
+			}, chunks.size(), monitor);
+		}
+		finally
+		{
+			// the chunks that were skipped when the search was canceled
+			for (int i = 0; i < participants.length; i++)
+			{
+				if (remaining[i] > 0)
+					participants[i].doneSearching(pattern, searchOptions);
+			}
+		}
+
+		if (monitor != null && monitor.isCanceled())
+			throw new OperationCanceledException();
+	}
+
+	/**
+	 * Adds the chunks of a participant's scope to the list, and answers how
+	 * many were added. A participant always gets at least one chunk, so that
+	 * locateMatches is called with its whole scope when it has few files.
+	 */
+	private static int addChunks(List chunks, int participant, SearchScope scope)
+	{
+		IFile[] files = scope == null ? null : scope.enclosingFiles();
+		if (files == null || files.length <= MIN_CHUNK_SIZE)
+		{
+			chunks.add(new Chunk(participant, scope));
+			return 1;
+		}
+		int numChunks = Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR;
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, (files.length + numChunks - 1) / numChunks);
+		int count = 0;
+		for (int start = 0; start < files.length; start += chunkSize)
+		{
+			IFile[] chunkFiles = new IFile[Math.min(chunkSize, files.length - start)];
+			System.arraycopy(files, start, chunkFiles, 0, chunkFiles.length);
+			chunks.add(new Chunk(participant, new FileSearchScope(chunkFiles)));
+			count++;
+		}
+		return count;
+	}
+
 	/**
 	 * Searches for matches of a given search pattern. Search patterns can be created
 	 * using factory methods and encapsulate the description of the information to be
@@ -210,4 +328,37 @@ public class SearchEngine implements ISearchOptions
 		return SearchPlugin.getDefault().loadSearchParticipants(pattern, searchOptions);
 	}
 
+	/**
+	 * A part of the files of one participant's scope, in a parallel search.
+	 */
+	private static class Chunk
+	{
+		final int participant;
+		final SearchScope scope;
+
+		Chunk(int participant, SearchScope scope)
+		{
+			this.participant = participant;
+			this.scope = scope;
+		}
+	}
+
+	/**
+	 * A scope of the given files.
+	 */
+	private static class FileSearchScope extends SearchScope
+	{
+		private final IFile[] files;
+
+		FileSearchScope(IFile[] files)
+		{
+			this.files = files;
+		}
+
+		public IFile[] enclosingFiles()
+		{
+			return files;
+		}
+	}
+
 }
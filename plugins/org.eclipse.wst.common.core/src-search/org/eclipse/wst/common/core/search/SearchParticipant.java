@@ -18,8 +18,11 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.wst.common.core.search.document.Entry;
 import org.eclipse.wst.common.core.search.document.SearchDocument;
 import org.eclipse.wst.common.core.search.document.SearchDocumentSet;
+import org.eclipse.wst.common.core.search.internal.ParallelSearch;
+import org.eclipse.wst.common.core.search.internal.SearchIndex;
 import org.eclipse.wst.common.core.search.pattern.SearchPattern;
 import org.eclipse.wst.common.core.search.scope.SearchScope;
 
@@ -236,12 +239,42 @@ public abstract class SearchParticipant implements ISearchOptions
 		return scope;
 	}
 
+	/**
+	 * Returns all of the entries of the document, whatever the search pattern,
+	 * so that they can be kept in the search index and reused by later
+	 * searches for as long as the file is unchanged.
+	 * <p>
+	 * Participants opt in to the search index by overriding this method. The
+	 * entries are added to the document with {@link SearchDocument#putEntry(Entry)}
+	 * instead of calling {@link #populateSearchDocument(SearchDocument, SearchPattern)},
+	 * both when they have just been computed and when they are read from the
+	 * index, and files whose entries cannot match the pattern are given no
+	 * document at all. Only {@link Entry} and its subclasses in this plug-in
+	 * can be stored in the index.
+	 * </p>
+	 * <p>
+	 * This method returns <code>null</code> by default, meaning that the
+	 * participant does not use the index.
+	 * </p>
+	 * 
+	 * @param document
+	 *            the document of the file to index
+	 * @return the entries of the document, or <code>null</code>
+	 */
+	public Entry[] createIndexEntries(SearchDocument document)
+	{
+		return null;
+	}
+
 	/**
 	 * <p>
 	 * This method calls the following methods for each file in the search scope:
 	 * <ol>
 	 * <li>{@link #createSearchDocument(String)}
-	 * <li>{@link #populateSearchDocument(SearchDocument, SearchPattern)}
+	 * <li>{@link #createIndexEntries(SearchDocument)}, unless the file's
+	 * entries are in the search index
+	 * <li>{@link #populateSearchDocument(SearchDocument, SearchPattern)}, if the
+	 * participant does not use the search index
 	 * </ol>
 	 * @param documentSet
 	 *            The documents to locate matches in
@@ -259,23 +292,72 @@ public abstract class SearchParticipant implements ISearchOptions
 	 *            Progress monitor used to report work completed; <code>null</code>
 	 *            if no progress needs to be reported
 	 */
-	public void createSearchDocuments(SearchDocumentSet documentSet,
-			SearchPattern pattern, SearchScope scope, Map searchOptions,
+	public void createSearchDocuments(final SearchDocumentSet documentSet,
+			final SearchPattern pattern, SearchScope scope, Map searchOptions,
 			IProgressMonitor monitor)
 	{
 		Assert.isNotNull(id, "The SearchPartipants id has not been initalized");
-		IFile[] files = scope.enclosingFiles();
+		final IFile[] files = scope.enclosingFiles();
+		final SearchIndex index = SearchIndex.getInstance();
 		
-		for (int i = 0; i < files.length; i++)
+		if (ParallelSearch.isEnabled(searchOptions))
 		{
-			String location = files[i].getLocation().toString();
-			SearchDocument document = documentSet.getSearchDocument(location, id);
-			if(document == null && id != null){
-				documentSet.putSearchDocument(id, document = createSearchDocument(location));
+			try
+			{
+				ParallelSearch.run(new ParallelSearch.Task()
+				{
+					public void run(int i)
+					{
+						createSearchDocument(documentSet, pattern, files[i], index);
+					}
+				}, files.length, monitor);
 			}
-			populateSearchDocument(document, pattern); 
-			
+			catch (CoreException e)
+			{
+				// the task does not throw CoreException
+			}
+			return;
 		}
 
-	}	
+		for (int i = 0; i < files.length; i++)
+		{
+			createSearchDocument(documentSet, pattern, files[i], index);
+		}
+
+	}
+
+	private void createSearchDocument(SearchDocumentSet documentSet,
+			SearchPattern pattern, IFile file, SearchIndex index)
+	{
+		Entry[] entries = index.getEntries(id, file);
+		if (entries != null && !SearchIndex.mayMatch(entries, pattern))
+		{
+			// the index shows that there is nothing to find in the file
+			return;
+		}
+		if (entries != null && !SearchIndex.isReusable(pattern))
+		{
+			// computed again below, with the current resolution of its references
+			entries = null;
+		}
+		String location = file.getLocation().toString();
+		SearchDocument document = documentSet.getSearchDocument(location, id);
+		if(document == null){
+			document = documentSet.putSearchDocumentIfAbsent(id, createSearchDocument(location));
+		}
+		if (entries == null)
+		{
+			entries = createIndexEntries(document);
+			if (entries == null)
+			{
+				populateSearchDocument(document, pattern);
+				return;
+			}
+			index.putEntries(id, file, entries);
+		}
+		for (int i = 0; i < entries.length; i++)
+		{
+			document.putEntry(entries[i]);
+		}
+	}
 }
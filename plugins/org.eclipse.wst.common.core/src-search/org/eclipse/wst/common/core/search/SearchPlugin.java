@@ -18,6 +18,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.wst.common.core.search.internal.SearchIndex;
 import org.eclipse.wst.common.core.search.internal.SearchParticipantRegistry;
 import org.eclipse.wst.common.core.search.internal.SearchParticipantRegistryReader;
 import org.eclipse.wst.common.core.search.pattern.SearchPattern;
@@ -76,6 +77,7 @@ public class SearchPlugin extends Plugin implements ISearchOptions
 	 */
 	public void stop(BundleContext context) throws Exception
 	{
+		SearchIndex.shutdown();
 		super.stop(context);
 		plugin = null;
 	}
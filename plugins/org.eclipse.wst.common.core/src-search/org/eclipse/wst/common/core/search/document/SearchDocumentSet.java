@@ -28,6 +28,27 @@ public abstract class SearchDocumentSet
   public abstract SearchDocument getSearchDocument(String resourcePath, String participantId);
   public abstract SearchDocument[] getSearchDocuments(String participantId);
   public abstract void putSearchDocument(String participantId, SearchDocument document);
+
+  /**
+   * Adds the document unless the participant already has a document with the
+   * same path. Participants that create documents on several threads should
+   * use this method, and continue with the document that it returns.
+   * 
+   * @param participantId the id of the participant that created the document
+   * @param document the new document
+   * @return the document that the set holds for the path
+   */
+  public synchronized SearchDocument putSearchDocumentIfAbsent(String participantId, SearchDocument document)
+  {
+    SearchDocument existing = getSearchDocument(document.getPath(), participantId);
+    if (existing != null)
+    {
+      return existing;
+    }
+    putSearchDocument(participantId, document);
+    return document;
+  }
+
   public abstract SearchDocument _tempGetSearchDocumetn(String resourcePath);
   public abstract void dispose();
 }
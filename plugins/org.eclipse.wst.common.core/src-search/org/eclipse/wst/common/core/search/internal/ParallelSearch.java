@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.common.core.search.internal;
+
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.common.core.search.ISearchOptions;
+import org.eclipse.wst.common.core.search.SearchMatch;
+import org.eclipse.wst.common.core.search.SearchRequestor;
+
+/**
+ * Runs the steps of a search on several threads, when the search has been
+ * started with the {@link ISearchOptions#PARALLEL_OPTION} option.
+ * <p>
+ * The items to process are numbered, and each thread takes the next
+ * unprocessed item as soon as it is done with its current one, so a thread
+ * that gets large documents does not hold up the others. The calling thread
+ * only waits, and checks the progress monitor for cancellation, since
+ * progress monitors are not meant to be used from other threads.
+ * </p>
+ */
+public class ParallelSearch
+{
+	/**
+	 * How often, in milliseconds, the progress monitor is checked for cancellation.
+	 */
+	private static final long POLL_TIME = 100;
+
+	/**
+	 * A step of the search, run once for each item.
+	 */
+	public interface Task
+	{
+		public void run(int index) throws CoreException;
+	}
+
+	private final Task task;
+	private final int count;
+	private int next = 0;
+	private int running = 0;
+	private boolean canceled = false;
+	private Throwable failure = null;
+
+	private ParallelSearch(Task task, int count)
+	{
+		this.task = task;
+		this.count = count;
+	}
+
+	/**
+	 * Answer true if the search options ask for a parallel search.
+	 */
+	public static boolean isEnabled(Map searchOptions)
+	{
+		if (searchOptions == null)
+			return false;
+		Object value = searchOptions.get(ISearchOptions.PARALLEL_OPTION);
+		return Boolean.TRUE.equals(value) || ISearchOptions.PARALLEL_VALUE_ENABLED.equals(value);
+	}
+
+	/**
+	 * Run the task for the items 0 to count - 1, and wait until it is done.
+	 * When the monitor is canceled, the items that have not been started are
+	 * skipped, and the call returns once the items that have been started are
+	 * done.
+	 *
+	 * @param task the task to run
+	 * @param count the number of items
+	 * @param monitor the monitor to check for cancellation, or null
+	 * @throws CoreException the first CoreException thrown by the task
+	 */
+	public static void run(Task task, int count, IProgressMonitor monitor) throws CoreException
+	{
+		new ParallelSearch(task, count).run(monitor);
+	}
+
+	/**
+	 * Answer a monitor that can be given to code running on the threads of a
+	 * parallel search. It only reports the cancellation of the given monitor.
+	 */
+	public static IProgressMonitor createCancelMonitor(final IProgressMonitor monitor)
+	{
+		return new NullProgressMonitor()
+		{
+			public boolean isCanceled()
+			{
+				return super.isCanceled() || (monitor != null && monitor.isCanceled());
+			}
+		};
+	}
+
+	/**
+	 * Answer a requestor that passes the matches to the given requestor one at
+	 * a time, so that it does not have to be thread safe.
+	 */
+	public static SearchRequestor createSerializingRequestor(final SearchRequestor requestor)
+	{
+		return new SearchRequestor()
+		{
+			public void acceptSearchMatch(SearchMatch match) throws CoreException
+			{
+				synchronized (requestor)
+				{
+					requestor.acceptSearchMatch(match);
+				}
+			}
+		};
+	}
+
+	private void run(IProgressMonitor monitor) throws CoreException
+	{
+		int numThreads = Math.min(Runtime.getRuntime().availableProcessors(), count);
+		if (numThreads <= 1)
+		{
+			// not worth a thread, run on the calling thread
+			for (int i = 0; i < count; i++)
+			{
+				if (monitor != null && monitor.isCanceled())
+					return;
+				task.run(i);
+			}
+			return;
+		}
+
+		synchronized (this)
+		{
+			running = numThreads;
+		}
+		for (int i = 0; i < numThreads; i++)
+		{
+			Thread thread = new Thread(new Worker(), "Search Worker " + (i + 1)); //$NON-NLS-1$
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		boolean interrupted = false;
+		synchronized (this)
+		{
+			while (running > 0)
+			{
+				if (!canceled && monitor != null && monitor.isCanceled())
+					canceled = true;
+				try
+				{
+					wait(POLL_TIME);
+				}
+				catch (InterruptedException e)
+				{
+					canceled = true;
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		if (failure instanceof CoreException)
+			throw (CoreException) failure;
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+	}
+
+	private synchronized int nextIndex()
+	{
+		if (canceled || failure != null || next >= count)
+			return -1;
+		return next++;
+	}
+
+	private synchronized void failed(Throwable e)
+	{
+		if (failure == null)
+			failure = e;
+	}
+
+	private synchronized void workerDone()
+	{
+		running--;
+		notifyAll();
+	}
+
+	private class Worker implements Runnable
+	{
+		public void run()
+		{
+			try
+			{
+				int index;
+				while ((index = nextIndex()) != -1)
+				{
+					task.run(index);
+				}
+			}
+			catch (Throwable e)
+			{
+				failed(e);
+			}
+			finally
+			{
+				workerDone();
+			}
+		}
+	}
+}
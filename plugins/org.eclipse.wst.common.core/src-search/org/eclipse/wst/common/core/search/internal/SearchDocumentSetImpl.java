@@ -20,86 +20,79 @@ import java.util.Map;
 import org.eclipse.wst.common.core.search.document.SearchDocument;
 import org.eclipse.wst.common.core.search.document.SearchDocumentSet;
 
+/**
+ * The documents are indexed by participant id and then by path, so that
+ * looking up a document does not have to scan the participant's documents.
+ * All of the methods are synchronized, so that participants can populate the
+ * set from several threads.
+ */
 public class SearchDocumentSetImpl extends SearchDocumentSet
 {
     public Map documentPathMap = new HashMap(); //path --> documetn
-	Map documentMap = new HashMap();  // participantId - > list (document)
+	Map documentMap = new HashMap();  // participantId - > ParticipantDocuments
 	
 	public SearchDocumentSetImpl()
 	{
 		super();
 	}
     
-    public SearchDocument _tempGetSearchDocumetn(String resourcePath)
+    public synchronized SearchDocument _tempGetSearchDocumetn(String resourcePath)
     {      
        return (SearchDocument)documentPathMap.get(resourcePath);      
     }
     
-    public SearchDocument getSearchDocument(String resourcePath, String participantId)
+    public synchronized SearchDocument getSearchDocument(String resourcePath, String participantId)
 	{
 		if(resourcePath == null){
 			return null;
 		}
-		SearchDocument[] documents = getSearchDocuments(participantId);
-		for (int i = 0; i < documents.length; i++)
-		{
-			SearchDocument document = documents[i];
-			if(resourcePath.equals(document.getPath())){
-				return document;
-			}
-		}
-		return null;
+		ParticipantDocuments documents = (ParticipantDocuments)documentMap.get(participantId);
+		return documents != null ? (SearchDocument)documents.pathMap.get(resourcePath) : null;
 	}
 
-	public SearchDocument[] getSearchDocuments(String participantId)
+	public synchronized SearchDocument[] getSearchDocuments(String participantId)
 	{
-		
-		Object object = documentMap.get(participantId);
-		List documentList = null;
-		if(object instanceof List){
-			documentList = (List)object;
-		}
-		else{
-			documentMap.put(participantId, documentList = new ArrayList());
+		ParticipantDocuments documents = getParticipantDocuments(participantId);
+		if(documents.array == null){
+			documents.array = (SearchDocument[]) documents.list.toArray(new SearchDocument[documents.list.size()]);
 		}
-		return (SearchDocument[]) documentList.toArray(new SearchDocument[documentList.size()]);
-		
+		return (SearchDocument[]) documents.array.clone();
 	}
 
-	public void putSearchDocument(String participantId, SearchDocument document)
+	public synchronized void putSearchDocument(String participantId, SearchDocument document)
 	{
-		Object object = documentMap.get(participantId);
-		List documentList = null;
-		if(object instanceof List){
-			documentList = (List)object;
-		}
-		else{
-			documentMap.put(participantId, documentList = new ArrayList());
+		ParticipantDocuments documents = getParticipantDocuments(participantId);
+		documents.list.add(document);
+		documents.array = null;
+		if(document.getPath() != null && !documents.pathMap.containsKey(document.getPath())){
+			// the first document for a path is the one that is found, as before
+			documents.pathMap.put(document.getPath(), document);
 		}
-		documentList.add(document);
         documentPathMap.put(document.getPath(), document);
 	}
 
+	private ParticipantDocuments getParticipantDocuments(String participantId)
+	{
+		ParticipantDocuments documents = (ParticipantDocuments)documentMap.get(participantId);
+		if(documents == null){
+			documentMap.put(participantId, documents = new ParticipantDocuments());
+		}
+		return documents;
+	}
+
     
-    public void dispose()
+    public synchronized void dispose()
     {
       try
       {
       for (Iterator i = documentMap.values().iterator(); i.hasNext(); )
       {
-        Object o = i.next();
-        if (o instanceof List)
-        {  
-          for (Iterator j = ((List)o).iterator(); j.hasNext(); )
-          {
-            Object o2 = j.next();
-            if (o2 instanceof SearchDocument)
-            {  
-               SearchDocument searchDocument = (SearchDocument)o2;
-               searchDocument.dispose();
-            }   
-          }          
-        }       
+        ParticipantDocuments documents = (ParticipantDocuments)i.next();
+        for (Iterator j = documents.list.iterator(); j.hasNext(); )
+        {
+          SearchDocument searchDocument = (SearchDocument)j.next();
+          searchDocument.dispose();
+        }
       }
       }
       catch (Exception e)
@@ -108,4 +101,14 @@ public class SearchDocumentSetImpl extends SearchDocumentSet
       }
     }
 
+    /**
+     * The documents of one participant, in the order that they were added,
+     * and by path.
+     */
+    private static class ParticipantDocuments
+    {
+    	final List list = new ArrayList();
+    	final Map pathMap = new HashMap();
+    	SearchDocument[] array;
+    }
 }
@@ -0,0 +1,538 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.common.core.search.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.common.core.search.SearchPlugin;
+import org.eclipse.wst.common.core.search.document.ComponentDeclarationEntry;
+import org.eclipse.wst.common.core.search.document.ComponentReferenceEntry;
+import org.eclipse.wst.common.core.search.document.Entry;
+import org.eclipse.wst.common.core.search.document.FileReferenceEntry;
+import org.eclipse.wst.common.core.search.pattern.ComponentDeclarationPattern;
+import org.eclipse.wst.common.core.search.pattern.ComponentReferencePattern;
+import org.eclipse.wst.common.core.search.pattern.ComponentSearchPattern;
+import org.eclipse.wst.common.core.search.pattern.FileReferencePattern;
+import org.eclipse.wst.common.core.search.pattern.QualifiedName;
+import org.eclipse.wst.common.core.search.pattern.SearchPattern;
+
+/**
+ * The search index keeps the entries that indexing participants computed
+ * for each file, so that later searches can reuse them instead of parsing
+ * the file again, and can skip the files whose entries cannot match.
+ * <p>
+ * The entries of a file are kept with the modification stamp that the file
+ * had when they were computed, and are only used while the file still has
+ * that stamp. Files that are changed or removed are also dropped from the
+ * index as the workspace reports them. The index is read from the plug-in's
+ * state location when it is first used, and written back when the plug-in
+ * stops. It is written to a temporary file that then replaces the old one,
+ * and an index that cannot be read is deleted, so that searching starts
+ * again with an empty index.
+ * </p>
+ * <p>
+ * Where a file's references resolve to can change while the file does not,
+ * so searches for file references only use the index to skip the files that
+ * have no references.
+ * </p>
+ * <p>
+ * Only the entry classes of this plug-in can be stored; a file with entries
+ * of any other class is not indexed.
+ * </p>
+ */
+public class SearchIndex implements IResourceChangeListener
+{
+	private static final int MAGIC = 0x57535849;
+	private static final int VERSION = 1;
+	private static final String FILE_NAME = "search.index"; //$NON-NLS-1$
+	private static final String TEMP_FILE_NAME = "search.index.tmp"; //$NON-NLS-1$
+
+	private static final byte ENTRY = 0;
+	private static final byte DECLARATION = 1;
+	private static final byte REFERENCE = 2;
+	private static final byte FILE_REFERENCE = 3;
+
+	private static SearchIndex instance;
+
+	/** participant id -> (file path -> IndexedFile). Guarded by this. */
+	private final Map participants = new HashMap();
+	private boolean dirty = false;
+
+	private SearchIndex()
+	{
+	}
+
+	/**
+	 * Get the index, reading it and starting to listen for changes if needed.
+	 */
+	public synchronized static SearchIndex getInstance()
+	{
+		if (instance == null)
+		{
+			SearchIndex index = new SearchIndex();
+			index.load();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(index, IResourceChangeEvent.POST_CHANGE);
+			instance = index;
+		}
+		return instance;
+	}
+
+	/**
+	 * Stop listening for changes, and write the index if it has changed.
+	 */
+	public synchronized static void shutdown()
+	{
+		if (instance != null)
+		{
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(instance);
+			instance.save();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Answer the entries of the file, or null if the file has not been indexed
+	 * since it was last changed.
+	 */
+	public synchronized Entry[] getEntries(String participantId, IFile file)
+	{
+		Map files = (Map) participants.get(participantId);
+		IndexedFile indexed = files != null ? (IndexedFile) files.get(getKey(file)) : null;
+		if (indexed == null || indexed.stamp != file.getModificationStamp())
+			return null;
+		return indexed.entries;
+	}
+
+	/**
+	 * Remember the entries of the file, as of its current modification stamp.
+	 */
+	public synchronized void putEntries(String participantId, IFile file, Entry[] entries)
+	{
+		long stamp = file.getModificationStamp();
+		if (stamp == IResource.NULL_STAMP || !isStorable(entries))
+			return;
+		Map files = (Map) participants.get(participantId);
+		if (files == null)
+		{
+			files = new HashMap();
+			participants.put(participantId, files);
+		}
+		files.put(getKey(file), new IndexedFile(stamp, entries));
+		dirty = true;
+	}
+
+	/**
+	 * Answer false if none of the entries can match the pattern, so that the
+	 * file does not need to be searched. The answer is conservative: true is
+	 * answered whenever the pattern is not understood.
+	 */
+	public static boolean mayMatch(Entry[] entries, SearchPattern pattern)
+	{
+		if (pattern instanceof ComponentSearchPattern)
+		{
+			QualifiedName name = ((ComponentSearchPattern) pattern).getName();
+			if (name == null || name.getLocalName() == null || (pattern.getMatchRule() & ~SearchPattern.R_CASE_SENSITIVE) != SearchPattern.R_EXACT_MATCH)
+				return true;
+			boolean declarations = !(pattern instanceof ComponentReferencePattern);
+			boolean references = !(pattern instanceof ComponentDeclarationPattern);
+			for (int i = 0; i < entries.length; i++)
+			{
+				QualifiedName entryName = null;
+				if (declarations && entries[i] instanceof ComponentDeclarationEntry)
+					entryName = ((ComponentDeclarationEntry) entries[i]).getName();
+				else if (references && entries[i] instanceof ComponentReferenceEntry)
+					entryName = ((ComponentReferenceEntry) entries[i]).getName();
+				if (entryName != null && name.getLocalName().equalsIgnoreCase(entryName.getLocalName()))
+					return true;
+			}
+			return false;
+		}
+		if (pattern instanceof FileReferencePattern)
+		{
+			/*
+			 * Where a reference resolves to can change without the file
+			 * changing, when a catalog or the resolution rules change, so the
+			 * resolved URIs that are kept with the entries are not used here.
+			 * Nor is the name in the reference, since a catalog can map any
+			 * location to the file. Only a file without references is skipped.
+			 */
+			for (int i = 0; i < entries.length; i++)
+			{
+				if (entries[i] instanceof FileReferenceEntry)
+					return true;
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Answer false if indexed entries must be computed again for the pattern. The
+	 * resolved URIs of file references are kept as they were when the file
+	 * was indexed, and can be out of date when a catalog or the resolution
+	 * rules have changed since, so they are not reused to match file
+	 * references.
+	 */
+	public static boolean isReusable(SearchPattern pattern)
+	{
+		return !(pattern instanceof FileReferencePattern);
+	}
+
+	public void resourceChanged(IResourceChangeEvent event)
+	{
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
+			return;
+		try
+		{
+			delta.accept(new IResourceDeltaVisitor()
+			{
+				public boolean visit(IResourceDelta delta)
+				{
+					if (delta.getKind() == IResourceDelta.REMOVED)
+					{
+						remove(delta.getResource());
+						return false;
+					}
+					if (delta.getResource().getType() == IResource.FILE && (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0)
+						remove(delta.getResource());
+					return true;
+				}
+			});
+		}
+		catch (CoreException e)
+		{
+			SearchPlugin.logError(e);
+		}
+	}
+
+	/**
+	 * Forget the resource, and everything under it.
+	 */
+	private synchronized void remove(IResource resource)
+	{
+		String key = resource.getFullPath().toString();
+		String prefix = key + "/"; //$NON-NLS-1$
+		for (Iterator i = participants.values().iterator(); i.hasNext();)
+		{
+			Map files = (Map) i.next();
+			if (resource.getType() == IResource.FILE)
+			{
+				if (files.remove(key) != null)
+					dirty = true;
+				continue;
+			}
+			for (Iterator j = files.keySet().iterator(); j.hasNext();)
+			{
+				if (((String) j.next()).startsWith(prefix))
+				{
+					j.remove();
+					dirty = true;
+				}
+			}
+		}
+	}
+
+	private static String getKey(IFile file)
+	{
+		return file.getFullPath().toString();
+	}
+
+	private static boolean isStorable(Entry[] entries)
+	{
+		for (int i = 0; i < entries.length; i++)
+		{
+			if (getType(entries[i]) == -1)
+				return false;
+		}
+		return true;
+	}
+
+	private static byte getType(Entry entry)
+	{
+		Class c = entry.getClass();
+		if (c == Entry.class)
+			return ENTRY;
+		if (c == ComponentDeclarationEntry.class)
+			return DECLARATION;
+		if (c == ComponentReferenceEntry.class)
+			return REFERENCE;
+		if (c == FileReferenceEntry.class)
+			return FILE_REFERENCE;
+		return -1;
+	}
+
+	private File getFile(String name)
+	{
+		return SearchPlugin.getDefault().getStateLocation().append(name).toFile();
+	}
+
+	private void load()
+	{
+		File file = getFile(FILE_NAME);
+		if (!file.exists())
+			return;
+		long length = file.length();
+		DataInputStream in = null;
+		boolean damaged = false;
+		try
+		{
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return;
+			int numParticipants = readCount(in, length);
+			for (int i = 0; i < numParticipants; i++)
+			{
+				String participantId = in.readUTF();
+				Map files = new HashMap();
+				int numFiles = readCount(in, length);
+				for (int j = 0; j < numFiles; j++)
+				{
+					String path = in.readUTF();
+					long stamp = in.readLong();
+					Entry[] entries = new Entry[readCount(in, length)];
+					for (int k = 0; k < entries.length; k++)
+					{
+						entries[k] = readEntry(in);
+					}
+					files.put(path, new IndexedFile(stamp, entries));
+				}
+				participants.put(participantId, files);
+			}
+		}
+		catch (IOException e)
+		{
+			damaged = true;
+		}
+		catch (RuntimeException e)
+		{
+			damaged = true;
+		}
+		finally
+		{
+			close(in);
+		}
+		if (damaged)
+		{
+			// a damaged index is rebuilt as files are searched
+			participants.clear();
+			file.delete();
+		}
+	}
+
+	/**
+	 * Read the number of items that follow. Every item takes at least one
+	 * byte, so a count that is negative or larger than the file is damaged.
+	 */
+	private static int readCount(DataInputStream in, long length) throws IOException
+	{
+		int count = in.readInt();
+		if (count < 0 || count > length)
+			throw new IOException("The search index is damaged"); //$NON-NLS-1$
+		return count;
+	}
+
+	private void save()
+	{
+		if (!dirty)
+			return;
+		File file = getFile(FILE_NAME);
+		File temp = getFile(TEMP_FILE_NAME);
+		DataOutputStream out = null;
+		try
+		{
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(participants.size());
+			for (Iterator i = participants.entrySet().iterator(); i.hasNext();)
+			{
+				Map.Entry participant = (Map.Entry) i.next();
+				out.writeUTF((String) participant.getKey());
+				Map files = (Map) participant.getValue();
+				out.writeInt(files.size());
+				for (Iterator j = files.entrySet().iterator(); j.hasNext();)
+				{
+					Map.Entry entry = (Map.Entry) j.next();
+					IndexedFile indexed = (IndexedFile) entry.getValue();
+					out.writeUTF((String) entry.getKey());
+					out.writeLong(indexed.stamp);
+					out.writeInt(indexed.entries.length);
+					for (int k = 0; k < indexed.entries.length; k++)
+					{
+						writeEntry(out, indexed.entries[k]);
+					}
+				}
+			}
+			out.close();
+			out = null;
+
+			// the old index is only replaced once the new one is complete
+			file.delete();
+			if (!temp.renameTo(file))
+				throw new IOException("Could not rename " + temp + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+			dirty = false;
+		}
+		catch (IOException e)
+		{
+			SearchPlugin.logError(e);
+			temp.delete();
+		}
+		finally
+		{
+			if (out != null)
+			{
+				try
+				{
+					out.close();
+				}
+				catch (IOException e)
+				{
+				}
+			}
+		}
+	}
+
+	private static void writeEntry(DataOutputStream out, Entry entry) throws IOException
+	{
+		byte type = getType(entry);
+		out.writeByte(type);
+		writeString(out, entry.getKey());
+		writeString(out, entry.getCategory());
+		switch (type)
+		{
+			case DECLARATION :
+				writeName(out, ((ComponentDeclarationEntry) entry).getName());
+				writeName(out, ((ComponentDeclarationEntry) entry).getMetaName());
+				break;
+			case REFERENCE :
+				writeName(out, ((ComponentReferenceEntry) entry).getName());
+				break;
+			case FILE_REFERENCE :
+				writeString(out, ((FileReferenceEntry) entry).getRelativeFilePath());
+				writeString(out, ((FileReferenceEntry) entry).getResolvedURI());
+				writeString(out, ((FileReferenceEntry) entry).getPublicIdentifier());
+				break;
+		}
+	}
+
+	private static Entry readEntry(DataInputStream in) throws IOException
+	{
+		byte type = in.readByte();
+		String key = readString(in);
+		String category = readString(in);
+		Entry entry;
+		switch (type)
+		{
+			case ENTRY :
+				entry = new Entry();
+				break;
+			case DECLARATION :
+				ComponentDeclarationEntry declaration = new ComponentDeclarationEntry();
+				declaration.setName(readName(in));
+				declaration.setMetaName(readName(in));
+				entry = declaration;
+				break;
+			case REFERENCE :
+				ComponentReferenceEntry reference = new ComponentReferenceEntry();
+				reference.setName(readName(in));
+				entry = reference;
+				break;
+			case FILE_REFERENCE :
+				FileReferenceEntry fileReference = new FileReferenceEntry();
+				fileReference.setRelativeFilePath(readString(in));
+				fileReference.setResolvedURI(readString(in));
+				fileReference.setPublicIdentifier(readString(in));
+				entry = fileReference;
+				break;
+			default :
+				throw new IOException("Unknown entry type " + type); //$NON-NLS-1$
+		}
+		entry.setKey(key);
+		entry.setCategory(category);
+		return entry;
+	}
+
+	private static void writeName(DataOutputStream out, QualifiedName name) throws IOException
+	{
+		out.writeBoolean(name != null);
+		if (name != null)
+		{
+			writeString(out, name.getNamespace());
+			writeString(out, name.getLocalName());
+		}
+	}
+
+	private static QualifiedName readName(DataInputStream in) throws IOException
+	{
+		if (!in.readBoolean())
+			return null;
+		String namespace = readString(in);
+		return new QualifiedName(namespace, readString(in));
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException
+	{
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	private static String readString(DataInputStream in) throws IOException
+	{
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void close(DataInputStream in)
+	{
+		if (in != null)
+		{
+			try
+			{
+				in.close();
+			}
+			catch (IOException e)
+			{
+			}
+		}
+	}
+
+	private static class IndexedFile
+	{
+		final long stamp;
+		final Entry[] entries;
+
+		IndexedFile(long stamp, Entry[] entries)
+		{
+			this.stamp = stamp;
+			this.entries = entries;
+		}
+	}
+}
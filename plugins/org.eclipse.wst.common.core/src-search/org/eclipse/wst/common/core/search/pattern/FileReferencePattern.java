@@ -39,4 +39,9 @@ public class FileReferencePattern extends SearchPattern
 		this.file = file;
 	}
 
+	public IFile getFile()
+	{
+		return file;
+	}
+
 }
@@ -48,11 +48,22 @@ public class CacheEventNode {
 
 	public static final String ROOT_NODE = "EMF_ROOT_NODE"; //$NON-NLS-1$
 
+	static final String CONTEXT_NODE = "EMF_CONTEXT_NODE"; //$NON-NLS-1$
+
+	/*
+	 * Buffers and children lists up to these sizes are kept when the CENO is discarded, so that
+	 * they can be reused when the CENO is reused.
+	 */
+	private static final int MAX_RECYCLED_BUFFER = 256;
+	private static final int MAX_RECYCLED_CHILDREN = 64;
+
 	private String nodeName = null;
 	private Translator translator = null;
 	private Notifier emfOwner = null;
 	private StringBuffer buffer = null;
 	private List children = null;
+	private StringBuffer spareBuffer = null;
+	private List spareChildren = null;
 	private int versionID;
 
 	/*
@@ -67,6 +78,9 @@ public class CacheEventNode {
 	private CacheEventPool containingPool = null;
 	private Boolean ignorable = null;
 
+	/* True while the CENO has been handed out by its pool and not released */
+	boolean inUse = false;
+
 	public CacheEventNode(CacheEventPool containingPool) {
 		this.containingPool = containingPool;
 	}
@@ -96,6 +110,22 @@ public class CacheEventNode {
 		init(parentArg, attributesArg);
 	}
 
+	/**
+	 * Lifecycle method. initContext() will configure this CENO to stand for an EMF object that
+	 * already exists, so that the CENOs of child XML elements are translated into that object. The
+	 * context CENO has no XML element of its own and must not be committed.
+	 * 
+	 * This method will invoke discard() before completing its tasks.
+	 */
+	void initContext(CacheEventNode parentArg, Translator translatorArg, Notifier owner, int versionIDArg) {
+		this.discard();
+		this.nodeName = CacheEventNode.CONTEXT_NODE;
+		setParent(parentArg);
+		setTranslator(translatorArg);
+		setEmfOwner(owner);
+		setVersionID(versionIDArg);
+	}
+
 	private void init(CacheEventNode parentRecord, Attributes attributesArg) {
 		setParent(parentRecord);
 
@@ -248,12 +278,40 @@ public class CacheEventNode {
 	private void discard() {
 		translator = null;
 		emfOwner = null;
+		recycleBuffer();
+		recycleChildren();
+		attributes = null;
+		parent = null;
+		ignorable = null;
+	}
+
+	private void recycleBuffer() {
+		if (buffer != null && buffer.capacity() <= MAX_RECYCLED_BUFFER) {
+			buffer.setLength(0);
+			spareBuffer = buffer;
+		}
 		buffer = null;
-		if (children != null)
+	}
+
+	private void recycleChildren() {
+		if (children != null) {
+			boolean keep = children.size() <= MAX_RECYCLED_CHILDREN;
 			children.clear();
+			if (keep)
+				spareChildren = children;
+		}
 		children = null;
-		attributes = null;
-		parent = null;
+	}
+
+	private void ensureChildren() {
+		if (this.children == null) {
+			this.children = (spareChildren != null) ? spareChildren : new ArrayList();
+			spareChildren = null;
+		}
+	}
+
+	void setContainingPool(CacheEventPool pool) {
+		this.containingPool = pool;
 	}
 
 	private void releaseFromContainingPool() {
@@ -396,14 +454,12 @@ public class CacheEventNode {
 				child.discard();
 				child.releaseFromContainingPool();
 			}
-			this.children = null;
+			recycleChildren();
 		}
 	}
 
 	public void addChild(CacheEventNode child) {
-		if (this.children == null) {
-			this.children = new ArrayList();
-		}
+		ensureChildren();
 		if (parent != null && this.isIgnorable()) {
 			parent.addChild(child);
 		} else {
@@ -412,9 +468,7 @@ public class CacheEventNode {
 	}
 
 	protected void addChildren(List childrenArg) {
-		if (this.children == null) {
-			this.children = new ArrayList();
-		}
+		ensureChildren();
 		this.children.addAll(childrenArg);
 	}
 
@@ -509,7 +563,8 @@ public class CacheEventNode {
 		}
 
 		if (buffer == null) {
-			this.buffer = new StringBuffer();
+			this.buffer = (spareBuffer != null) ? spareBuffer : new StringBuffer();
+			spareBuffer = null;
 		}
 
 		/*
@@ -11,15 +11,17 @@
 package org.eclipse.wst.common.internal.emf.resource;
 
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 import org.xml.sax.Attributes;
 
 /**
- * Provides an instance pool of reusable CacheEventNodes. The pool will default to 10 live
- * instances. When its available instances reach five times its initial capacity, it will shrink
- * itself down to the initial capacity.
+ * Provides an instance pool of reusable CacheEventNodes. Acquiring and releasing a node take
+ * constant time.
+ * 
+ * The free nodes are kept per thread, so that the pools of the documents loaded by a thread share
+ * them, and loads on different threads never contend. When the pool is frozen at the end of a
+ * document, the thread keeps as many free nodes as the document had in use at its peak (its depth
+ * plus the nodes cached for read ahead), but at least the initial capacity and at most
+ * MAX_RETAINED_NODES.
  * 
  * @author mdelder
  */
@@ -28,9 +30,23 @@ public class CacheEventPool {
 	public static final int DEFAULT_CAPACITY = 10;
 	public static final int DEFAULT_CAPACITY_INCREMENT = 25;
 
+	/**
+	 * The most free nodes that a thread keeps between documents.
+	 */
+	private static final int MAX_RETAINED_NODES = 1024;
+
+	private static final ThreadLocal freeNodes = new ThreadLocal() {
+		@Override
+		protected Object initialValue() {
+			return new CacheEventStack();
+		}
+	};
+
 	private int poolCapacity = DEFAULT_CAPACITY;
+	/* The free nodes of the thread that is using the pool, while the pool is warm */
 	private CacheEventStack availablePool = null;
-	private Collection inusePool = null;
+	private int inUseCount = 0;
+	private int peakInUseCount = 0;
 
 	public CacheEventPool() {
 		this(DEFAULT_CAPACITY);
@@ -44,8 +60,6 @@ public class CacheEventPool {
 	 */
 	public CacheEventPool(int initialCapacity) {
 		poolCapacity = (initialCapacity > 0) ? initialCapacity : DEFAULT_CAPACITY;
-		availablePool = new CacheEventStack();
-		inusePool = new ArrayList(poolCapacity);
 	}
 
 	/**
@@ -97,8 +111,13 @@ public class CacheEventPool {
 	 *  
 	 */
 	public void freezePool() {
-		availablePool.clear();
-		availablePool = null;
+		if (availablePool != null) {
+			int retained = Math.min(Math.max(peakInUseCount, poolCapacity), MAX_RETAINED_NODES);
+			if (availablePool.size() > retained)
+				availablePool.subList(retained, availablePool.size()).clear();
+			availablePool = null;
+		}
+		peakInUseCount = inUseCount;
 	}
 
 	/**
@@ -109,36 +128,35 @@ public class CacheEventPool {
 	 *  
 	 */
 	public void warmPool() {
+		if (availablePool == null)
+			availablePool = (CacheEventStack) freeNodes.get();
 		ensureMinimumCapacity();
 	}
 
 	private CacheEventNode fetchFreeNode() {
-		CacheEventNode result = null;
-
-		if (availablePool == null || availablePool.isEmpty())
+		if (availablePool == null)
 			warmPool();
 
-		result = availablePool.pop();
-		inusePool.add(result);
+		CacheEventNode result = availablePool.isEmpty() ? new CacheEventNode(this) : availablePool.pop();
+		result.setContainingPool(this);
+		result.inUse = true;
+		if (++inUseCount > peakInUseCount)
+			peakInUseCount = inUseCount;
 
 		return result;
 	}
 
 	private void freeNode(CacheEventNode adapter) {
-		if (inusePool.remove(adapter))
+		if (!adapter.inUse)
+			return;
+		adapter.inUse = false;
+		inUseCount--;
+		/* A node that is released after the pool is frozen is left to the garbage collector */
+		if (availablePool != null)
 			availablePool.push(adapter);
-		//else
-		//	throw new IllegalStateException("Adapter not contained in pool!");
-		if (availablePool.size() > (5 * poolCapacity)) {
-			availablePool.clear();
-			ensureMinimumCapacity();
-		}
 	}
 
 	private void ensureMinimumCapacity() {
-		if (availablePool == null) {
-			availablePool = new CacheEventStack();
-		}
 		if (availablePool.size() < poolCapacity) {
 			final int minimumCapacity = poolCapacity - availablePool.size();
 			for (int i = 0; i < minimumCapacity; i++)
@@ -146,4 +164,4 @@ public class CacheEventPool {
 		}
 	}
 
-}
\ No newline at end of file
+}
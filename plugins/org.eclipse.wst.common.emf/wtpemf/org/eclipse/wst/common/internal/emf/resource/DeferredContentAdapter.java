@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.internal.emf.resource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Holds the XML elements of the collections of an EMF object that were not translated when its
+ * resource was loaded. The elements are recorded by the EMF2StAXRenderer when it is asked to defer
+ * large collections, and are translated into the collection the first time that they are resolved.
+ *
+ * EMF does not tell when a feature is read, so code that reads a collection of a resource loaded
+ * this way must resolve it first with {@link #resolve(EObject, EStructuralFeature)}. A
+ * TranslatorPath resolves the collections that it walks, so links find their targets. The renderer
+ * resolves everything before the resource is written to or saved.
+ *
+ * The deferred elements of a collection always come after the elements that have been translated.
+ * A change made to a collection without accessForWrite() is therefore applied to the elements that
+ * the caller could see, and the deferred elements are translated after it, in document order;
+ * elements that were added at the end of the collection are moved after them.
+ *
+ * Resolving a collection does not send notifications, and does not mark the resource as modified.
+ */
+public class DeferredContentAdapter extends AdapterImpl {
+
+	protected final static String ADAPTER_TYPE = DeferredContentAdapter.class.getName();
+
+	private final TranslatorResource resource;
+	private final EObject owner;
+	/* The deferred collections, in document order */
+	private final List groups = new ArrayList();
+
+	DeferredContentAdapter(TranslatorResource resource, EObject owner) {
+		this.resource = resource;
+		this.owner = owner;
+	}
+
+	/**
+	 * Translate the deferred elements of the feature of the object, if it has any.
+	 */
+	public static void resolve(EObject obj, EStructuralFeature feature) {
+		if (obj == null)
+			return;
+		DeferredContentAdapter adapter = retrieveExistingAdapter(obj);
+		if (adapter != null)
+			adapter.resolve(feature);
+	}
+
+	/**
+	 * Translate all of the deferred elements of the object.
+	 */
+	public static void resolveAll(EObject obj) {
+		if (obj == null)
+			return;
+		DeferredContentAdapter adapter = retrieveExistingAdapter(obj);
+		if (adapter != null)
+			adapter.resolveAll();
+	}
+
+	/**
+	 * Answer true if the feature of the object has elements that have not been translated.
+	 */
+	public static boolean isDeferred(EObject obj, EStructuralFeature feature) {
+		if (obj == null)
+			return false;
+		DeferredContentAdapter adapter = retrieveExistingAdapter(obj);
+		return adapter != null && adapter.hasDeferredContent(feature);
+	}
+
+	protected static DeferredContentAdapter retrieveExistingAdapter(EObject obj) {
+		return (DeferredContentAdapter) EcoreUtil.getExistingAdapter(obj, ADAPTER_TYPE);
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return ADAPTER_TYPE.equals(type);
+	}
+
+	/**
+	 * Translate a collection when it has been changed, so that later changes see all of it.
+	 */
+	@Override
+	public void notifyChanged(Notification msg) {
+		if (msg.getNotifier() != owner || !(msg.getFeature() instanceof EStructuralFeature))
+			return;
+		EStructuralFeature feature = (EStructuralFeature) msg.getFeature();
+		if (!hasDeferredContent(feature))
+			return;
+		int eventType = msg.getEventType();
+		if (!feature.isMany() || (eventType != Notification.ADD && eventType != Notification.ADD_MANY)) {
+			resolve(feature);
+			return;
+		}
+		EList list = (EList) owner.eGet(feature);
+		List added = eventType == Notification.ADD ? Collections.singletonList(msg.getNewValue()) : new ArrayList((Collection) msg.getNewValue());
+		boolean atEnd = msg.getPosition() + added.size() == list.size();
+		resolve(feature);
+		if (atEnd)
+			moveToEnd(list, added);
+	}
+
+	/*
+	 * Move the elements that were added at the end of the collection after its deferred elements.
+	 */
+	private void moveToEnd(EList list, List added) {
+		boolean deliver = owner.eDeliver();
+		owner.eSetDeliver(false);
+		try {
+			for (int i = 0; i < added.size(); i++)
+				list.move(list.size() - 1, added.get(i));
+		} finally {
+			owner.eSetDeliver(deliver);
+		}
+	}
+
+	public synchronized boolean hasDeferredContent() {
+		return !groups.isEmpty();
+	}
+
+	public synchronized boolean hasDeferredContent(EStructuralFeature feature) {
+		for (int i = 0; i < groups.size(); i++) {
+			if (((Group) groups.get(i)).feature == feature)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Translate the deferred elements of the feature, in document order.
+	 */
+	public synchronized void resolve(EStructuralFeature feature) {
+		for (int i = 0; i < groups.size();) {
+			Group group = (Group) groups.get(i);
+			if (group.feature == feature) {
+				groups.remove(i);
+				translate(group);
+			} else
+				i++;
+		}
+		removeIfResolved();
+	}
+
+	public synchronized void resolveAll() {
+		while (!groups.isEmpty())
+			translate((Group) groups.remove(0));
+		removeIfResolved();
+	}
+
+	/**
+	 * Record an element of a collection that is being deferred. The adapter is added to its owner
+	 * while it has elements, so that links that are read later in the document find them.
+	 */
+	synchronized void addFragment(Translator ownerTranslator, int versionID, EStructuralFeature feature, Fragment fragment) {
+		if (groups.isEmpty() && !owner.eAdapters().contains(this))
+			owner.eAdapters().add(this);
+		Group group = groups.isEmpty() ? null : (Group) groups.get(groups.size() - 1);
+		if (group == null || group.feature != feature) {
+			group = new Group(ownerTranslator, versionID, feature);
+			groups.add(group);
+		}
+		group.fragments.add(fragment);
+	}
+
+	/**
+	 * Translate the collections with fewer elements than the given size, which are not worth
+	 * deferring, and remove the adapter if nothing is left. A collection may have been recorded in
+	 * more than one group.
+	 */
+	synchronized void resolveSmallerThan(int size) {
+		Map counts = new IdentityHashMap();
+		for (int i = 0; i < groups.size(); i++) {
+			Group group = (Group) groups.get(i);
+			Integer count = (Integer) counts.get(group.feature);
+			int total = group.fragments.size() + (count == null ? 0 : count.intValue());
+			counts.put(group.feature, Integer.valueOf(total));
+		}
+		for (int i = 0; i < groups.size();) {
+			Group group = (Group) groups.get(i);
+			if (((Integer) counts.get(group.feature)).intValue() < size) {
+				groups.remove(i);
+				translate(group);
+			} else
+				i++;
+		}
+		removeIfResolved();
+	}
+
+	private void removeIfResolved() {
+		if (groups.isEmpty() && owner.eAdapters().contains(this))
+			owner.eAdapters().remove(this);
+	}
+
+	/*
+	 * Replay the recorded elements through a document handler whose current node stands for the
+	 * owner, as if they were read in the owner's element.
+	 */
+	private void translate(Group group) {
+		boolean deliver = owner.eDeliver();
+		boolean modified = resource.isModified();
+		owner.eSetDeliver(false);
+		try {
+			CacheEventNode root = new CacheEventNode(null);
+			root.init(resource);
+			CacheEventNode context = new CacheEventNode(null);
+			context.initContext(root, group.ownerTranslator, owner, group.versionID);
+
+			EMF2SAXDocumentHandler handler = new EMF2SAXDocumentHandler(resource);
+			handler.startFragment(context);
+			for (int i = 0; i < group.fragments.size(); i++)
+				((Fragment) group.fragments.get(i)).replay(handler);
+			handler.endFragment();
+		} catch (SAXException e) {
+			throw new WrappedException(e);
+		} finally {
+			owner.eSetDeliver(deliver);
+			if (!modified)
+				resource.setModified(false);
+		}
+	}
+
+	/*
+	 * The deferred elements of one collection that were next to each other in the document
+	 */
+	private static class Group {
+		final Translator ownerTranslator;
+		final int versionID;
+		final EStructuralFeature feature;
+		final List fragments = new ArrayList();
+
+		Group(Translator ownerTranslator, int versionID, EStructuralFeature feature) {
+			this.ownerTranslator = ownerTranslator;
+			this.versionID = versionID;
+			this.feature = feature;
+		}
+	}
+
+	/**
+	 * The recorded events of one XML element and its content. A start is a String[] of the name
+	 * followed by the names and values of the attributes, text is a char[], and an end is the
+	 * String name.
+	 */
+	static class Fragment {
+		private final List events = new ArrayList();
+
+		void start(String qName, AttributesImpl attributes) {
+			String[] event = new String[1 + 2 * attributes.getLength()];
+			event[0] = qName;
+			for (int i = 0; i < attributes.getLength(); i++) {
+				event[1 + 2 * i] = attributes.getQName(i);
+				event[2 + 2 * i] = attributes.getValue(i);
+			}
+			events.add(event);
+		}
+
+		void text(char[] data, int start, int length) {
+			char[] event = new char[length];
+			System.arraycopy(data, start, event, 0, length);
+			events.add(event);
+		}
+
+		void end(String qName) {
+			events.add(qName);
+		}
+
+		void replay(EMF2SAXDocumentHandler handler) throws SAXException {
+			AttributesImpl attributes = new AttributesImpl();
+			for (int i = 0; i < events.size(); i++) {
+				Object event = events.get(i);
+				if (event instanceof String[]) {
+					String[] start = (String[]) event;
+					attributes.clear();
+					for (int j = 1; j < start.length; j += 2)
+						attributes.addAttribute("", start[j], start[j], "CDATA", start[j + 1]); //$NON-NLS-1$ //$NON-NLS-2$
+					handler.startElement("", start[0], start[0], attributes); //$NON-NLS-1$
+				} else if (event instanceof char[]) {
+					char[] text = (char[]) event;
+					handler.characters(text, 0, text.length);
+				} else
+					handler.endElement("", (String) event, (String) event); //$NON-NLS-1$
+			}
+		}
+	}
+}
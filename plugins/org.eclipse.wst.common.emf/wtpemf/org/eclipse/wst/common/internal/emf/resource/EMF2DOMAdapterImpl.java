@@ -65,6 +65,8 @@ public class EMF2DOMAdapterImpl extends AdapterImpl implements EMF2DOMAdapter {
 	protected Translator[] childTranslators;
 
 	protected boolean isRoot = false;
+
+	private TranslatorDispatch dispatch;
 	
 	private static final String PLATFORM = "org.eclipse.core.runtime.Platform"; //$NON-NLS-1$
 	private static final String ISRUNNING = "isRunning"; //$NON-NLS-1$
@@ -282,10 +284,28 @@ public class EMF2DOMAdapterImpl extends AdapterImpl implements EMF2DOMAdapter {
 		return childTranslators;
 	}
 
+	/*
+	 * Answer the dispatch table for the child translators, or null to scan them. The children of
+	 * translators with variable children are different for each adapter, so they are not hashed.
+	 */
+	private TranslatorDispatch getDispatch(Translator[] maps) {
+		TranslatorDispatch table = dispatch;
+		if (table != null && table.children == maps)
+			return table;
+		if (maps == null || fTranslator.getVariableTranslatorFactory() != null)
+			return null;
+		table = TranslatorDispatch.get(maps);
+		dispatch = table;
+		return table;
+	}
+
 	protected Translator findTranslator(Notification not) {
 		if (not.getFeature() == null)
 			return null;
 		Translator[] maps = getChildTranslators();
+		TranslatorDispatch table = getDispatch(maps);
+		if (table != null)
+			return table.findChild(not.getFeature(), not.getOldValue(), not.getNewValue());
 		for (int i = 0; i < maps.length; i++) {
 			if (maps[i].isMapFor(not.getFeature(), not.getOldValue(), not.getNewValue()))
 				return maps[i];
@@ -1305,6 +1325,9 @@ public class EMF2DOMAdapterImpl extends AdapterImpl implements EMF2DOMAdapter {
 
 	protected Translator findTranslator(String tagName, boolean attributeMap) {
 		Translator[] maps = getChildTranslators();
+		TranslatorDispatch table = getDispatch(maps);
+		if (table != null)
+			return table.findChild(tagName, attributeMap ? TranslatorDispatch.ATTRIBUTE : TranslatorDispatch.ELEMENT);
 		for (int i = 0; i < maps.length; i++) {
 			Translator map = maps[i];
 			if (map.isMapFor(tagName) && attributeMap == map.isDOMAttribute())
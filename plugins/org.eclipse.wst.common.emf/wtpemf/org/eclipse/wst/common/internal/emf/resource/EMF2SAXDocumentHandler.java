@@ -132,6 +132,25 @@ public class EMF2SAXDocumentHandler extends DefaultHandler {
 		availableEventPool.freezePool();
 	}
 
+	/**
+	 * Begin to translate XML elements into an EMF object that already exists, instead of a whole
+	 * document. The given context CENO stands for the object; it is not committed, and the events
+	 * that follow must be for its child elements.
+	 */
+	void startFragment(CacheEventNode context) {
+		availableEventPool.warmPool();
+		eventStack.clear();
+		eventStack.push(context);
+	}
+
+	/**
+	 * End the translation begun by startFragment(CacheEventNode).
+	 */
+	void endFragment() {
+		this.removeCurrentRecord();
+		availableEventPool.freezePool();
+	}
+
 	/**
 	 * @see org.xml.sax.ErrorHandler#error(org.xml.sax.SAXParseException)
 	 */
@@ -17,13 +17,10 @@ import java.util.Map;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 
@@ -31,7 +28,6 @@ import org.eclipse.emf.common.util.WrappedException;
 import org.eclipse.wst.common.internal.emf.plugin.EcoreUtilitiesPlugin;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
-import org.xml.sax.SAXNotRecognizedException;
 import org.xml.sax.XMLReader;
 
 /**
@@ -52,42 +48,13 @@ public class EMF2SAXRenderer extends AbstractRendererImpl {
 	 * @see com.ibm.etools.emf2xml.Renderer#doLoad(java.io.InputStream, java.util.Map)
 	 */
 	public void doLoad(InputStream in, Map options) throws IOException {
+		SAXRendererPool pool = SAXRendererPool.getInstance();
+		boolean validating = isValidating();
+		SAXParser parser = null;
 		try {
-			SAXParserFactory factory = SAXParserFactory.newInstance();
-			factory.setValidating(isValidating());
-			factory.setNamespaceAware(true);
-			/*
-			 * Causes errors in IBM JDK try { factory.setAttribute(JAXP_SCHEMA_LANGUAGE,
-			 * W3C_XML_SCHEMA); } catch (IllegalArgumentException x) { }
-			 */
-			SAXParser parser = factory.newSAXParser();
+			parser = pool.acquireParser(validating);
 			XMLReader reader = parser.getXMLReader();
 			EMF2SAXDocumentHandler handler = new EMF2SAXDocumentHandler(this.getResource());
-			try {
-				reader.setFeature("http://xml.org/sax/features/validation", isValidating()); //$NON-NLS-1$
-			} catch (SAXNotRecognizedException snre) {
-                // ignore exception
-			}
-			try {
-				reader.setFeature("http://xml.org/sax/features/namespace-prefixes", true); //$NON-NLS-1$
-			} catch (SAXNotRecognizedException snre) {
-                // ignore exception
-            }
-			try {
-				reader.setFeature("http://apache.org/xml/features/validation/schema", isValidating()); //$NON-NLS-1$
-			} catch (SAXNotRecognizedException e) {
-				reader.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
-				EcoreUtilitiesPlugin.logWarning("Warning: Parser does not support \"http://apache.org/xml/features/validation/schema\". Validation will be disabled."); //$NON-NLS-1$
-			}
-			try {
-				reader.setFeature("http://apache.org/xml/features/allow-java-encodings", true); //$NON-NLS-1$
-			} catch (SAXNotRecognizedException e) {
-				EcoreUtilitiesPlugin.logWarning("Warning: Parser does not support \"http://apache.org/xml/features/allow-java-encodings\"."); //$NON-NLS-1$
-			}
-			/*
-			 * try { reader.setProperty("http://xml.org/sax/properties/lexical-handler", handler); }
-			 * catch (SAXNotRecognizedException e) { }
-			 */
 			reader.setContentHandler(handler);
 			reader.setErrorHandler(handler);
 			//reader.setDTDHandler(handler);
@@ -100,6 +67,9 @@ public class EMF2SAXRenderer extends AbstractRendererImpl {
 		    throw new WrappedException(se);
         } catch (ParserConfigurationException e) {
             throw new WrappedException(e);
+        } finally {
+        	if (parser != null)
+        		pool.releaseParser(parser, validating);
         }
 	}
 
@@ -120,8 +90,7 @@ public class EMF2SAXRenderer extends AbstractRendererImpl {
 		TransformerHandler handler = null;
 		try {
 			try {
-				SAXTransformerFactory factory = (SAXTransformerFactory) TransformerFactory.newInstance();
-				handler = factory.newTransformerHandler();
+				handler = SAXRendererPool.getInstance().createTransformerHandler();
 
 				handler.setResult(new StreamResult(outputStream));
 				Transformer transformer = handler.getTransformer();
@@ -110,7 +110,7 @@ public class EMF2SAXWriter {
 							rawValue = mofChildren.get(j);
 							/* convertValueToString should always return a non-null String */
 							convertedValue = currentChildTranslator.convertValueToString(rawValue, target);
-							characterData = XMLEncoderDecoder.escape(convertedValue).toCharArray();
+							characterData = escape(convertedValue).toCharArray();
 							handler.characters(characterData, 0, characterData.length);
 
 							if (!currentChildTranslator.isDOMTextValue())
@@ -161,6 +161,18 @@ public class EMF2SAXWriter {
 		handler.endElement(NAMESPACE, targetDomName, targetDomName);
 	}
 
+	/**
+	 * Escape a text or attribute value before it is given to the ContentHandler. Subclasses whose
+	 * handlers escape the values themselves can return the value unchanged.
+	 * 
+	 * @param value
+	 *            the value converted by a Translator
+	 * @return the value to give to the ContentHandler
+	 */
+	protected String escape(String value) {
+		return XMLEncoderDecoder.escape(value);
+	}
+
 	/**
 	 * Determines whether or not a DOM Path should be rendered. This method is particularly useful
 	 * for determining whether Empty XML elements are relevant and should be written to the XML
@@ -285,7 +297,7 @@ public class EMF2SAXWriter {
 					childDomName = attributeTranslator.getDOMName(target);
 					rawValue = mofChildren.get(j);
 					convertedValue = attributeTranslator.convertValueToString(rawValue, target);
-					convertedValue = XMLEncoderDecoder.escape(convertedValue);
+					convertedValue = escape(convertedValue);
 					attributes.addAttribute(NAMESPACE, childDomName, childDomName, "String", convertedValue); //$NON-NLS-1$
 				}
 
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.internal.emf.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * The EMF2StAXReader pulls the events of an XML document from a StAX parser and hands them to an
+ * EMF2SAXDocumentHandler, which builds the EMF model with the Translators of the resource as the
+ * elements are read.
+ *
+ * Namespace declarations are given to the handler as attributes, as the SAX parser reports them,
+ * so that translators for attributes such as xmlns:xsi still apply.
+ *
+ * When a deferred collection size is set, the elements of collections of contained objects are
+ * recorded instead of translated, in DeferredContentAdapters on their owners, and only the
+ * collections with at least that many elements are left there when the document has been read.
+ */
+class EMF2StAXReader {
+
+	private static final String XMLNS = "xmlns"; //$NON-NLS-1$
+	private static final String CDATA_TYPE = "CDATA"; //$NON-NLS-1$
+
+	private static XMLInputFactory inputFactory;
+
+	/*
+	 * The resource being loaded on the current thread, used to resolve entities. The input factory
+	 * is shared, and its resolver can not be set for each parser.
+	 */
+	private static final ThreadLocal loadingResource = new ThreadLocal();
+
+	private final TranslatorResource resource;
+	private final AttributesImpl attributes = new AttributesImpl();
+
+	private int deferredCollectionSize;
+	/* EObject -> DeferredContentAdapter, for the owners with recorded elements */
+	private final Map deferredContent = new IdentityHashMap();
+
+	EMF2StAXReader(TranslatorResource resource) {
+		this.resource = resource;
+	}
+
+	/**
+	 * Defer the collections with at least the given number of elements, or none if the size is 0.
+	 */
+	void setDeferredCollectionSize(int size) {
+		deferredCollectionSize = size;
+	}
+
+	/**
+	 * Answer the DeferredContentAdapters that hold the deferred collections of the document read.
+	 */
+	List getDeferredContent() {
+		List result = new ArrayList();
+		for (Iterator i = deferredContent.values().iterator(); i.hasNext();) {
+			DeferredContentAdapter adapter = (DeferredContentAdapter) i.next();
+			if (adapter.hasDeferredContent())
+				result.add(adapter);
+		}
+		return result;
+	}
+
+	private static synchronized XMLInputFactory getInputFactory() {
+		if (inputFactory == null) {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.TRUE);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.TRUE);
+			factory.setXMLResolver(new Resolver());
+			inputFactory = factory;
+		}
+		return inputFactory;
+	}
+
+	/**
+	 * Create a parser for the stream. XMLInputFactory implementations need not be thread safe, so
+	 * the shared factory is locked while the parser is created.
+	 */
+	private static XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+		XMLInputFactory factory = getInputFactory();
+		synchronized (factory) {
+			return factory.createXMLStreamReader(in);
+		}
+	}
+
+	/**
+	 * Read the document and populate the resource.
+	 */
+	void read(InputStream in) throws IOException {
+		Object previousResource = loadingResource.get();
+		loadingResource.set(resource);
+		XMLStreamReader reader = null;
+		try {
+			reader = createReader(in);
+			EMF2SAXDocumentHandler handler = new EMF2SAXDocumentHandler(resource);
+			handler.startDocument();
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT :
+						String qName = getQName(reader.getPrefix(), reader.getLocalName());
+						if (deferredCollectionSize > 0 && deferElement(reader, handler, qName))
+							break;
+						handler.startElement(getNamespaceURI(reader), reader.getLocalName(), qName, getAttributes(reader));
+						break;
+					case XMLStreamConstants.CHARACTERS :
+					case XMLStreamConstants.CDATA :
+						handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						break;
+					case XMLStreamConstants.END_ELEMENT :
+						handler.endElement(getNamespaceURI(reader), reader.getLocalName(), getQName(reader.getPrefix(), reader.getLocalName()));
+						break;
+					/*
+					 * Whitespace in element content is ignorable, which the SAX handler does not
+					 * keep either
+					 */
+				}
+			}
+			handler.endDocument();
+			finishDeferredContent();
+		} catch (XMLStreamException e) {
+			throw new WrappedException(e);
+		} catch (SAXException e) {
+			throw new WrappedException(e);
+		} finally {
+			loadingResource.set(previousResource);
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// ignore exception
+				}
+			}
+		}
+	}
+
+	/*
+	 * Record the element instead of translating it, if it is an element of a collection of
+	 * contained objects that the Translators can build on their own. Returns false if the element
+	 * has to be translated now.
+	 */
+	private boolean deferElement(XMLStreamReader reader, EMF2SAXDocumentHandler handler, String qName) throws XMLStreamException {
+		CacheEventNode parent = handler.getCurrentRecord();
+		if (parent == null || parent.getTranslator() == null || parent.isChildIgnorable(qName))
+			return false;
+		// elements in a DOM path belong to the object of the grand parent, as in CacheEventNode
+		CacheEventNode ownerRecord = parent.isInDOMPath() ? parent.getParent() : parent;
+		if (ownerRecord == null || ownerRecord.getParent() == null || ownerRecord.getTranslator() == null || !(ownerRecord.getEmfOwner() instanceof EObject))
+			return false;
+
+		EObject owner = (EObject) ownerRecord.getEmfOwner();
+		Translator ownerTranslator = ownerRecord.getTranslator();
+		int versionID = ownerRecord.getVersionID();
+		Translator translator = ownerTranslator.findChild(qName, owner, versionID);
+		if (translator == null)
+			return false;
+
+		DeferredContentAdapter adapter = (DeferredContentAdapter) deferredContent.get(owner);
+		if (!isDeferrable(translator, qName)) {
+			// keep the document order of a collection whose elements are not all deferred
+			if (adapter != null)
+				adapter.resolve(translator.getFeature());
+			return false;
+		}
+		if (adapter == null) {
+			adapter = new DeferredContentAdapter(resource, owner);
+			deferredContent.put(owner, adapter);
+		}
+		adapter.addFragment(ownerTranslator, versionID, translator.getFeature(), recordElement(reader, qName));
+		return true;
+	}
+
+	private static boolean isDeferrable(Translator translator, String qName) {
+		EStructuralFeature feature = translator.getFeature();
+		return translator.isObjectMap() && translator.isMultiValued() && !translator.isManagedByParent() && !translator.isShared() && !translator.isDependencyParent() && translator.getReadAheadHelper(qName) == null && feature instanceof EReference && ((EReference) feature).isContainment();
+	}
+
+	/*
+	 * Record the events of the current element, up to and including its end.
+	 */
+	private DeferredContentAdapter.Fragment recordElement(XMLStreamReader reader, String qName) throws XMLStreamException {
+		DeferredContentAdapter.Fragment fragment = new DeferredContentAdapter.Fragment();
+		fragment.start(qName, getAttributes(reader));
+		int depth = 1;
+		while (depth > 0) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT :
+					fragment.start(getQName(reader.getPrefix(), reader.getLocalName()), getAttributes(reader));
+					depth++;
+					break;
+				case XMLStreamConstants.CHARACTERS :
+				case XMLStreamConstants.CDATA :
+					fragment.text(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					break;
+				case XMLStreamConstants.END_ELEMENT :
+					fragment.end(getQName(reader.getPrefix(), reader.getLocalName()));
+					depth--;
+					break;
+			}
+		}
+		return fragment;
+	}
+
+	/*
+	 * Translate the collections that are too small to defer.
+	 */
+	private void finishDeferredContent() {
+		for (Iterator i = deferredContent.values().iterator(); i.hasNext();)
+			((DeferredContentAdapter) i.next()).resolveSmallerThan(deferredCollectionSize);
+	}
+
+	private AttributesImpl getAttributes(XMLStreamReader reader) {
+		attributes.clear();
+		int count = reader.getNamespaceCount();
+		for (int i = 0; i < count; i++) {
+			String prefix = reader.getNamespacePrefix(i);
+			String qName = (prefix == null || prefix.length() == 0) ? XMLNS : XMLNS + ':' + prefix;
+			String value = reader.getNamespaceURI(i);
+			attributes.addAttribute("", qName, qName, CDATA_TYPE, value == null ? "" : value); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		count = reader.getAttributeCount();
+		for (int i = 0; i < count; i++) {
+			String localName = reader.getAttributeLocalName(i);
+			String uri = reader.getAttributeNamespace(i);
+			attributes.addAttribute(uri == null ? "" : uri, localName, getQName(reader.getAttributePrefix(i), localName), reader.getAttributeType(i), reader.getAttributeValue(i)); //$NON-NLS-1$
+		}
+		return attributes;
+	}
+
+	private static String getNamespaceURI(XMLStreamReader reader) {
+		String uri = reader.getNamespaceURI();
+		return uri == null ? "" : uri; //$NON-NLS-1$
+	}
+
+	private static String getQName(String prefix, String localName) {
+		if (prefix == null || prefix.length() == 0)
+			return localName;
+		return prefix + ':' + localName;
+	}
+
+	/**
+	 * Resolves entities with the EntityResolver of the resource being loaded, and records the
+	 * public and system ids of the DOCTYPE, as the EMF2SAXDocumentHandler does.
+	 */
+	private static class Resolver implements XMLResolver {
+
+		public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) throws XMLStreamException {
+			TranslatorResource resource = (TranslatorResource) loadingResource.get();
+			if (resource == null)
+				return null;
+			resource.setDoctypeValues(publicID, systemID);
+
+			EntityResolver entityResolver = resource.getEntityResolver();
+			if (entityResolver == null)
+				return null;
+			try {
+				InputSource source = entityResolver.resolveEntity(publicID, systemID);
+				if (source == null)
+					return null;
+				if (source.getByteStream() != null)
+					return source.getByteStream();
+				if (source.getSystemId() != null)
+					return new URL(source.getSystemId()).openStream();
+			} catch (SAXException e) {
+				throw new XMLStreamException(e);
+			} catch (IOException e) {
+				throw new XMLStreamException(e);
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.internal.emf.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.wst.common.internal.emf.plugin.EcoreUtilitiesPlugin;
+
+/**
+ * A Renderer that loads and saves with a StAX parser and writer. The document is read one event at
+ * a time and given to the Translators of the resource, and saved straight to an XMLStreamWriter,
+ * so no DOM and no Transformer pipeline is built for the document.
+ *
+ * StAX parsers do not validate, so validating loads are done by the EMF2SAXRenderer. It is also
+ * used when no StAX implementation is available: javax.xml.stream is not part of J2SE 1.5, so the
+ * bundle imports it optionally, and the classes that use it are only loaded once it has been found.
+ *
+ * The renderer can be chosen for a single resource by creating it with the
+ * EMF2StAXRendererFactory and giving it to the TranslatorResourceImpl.
+ *
+ * With the {@link #OPTION_DEFERRED_COLLECTION_SIZE} load option, large collections of contained
+ * objects are recorded during the load and only translated when they are resolved through the
+ * DeferredContentAdapter of their owner, so a tool that reads a few values of a large document
+ * does not pay for building the rest. Deferral is off unless the option is given: code that reads
+ * the resource sees only part of the deferred collections until they are resolved, so only a
+ * caller that resolves what it reads should ask for it. Everything is resolved before the resource
+ * is written to or saved, and before an object of the resource is looked up by a fragment path, or
+ * by an ID that is not found otherwise.
+ */
+public class EMF2StAXRenderer extends EMF2SAXRenderer {
+
+	/**
+	 * Load option whose value is an Integer: collections of contained objects with at least this
+	 * many elements are not translated until they are resolved with
+	 * {@link DeferredContentAdapter#resolve(org.eclipse.emf.ecore.EObject, org.eclipse.emf.ecore.EStructuralFeature)}.
+	 * Boolean.TRUE uses {@link #DEFAULT_DEFERRED_COLLECTION_SIZE}. Without the option, or with 0,
+	 * nothing is deferred.
+	 */
+	public static final String OPTION_DEFERRED_COLLECTION_SIZE = "org.eclipse.wst.common.internal.emf.resource.DEFERRED_COLLECTION_SIZE"; //$NON-NLS-1$
+
+	public static final int DEFAULT_DEFERRED_COLLECTION_SIZE = 64;
+
+	private static Boolean stAXAvailable;
+
+	/* The DeferredContentAdapters of the last load that still have content to resolve */
+	private List deferredContent = Collections.EMPTY_LIST;
+
+	public EMF2StAXRenderer() {
+		super();
+	}
+
+	/**
+	 * Answer whether the StAX API can be loaded.
+	 */
+	public static synchronized boolean isStAXAvailable() {
+		if (stAXAvailable == null) {
+			boolean available;
+			try {
+				Class.forName("javax.xml.stream.XMLInputFactory"); //$NON-NLS-1$
+				Class.forName("javax.xml.stream.XMLOutputFactory"); //$NON-NLS-1$
+				available = true;
+			} catch (ClassNotFoundException e) {
+				available = false;
+				EcoreUtilitiesPlugin.logWarning("Warning: StAX is not available. Resources will be loaded and saved with SAX."); //$NON-NLS-1$
+			}
+			stAXAvailable = available ? Boolean.TRUE : Boolean.FALSE;
+		}
+		return stAXAvailable.booleanValue();
+	}
+
+	@Override
+	public void doLoad(InputStream in, Map options) throws IOException {
+		if (isValidating() || !isStAXAvailable()) {
+			super.doLoad(in, options);
+			return;
+		}
+		EMF2StAXReader reader = new EMF2StAXReader(getResource());
+		int deferredCollectionSize = getDeferredCollectionSize(options);
+		reader.setDeferredCollectionSize(deferredCollectionSize);
+		reader.read(in);
+		if (deferredCollectionSize > 0)
+			setDeferredContent(reader.getDeferredContent());
+	}
+
+	private static int getDeferredCollectionSize(Map options) {
+		Object value = options == null ? null : options.get(OPTION_DEFERRED_COLLECTION_SIZE);
+		if (value instanceof Integer)
+			return Math.max(((Integer) value).intValue(), 0);
+		if (Boolean.TRUE.equals(value))
+			return DEFAULT_DEFERRED_COLLECTION_SIZE;
+		return 0;
+	}
+
+	private synchronized void setDeferredContent(List adapters) {
+		deferredContent = adapters.isEmpty() ? Collections.EMPTY_LIST : adapters;
+	}
+
+	/**
+	 * Answer whether collections that were deferred when the resource was loaded may still have to be
+	 * translated.
+	 */
+	public synchronized boolean hasDeferredContent() {
+		return !deferredContent.isEmpty();
+	}
+
+	/**
+	 * Translate all of the collections that were deferred when the resource was loaded.
+	 */
+	public void resolveDeferredContent() {
+		List adapters;
+		synchronized (this) {
+			adapters = deferredContent;
+			deferredContent = Collections.EMPTY_LIST;
+		}
+		for (int i = 0; i < adapters.size(); i++)
+			((DeferredContentAdapter) adapters.get(i)).resolveAll();
+	}
+
+	@Override
+	public void accessForWrite() {
+		resolveDeferredContent();
+		super.accessForWrite();
+	}
+
+	@Override
+	public void preUnload() {
+		// the objects are going away, there is no need to translate their collections
+		setDeferredContent(Collections.EMPTY_LIST);
+		super.preUnload();
+	}
+
+	@Override
+	public void doSave(OutputStream outputStream, Map options) throws IOException {
+		resolveDeferredContent();
+		if (!isStAXAvailable()) {
+			super.doSave(outputStream, options);
+			return;
+		}
+		new EMF2StAXWriter().serialize(getResource(), outputStream);
+	}
+}
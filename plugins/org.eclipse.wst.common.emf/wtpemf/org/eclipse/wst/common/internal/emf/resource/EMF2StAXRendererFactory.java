@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.internal.emf.resource;
+
+
+/**
+ * Used to create instances of the EMF2StAXRenderer. The renderers do not validate unless
+ * validation is turned on for the factory, in which case they load with SAX.
+ */
+public class EMF2StAXRendererFactory extends RendererFactory {
+
+	public static final EMF2StAXRendererFactory INSTANCE = new EMF2StAXRendererFactory();
+
+	protected EMF2StAXRendererFactory() {
+		super();
+		setValidating(false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.wst.common.internal.emf.resource.RendererFactory#createRenderer()
+	 */
+	@Override
+	public Renderer createRenderer() {
+		EMF2StAXRenderer renderer = new EMF2StAXRenderer();
+		renderer.setValidating(isValidating());
+		return renderer;
+	}
+
+}
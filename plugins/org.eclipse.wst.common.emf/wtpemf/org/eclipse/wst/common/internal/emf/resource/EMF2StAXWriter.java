@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.internal.emf.resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.wst.common.internal.emf.utilities.DOMUtilities;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * The EMF2StAXWriter serializes EMF Resources straight to an XMLStreamWriter. It walks the
+ * Translators as the EMF2SAXWriter does, but its ContentHandler writes each event to the stream as
+ * it is received, indenting child elements by four spaces, instead of going through a Transformer.
+ */
+class EMF2StAXWriter extends EMF2SAXWriter {
+
+	private static final String INDENT = "    "; //$NON-NLS-1$
+	private static final String XMLNS = "xmlns"; //$NON-NLS-1$
+	private static final String XMLNS_PREFIX = "xmlns:"; //$NON-NLS-1$
+
+	private static XMLOutputFactory outputFactory;
+
+	private static synchronized XMLOutputFactory getOutputFactory() {
+		if (outputFactory == null)
+			outputFactory = XMLOutputFactory.newInstance();
+		return outputFactory;
+	}
+
+	/**
+	 * Create a writer for the stream. XMLOutputFactory implementations need not be thread safe, so
+	 * the shared factory is locked while the writer is created.
+	 */
+	private static XMLStreamWriter createWriter(OutputStream outputStream, String encoding) throws XMLStreamException {
+		XMLOutputFactory factory = getOutputFactory();
+		synchronized (factory) {
+			return factory.createXMLStreamWriter(outputStream, encoding);
+		}
+	}
+
+	/**
+	 * The XMLStreamWriter escapes text and attribute values itself
+	 */
+	@Override
+	protected String escape(String value) {
+		return value;
+	}
+
+	/**
+	 * Serialize the resource into the stream, with the encoding and XML version of the resource.
+	 */
+	void serialize(TranslatorResource resource, OutputStream outputStream) throws IOException {
+		XMLStreamWriter writer = null;
+		try {
+			writer = createWriter(outputStream, resource.getEncoding());
+			serialize(resource, new StreamHandler(writer, resource));
+			writer.flush();
+		} catch (XMLStreamException e) {
+			throw new WrappedException(e);
+		} catch (SAXException e) {
+			throw new WrappedException(e);
+		} finally {
+			if (writer != null) {
+				try {
+					// does not close the output stream
+					writer.close();
+				} catch (XMLStreamException e) {
+					// ignore exception
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the SAX events of the EMF2SAXWriter to an XMLStreamWriter.
+	 *
+	 * The start of an element is held back until its first content or its end, so that elements
+	 * without content are written as empty elements. Elements with element children have their end
+	 * tag on a line of its own; elements with text are kept on one line.
+	 */
+	private static class StreamHandler extends DefaultHandler {
+		private final XMLStreamWriter writer;
+		private final TranslatorResource resource;
+
+		private String pendingName;
+		private String[] pendingAttributes = new String[8];
+		private int pendingAttributeCount;
+
+		private int depth;
+		/* Whether the open element at each depth has element children or text */
+		private boolean[] hasChildren = new boolean[16];
+		private boolean[] hasText = new boolean[16];
+
+		StreamHandler(XMLStreamWriter writer, TranslatorResource resource) {
+			this.writer = writer;
+			this.resource = resource;
+		}
+
+		@Override
+		public void startDocument() throws SAXException {
+			try {
+				writer.writeStartDocument(resource.getEncoding(), resource.getXMLVersion());
+				String systemId = resource.getSystemId();
+				String doctype = resource.getDoctype();
+				if (systemId != null && doctype != null) {
+					StringBuffer dtd = new StringBuffer("<!DOCTYPE "); //$NON-NLS-1$
+					dtd.append(doctype);
+					String publicId = resource.getPublicId();
+					if (publicId != null)
+						dtd.append(" PUBLIC \"").append(publicId).append("\" \""); //$NON-NLS-1$ //$NON-NLS-2$
+					else
+						dtd.append(" SYSTEM \""); //$NON-NLS-1$
+					dtd.append(systemId).append("\">"); //$NON-NLS-1$
+					writer.writeCharacters(DOMUtilities.NEWLINE_STRING);
+					writer.writeDTD(dtd.toString());
+				}
+			} catch (XMLStreamException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+			try {
+				writePendingStart();
+				if (depth > 0)
+					hasChildren[depth - 1] = true;
+				if (depth == 0 || !hasText[depth - 1])
+					writeIndent(depth);
+				pendingName = qName;
+				pendingAttributeCount = 0;
+				for (int i = 0; i < attributes.getLength(); i++)
+					addPendingAttribute(attributes.getQName(i), attributes.getValue(i));
+				depth++;
+				ensureDepth();
+				hasChildren[depth - 1] = false;
+				hasText[depth - 1] = false;
+			} catch (XMLStreamException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			if (length == 0)
+				return;
+			try {
+				writePendingStart();
+				if (depth > 0)
+					hasText[depth - 1] = true;
+				writer.writeCharacters(ch, start, length);
+			} catch (XMLStreamException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			try {
+				if (pendingName != null) {
+					writer.writeEmptyElement(pendingName);
+					writePendingAttributes();
+					pendingName = null;
+				} else {
+					if (hasChildren[depth - 1] && !hasText[depth - 1])
+						writeIndent(depth - 1);
+					writer.writeEndElement();
+				}
+				depth--;
+			} catch (XMLStreamException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		@Override
+		public void endDocument() throws SAXException {
+			try {
+				writer.writeCharacters(DOMUtilities.NEWLINE_STRING);
+				writer.writeEndDocument();
+			} catch (XMLStreamException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		private void writePendingStart() throws XMLStreamException {
+			if (pendingName != null) {
+				writer.writeStartElement(pendingName);
+				writePendingAttributes();
+				pendingName = null;
+			}
+		}
+
+		private void writePendingAttributes() throws XMLStreamException {
+			for (int i = 0; i < pendingAttributeCount; i++) {
+				String name = pendingAttributes[2 * i];
+				String value = pendingAttributes[2 * i + 1];
+				if (name.equals(XMLNS))
+					writer.writeDefaultNamespace(value);
+				else if (name.startsWith(XMLNS_PREFIX))
+					writer.writeNamespace(name.substring(XMLNS_PREFIX.length()), value);
+				else
+					writer.writeAttribute(name, value);
+			}
+			pendingAttributeCount = 0;
+		}
+
+		/*
+		 * The Attributes of the EMF2SAXWriter are reused for the next element, so they are copied
+		 */
+		private void addPendingAttribute(String name, String value) {
+			if (2 * pendingAttributeCount + 2 > pendingAttributes.length) {
+				String[] newAttributes = new String[pendingAttributes.length * 2];
+				System.arraycopy(pendingAttributes, 0, newAttributes, 0, pendingAttributes.length);
+				pendingAttributes = newAttributes;
+			}
+			pendingAttributes[2 * pendingAttributeCount] = name;
+			pendingAttributes[2 * pendingAttributeCount + 1] = value;
+			pendingAttributeCount++;
+		}
+
+		private void ensureDepth() {
+			if (depth > hasChildren.length) {
+				boolean[] newChildren = new boolean[hasChildren.length * 2];
+				System.arraycopy(hasChildren, 0, newChildren, 0, hasChildren.length);
+				hasChildren = newChildren;
+				boolean[] newText = new boolean[hasText.length * 2];
+				System.arraycopy(hasText, 0, newText, 0, hasText.length);
+				hasText = newText;
+			}
+		}
+
+		private void writeIndent(int level) throws XMLStreamException {
+			writer.writeCharacters(DOMUtilities.NEWLINE_STRING);
+			for (int i = 0; i < level; i++)
+				writer.writeCharacters(INDENT);
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.internal.emf.resource;
+
+import java.util.LinkedList;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+
+import org.eclipse.wst.common.internal.emf.plugin.EcoreUtilitiesPlugin;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Shares the SAX parsers and the transformer factory used by
+ * {@link EMF2SAXRenderer}, so that loading and saving a resource does not
+ * have to look up a factory and create a new parser every time.
+ * <p>
+ * Parsers are kept separately for validating and non-validating loads; all of
+ * them are namespace aware. A parser is reset when it is released, so it
+ * holds no reference to the resource it last loaded, and it is configured
+ * again when it is acquired. Transformer handlers can only be used for one
+ * document, so only their factory is shared.
+ * </p>
+ */
+public class SAXRendererPool {
+
+	/**
+	 * The most parsers of each kind that are kept while they are not in use.
+	 */
+	private static final int MAX_IDLE_PARSERS = 8;
+
+	private static final SAXRendererPool INSTANCE = new SAXRendererPool();
+
+	private static final DefaultHandler EMPTY_HANDLER = new DefaultHandler();
+
+	private final ParserPool validatingParsers = new ParserPool(true);
+	private final ParserPool nonValidatingParsers = new ParserPool(false);
+	private SAXTransformerFactory transformerFactory;
+
+	public static SAXRendererPool getInstance() {
+		return INSTANCE;
+	}
+
+	private SAXRendererPool() {
+		super();
+	}
+
+	/**
+	 * Get a namespace aware parser, configured for loading a translator
+	 * resource. The parser must be given back with
+	 * {@link #releaseParser(SAXParser, boolean)} when the load is done.
+	 */
+	public SAXParser acquireParser(boolean validating) throws ParserConfigurationException, SAXException {
+		return getParserPool(validating).acquire();
+	}
+
+	/**
+	 * Give back a parser that was acquired with the same validating setting.
+	 */
+	public void releaseParser(SAXParser parser, boolean validating) {
+		getParserPool(validating).release(parser);
+	}
+
+	/**
+	 * Create a handler that serializes the SAX events it receives.
+	 */
+	public TransformerHandler createTransformerHandler() throws TransformerConfigurationException {
+		SAXTransformerFactory factory;
+		synchronized (this) {
+			if (transformerFactory == null)
+				transformerFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+			factory = transformerFactory;
+		}
+		// factories are not required to be thread safe
+		synchronized (factory) {
+			return factory.newTransformerHandler();
+		}
+	}
+
+	private ParserPool getParserPool(boolean validating) {
+		return validating ? validatingParsers : nonValidatingParsers;
+	}
+
+	private static class ParserPool {
+		private final boolean validating;
+		private final LinkedList idle = new LinkedList();
+		private SAXParserFactory factory;
+		private boolean warned;
+
+		ParserPool(boolean validating) {
+			this.validating = validating;
+		}
+
+		SAXParser acquire() throws ParserConfigurationException, SAXException {
+			SAXParser parser = null;
+			boolean log;
+			synchronized (this) {
+				if (!idle.isEmpty())
+					parser = (SAXParser) idle.removeLast();
+				else {
+					if (factory == null) {
+						factory = SAXParserFactory.newInstance();
+						factory.setValidating(validating);
+						factory.setNamespaceAware(true);
+						/*
+						 * Causes errors in IBM JDK try { factory.setAttribute(JAXP_SCHEMA_LANGUAGE,
+						 * W3C_XML_SCHEMA); } catch (IllegalArgumentException x) { }
+						 */
+					}
+					parser = factory.newSAXParser();
+				}
+				// only warn about missing features once
+				log = !warned;
+				warned = true;
+			}
+			configure(parser.getXMLReader(), log);
+			return parser;
+		}
+
+		void release(SAXParser parser) {
+			try {
+				// let go of the handlers, which hold on to the resource
+				XMLReader reader = parser.getXMLReader();
+				reader.setContentHandler(EMPTY_HANDLER);
+				reader.setErrorHandler(EMPTY_HANDLER);
+				reader.setEntityResolver(EMPTY_HANDLER);
+				parser.reset();
+			} catch (SAXException e) {
+				// the parser can not be reused
+				return;
+			} catch (UnsupportedOperationException e) {
+				// the parser can not be reused
+				return;
+			}
+			synchronized (this) {
+				if (idle.size() < MAX_IDLE_PARSERS)
+					idle.addLast(parser);
+			}
+		}
+
+		private void configure(XMLReader reader, boolean log) throws SAXException {
+			try {
+				reader.setFeature("http://xml.org/sax/features/validation", validating); //$NON-NLS-1$
+			} catch (SAXNotRecognizedException snre) {
+                // ignore exception
+			}
+			try {
+				reader.setFeature("http://xml.org/sax/features/namespace-prefixes", true); //$NON-NLS-1$
+			} catch (SAXNotRecognizedException snre) {
+                // ignore exception
+            }
+			try {
+				reader.setFeature("http://apache.org/xml/features/validation/schema", validating); //$NON-NLS-1$
+			} catch (SAXNotRecognizedException e) {
+				reader.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
+				if (log)
+					EcoreUtilitiesPlugin.logWarning("Warning: Parser does not support \"http://apache.org/xml/features/validation/schema\". Validation will be disabled."); //$NON-NLS-1$
+			}
+			try {
+				reader.setFeature("http://apache.org/xml/features/allow-java-encodings", true); //$NON-NLS-1$
+			} catch (SAXNotRecognizedException e) {
+				if (log)
+					EcoreUtilitiesPlugin.logWarning("Warning: Parser does not support \"http://apache.org/xml/features/allow-java-encodings\"."); //$NON-NLS-1$
+			}
+		}
+	}
+}
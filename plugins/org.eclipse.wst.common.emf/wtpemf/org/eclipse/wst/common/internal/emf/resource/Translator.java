@@ -100,6 +100,12 @@ public class Translator {
 	 */
 	protected Boolean isDependencyParent;
 	protected EStructuralFeature dependencyFeature;
+
+	private static final int MAX_DISPATCH_TABLES = 4;
+	private static final int MAX_DISPATCH_MISSES = 16;
+	private static final TranslatorDispatch[] NO_DISPATCH_TABLES = new TranslatorDispatch[0];
+	private volatile TranslatorDispatch[] dispatchTables = NO_DISPATCH_TABLES;
+	private volatile int dispatchMisses;
 	protected static EcorePackage ECORE_PACKAGE = EcorePackage.eINSTANCE;
 
 	// Use this identifier for the DOMName when the attribute
@@ -129,7 +135,10 @@ public class Translator {
 		Translator result = null;
 		Translator[] maps = getChildren(target, versionID);
 
-		if (maps != null) {
+		TranslatorDispatch table = getDispatch(maps);
+		if (table != null)
+			result = table.findChild(tagName, TranslatorDispatch.ANY);
+		else if (maps != null) {
 			for (int i = 0; i < maps.length; i++) {
 				Translator map = maps[i];
 				if (map.isMapFor(tagName)) {
@@ -147,6 +156,34 @@ public class Translator {
 		return result;
 	}
 
+	/*
+	 * Answer the dispatch table for the children, or null to scan them. The tables of the last few
+	 * arrays are kept, since the children can differ by version; translators that answer new arrays
+	 * of children too often are always scanned.
+	 */
+	private TranslatorDispatch getDispatch(Translator[] maps) {
+		TranslatorDispatch[] tables = dispatchTables;
+		for (int i = 0; i < tables.length; i++) {
+			if (tables[i].children == maps)
+				return tables[i];
+		}
+		if (dispatchMisses >= MAX_DISPATCH_MISSES)
+			return null;
+		TranslatorDispatch table = TranslatorDispatch.get(maps);
+		if (table != null) {
+			synchronized (this) {
+				dispatchMisses++;
+				tables = dispatchTables;
+				int length = Math.min(tables.length + 1, MAX_DISPATCH_TABLES);
+				TranslatorDispatch[] newTables = new TranslatorDispatch[length];
+				newTables[0] = table;
+				System.arraycopy(tables, 0, newTables, 1, length - 1);
+				dispatchTables = newTables;
+			}
+		}
+		return table;
+	}
+
 	/**
 	 * Utility method to string together arrays of children
 	 */
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.internal.emf.resource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dispatch table over an array of child translators, which finds the child that maps a DOM
+ * name or an EMF feature with hash lookups instead of calling isMapFor on each child in turn.
+ *
+ * The answer is always the one that the linear scan would give: the first child in the array that
+ * maps the name or feature. Children whose class overrides the matching methods of Translator
+ * cannot be hashed; they are kept in order and asked with isMapFor, but only those that come
+ * before the hashed candidate. Translators are assumed not to change their DOM names, DOM path or
+ * feature once they are in use.
+ */
+class TranslatorDispatch {
+
+	/**
+	 * Arrays with fewer children are scanned; building a table for them is not worth it.
+	 */
+	private static final int MIN_CHILDREN = 8;
+
+	static final int ANY = 0;
+	static final int ELEMENT = 1;
+	static final int ATTRIBUTE = 2;
+
+	private static final int NONE = Integer.MAX_VALUE;
+	private static final int[] NO_INDEXES = new int[0];
+
+	/**
+	 * The most tables that are shared between arrays with the same children.
+	 */
+	private static final int MAX_SHARED = 512;
+
+	private static final Map shared = Collections.synchronizedMap(new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_SHARED;
+		}
+	});
+
+	private static final Map nameHashable = new ConcurrentHashMap();
+	private static final Map featureHashable = new ConcurrentHashMap();
+
+	/** The children that the table was built from */
+	final Translator[] children;
+
+	/* DOM name -> Integer index of the first hashable child, for elements and for attributes */
+	private final Map elementNames;
+	private final Map attributeNames;
+	/* EStructuralFeature -> Integer index of the first hashable child */
+	private final Map features;
+	/* The indexes of the children that must be asked, in order */
+	private final int[] unhashedByName;
+	private final int[] unhashedByFeature;
+
+	/**
+	 * Answer a table for the children, or null if they are too few to need one. Arrays that hold
+	 * the same translators in the same order share a table.
+	 */
+	static TranslatorDispatch get(Translator[] children) {
+		if (children == null || children.length < MIN_CHILDREN)
+			return null;
+		Key key = new Key(children);
+		TranslatorDispatch result = (TranslatorDispatch) shared.get(key);
+		if (result == null) {
+			result = new TranslatorDispatch(children);
+			shared.put(key, result);
+		} else if (result.children != children)
+			result = new TranslatorDispatch(result, children);
+		return result;
+	}
+
+	private TranslatorDispatch(TranslatorDispatch other, Translator[] children) {
+		// the same translators in another array
+		this.children = children;
+		elementNames = other.elementNames;
+		attributeNames = other.attributeNames;
+		features = other.features;
+		unhashedByName = other.unhashedByName;
+		unhashedByFeature = other.unhashedByFeature;
+	}
+
+	private TranslatorDispatch(Translator[] children) {
+		this.children = children;
+		elementNames = new HashMap();
+		attributeNames = new HashMap();
+		features = new IdentityHashMap();
+		int[] byName = new int[children.length];
+		int[] byFeature = new int[children.length];
+		int numByName = 0;
+		int numByFeature = 0;
+		for (int i = 0; i < children.length; i++) {
+			Translator child = children[i];
+			if (child == null)
+				continue;
+			if (isNameHashable(child.getClass())) {
+				Map names = child.isDOMAttribute() ? attributeNames : elementNames;
+				putFirst(names, child.getDOMPath(), i);
+				String[] domNames = child.getDOMNames();
+				for (int j = 0; j < domNames.length; j++)
+					putFirst(names, domNames[j], i);
+			} else
+				byName[numByName++] = i;
+			if (isFeatureHashable(child.getClass())) {
+				if (child.feature != null)
+					putFirst(features, child.feature, i);
+			} else
+				byFeature[numByFeature++] = i;
+		}
+		unhashedByName = trim(byName, numByName);
+		unhashedByFeature = trim(byFeature, numByFeature);
+	}
+
+	/**
+	 * Answer the first child that maps the DOM name, or null.
+	 *
+	 * @param kind
+	 *            ANY, or ELEMENT or ATTRIBUTE to only consider the children that map elements or
+	 *            attributes
+	 */
+	Translator findChild(String domName, int kind) {
+		int best = NONE;
+		if (kind != ATTRIBUTE)
+			best = get(elementNames, domName);
+		if (kind != ELEMENT)
+			best = Math.min(best, get(attributeNames, domName));
+		for (int i = 0; i < unhashedByName.length && unhashedByName[i] < best; i++) {
+			Translator child = children[unhashedByName[i]];
+			if (child.isMapFor(domName) && (kind == ANY || (kind == ATTRIBUTE) == child.isDOMAttribute()))
+				return child;
+		}
+		return best == NONE ? null : children[best];
+	}
+
+	/**
+	 * Answer the first child that maps the feature of a notification, or null.
+	 */
+	Translator findChild(Object feature, Object oldValue, Object newValue) {
+		int best = get(features, feature);
+		for (int i = 0; i < unhashedByFeature.length && unhashedByFeature[i] < best; i++) {
+			Translator child = children[unhashedByFeature[i]];
+			if (child.isMapFor(feature, oldValue, newValue))
+				return child;
+		}
+		return best == NONE ? null : children[best];
+	}
+
+	private static int get(Map map, Object key) {
+		Integer index = (Integer) map.get(key);
+		return index == null ? NONE : index.intValue();
+	}
+
+	private static void putFirst(Map map, Object key, int index) {
+		if (key != null && !map.containsKey(key))
+			map.put(key, Integer.valueOf(index));
+	}
+
+	private static int[] trim(int[] indexes, int length) {
+		if (length == 0)
+			return NO_INDEXES;
+		int[] result = new int[length];
+		System.arraycopy(indexes, 0, result, 0, length);
+		return result;
+	}
+
+	/*
+	 * A class can be hashed by name if it matches names the way Translator does.
+	 */
+	private static boolean isNameHashable(Class c) {
+		Boolean result = (Boolean) nameHashable.get(c);
+		if (result == null) {
+			result = Boolean.valueOf(isDeclaredByTranslator(c, "isMapFor", new Class[]{String.class}) //$NON-NLS-1$
+						&& isDeclaredByTranslator(c, "getDOMPath", new Class[0]) //$NON-NLS-1$
+						&& isDeclaredByTranslator(c, "getDOMNames", new Class[0]) //$NON-NLS-1$
+						&& isDeclaredByTranslator(c, "isDOMAttribute", new Class[0])); //$NON-NLS-1$
+			nameHashable.put(c, result);
+		}
+		return result.booleanValue();
+	}
+
+	/*
+	 * A class can be hashed by feature if it matches features the way Translator does.
+	 */
+	private static boolean isFeatureHashable(Class c) {
+		Boolean result = (Boolean) featureHashable.get(c);
+		if (result == null) {
+			result = Boolean.valueOf(isDeclaredByTranslator(c, "isMapFor", new Class[]{Object.class, Object.class, Object.class})); //$NON-NLS-1$
+			featureHashable.put(c, result);
+		}
+		return result.booleanValue();
+	}
+
+	private static boolean isDeclaredByTranslator(Class c, String methodName, Class[] parameterTypes) {
+		try {
+			return c.getMethod(methodName, parameterTypes).getDeclaringClass() == Translator.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		} catch (SecurityException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * The translators of an array, compared by identity and in order.
+	 */
+	private static class Key {
+		private final Translator[] children;
+		private final int hash;
+
+		Key(Translator[] children) {
+			this.children = children;
+			int h = 1;
+			for (int i = 0; i < children.length; i++)
+				h = 31 * h + System.identityHashCode(children[i]);
+			hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Translator[] others = ((Key) obj).children;
+			if (others.length != children.length)
+				return false;
+			for (int i = 0; i < children.length; i++) {
+				if (others[i] != children[i])
+					return false;
+			}
+			return true;
+		}
+	}
+}
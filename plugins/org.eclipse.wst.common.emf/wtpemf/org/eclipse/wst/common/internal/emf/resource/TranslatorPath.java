@@ -39,6 +39,8 @@ public class TranslatorPath {
 				} else if (curAttr == Translator.ROOT_FEATURE) {
 					cur = ((TranslatorResource) startObject.eResource()).getRootObject();
 				} else {
+					// the objects may be in a collection that was not translated when it was loaded
+					DeferredContentAdapter.resolve((EObject) cur, curAttr);
 					cur = ((EObject) cur).eGet(curAttr);
 				}
 				if (curMap.isMultiValued()) {
@@ -344,6 +344,30 @@ public abstract class TranslatorResourceImpl extends ReferencedXMIResourceImpl i
 		eObject.eNotify(new ENotificationImpl((InternalEObject) eObject, Notification.SET, ID_FEATURE, oldId, id));
 	}
 
+	/**
+	 * Overridden to look into the collections that the renderer deferred when the resource was
+	 * loaded: their objects have no IDs and no positions until they are translated. A path is only
+	 * followed once everything has been translated, and an ID that is not found is looked up again
+	 * after everything has been translated.
+	 * 
+	 * @see org.eclipse.emf.ecore.resource.Resource#getEObject(String)
+	 */
+	@Override
+	public EObject getEObject(String uriFragment) {
+		if (!(renderer instanceof EMF2StAXRenderer) || !((EMF2StAXRenderer) renderer).hasDeferredContent())
+			return super.getEObject(uriFragment);
+		if (uriFragment.startsWith("/")) { //$NON-NLS-1$
+			((EMF2StAXRenderer) renderer).resolveDeferredContent();
+			return super.getEObject(uriFragment);
+		}
+		EObject result = super.getEObject(uriFragment);
+		if (result == null) {
+			((EMF2StAXRenderer) renderer).resolveDeferredContent();
+			result = super.getEObject(uriFragment);
+		}
+		return result;
+	}
+
 	/**
 	 * This method indicates whether or not the extent associated with the
 	 * resource has been modified since the last time it was loaded or saved.
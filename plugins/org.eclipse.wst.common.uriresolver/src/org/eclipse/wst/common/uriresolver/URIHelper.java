@@ -15,8 +15,8 @@ package org.eclipse.wst.common.uriresolver;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
+
+import org.eclipse.wst.common.uriresolver.internal.URLConnector;
 
 /**
  * @since 1.2
@@ -44,49 +44,37 @@ public class URIHelper {
 	 * 
 	 */
 	public static InputStream getInputStream(String url, int timeout) {
-		final InputStream[] result = new InputStream[1];
+		int wait = timeout < 1 ? DEFAULT_TIMEOUT : timeout;
+		URLConnector.Request request = null;
 		try {
-			final URLConnection connection = new URL(url).openConnection();
-			final Thread streamOpener = new Thread() {
-				public void run() {
-					try {
-						result[0] = connection.getInputStream();
-					}
-					catch (IOException e) {
-					}
-					finally {
-						/*
-						 * Main thread moved on, cleanup.
-						 */
-						if (isInterrupted() && result[0] != null) {
-							try {
-								result[0].close();
-							}
-							catch (IOException e) {
-							}
-						}
-					}
-				}
-			};
-			streamOpener.start();
+			request = URLConnector.getInstance().open(url, wait);
+			InputStream result = request.get(wait);
+			/*
+			 * allow some time to open the inputstream, if it has not been
+			 * opened by then it is closed when it is
+			 */
+			if (result == null && !request.cancel())
+				result = request.get(wait);
+			return result;
+		}
+		catch (InterruptedException e) {
+			InputStream result = null;
 			try {
-				streamOpener.join(timeout < 1 ? DEFAULT_TIMEOUT: timeout);
-				/*
-				 * allow some time to open the inputstream
-				 */
-				if (streamOpener.isAlive())
-					streamOpener.interrupt();
+				if (request.cancel())
+					result = URLConnector.getInstance().createConnection(url, wait).getInputStream();//bug407211
+				else
+					result = request.get(wait);
+			}
+			catch (IOException ioe) {
 			}
-			catch (InterruptedException e) {
-				if (result[0] == null){
-					result[0] = connection.getInputStream();//bug407211
-				}
-				Thread.currentThread().interrupt();
+			catch (InterruptedException ie) {
 			}
+			Thread.currentThread().interrupt();
+			return result;
 		}
 		catch (IOException e) {
 		}
-		return result[0];
+		return null;
 	}
 
 }
@@ -11,8 +11,6 @@
  *******************************************************************************/
 package org.eclipse.wst.common.uriresolver.internal;
 
-import java.util.Iterator;
-import java.util.List;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -49,23 +47,50 @@ public class ExtensibleURIResolver implements URIResolver
 
 	public String resolve(String baseLocation, String publicId, String systemId)
 	{
-		String result = systemId;
+		// a subclass may compute the file or normalize differently, so only the
+		// results of this class are remembered
+		//
+		boolean remember = getClass() == ExtensibleURIResolver.class;
+		URIResolutionCache cache = URIResolutionCache.getInstance();
+		URIResolutionCache.Key key = null;
+		if (remember)
+		{
+			key = new URIResolutionCache.Key(baseLocation, publicId, systemId);
+			Object cached = cache.getResult(key);
+			if (cached != URIResolutionCache.NOT_CACHED)
+			{
+				return (String) cached;
+			}
+		}
+		int generation = cache.getGeneration();
 
 		// compute the project that holds the resource
 		//
-    IFile file = computeFile(baseLocation);
+		IFile file = computeFile(baseLocation);
 		IProject project =  file != null ? file.getProject() : null;
 
-		URIResolverExtensionRegistry resolverRegistry = URIResolverExtensionRegistry.getIntance();
-		List list = resolverRegistry.getExtensionDescriptors(project);
+		URIResolutionCache.Chain chain = cache.getChain(project);
+		String result = resolve(file, chain, baseLocation, publicId, systemId);
+
+		// the results of resolvers that can not tell when their answers change
+		// are not remembered
+		//
+		if (remember && chain.cacheable)
+		{
+			cache.putResult(key, result, generation);
+		}
+		return result;
+	}
+
+	private String resolve(IFile file, URIResolutionCache.Chain chain, String baseLocation, String publicId, String systemId)
+	{
+		String result = systemId;
 
-		// get the list of applicable pre-normalized resolvers from the
-		// extension registry
+		// run the applicable pre-normalized resolvers
 		//
-		for (Iterator i = resolverRegistry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_PRENORMALIZATION).iterator(); i.hasNext();)
+		for (int i = 0; i < chain.prenormalization.length; i++)
 		{
-			URIResolverExtension resolver = (URIResolverExtension) i.next();
-			String tempresult = resolver.resolve(file, baseLocation, publicId, result);
+			String tempresult = chain.prenormalization[i].resolve(file, baseLocation, publicId, result);
 			if(tempresult != null)
 			{
 			  result = tempresult;
@@ -76,13 +101,11 @@ public class ExtensibleURIResolver implements URIResolver
 		//
 		result = normalize(baseLocation, result);
 
-		// get the list of applicable post-normalized resolvers from the
-		// extension registry
-		//		
-		for (Iterator i = resolverRegistry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_POSTNORMALIZATION).iterator(); i.hasNext();)
-		{ 
-			URIResolverExtension resolver = (URIResolverExtension) i.next();
-			String tempresult = resolver.resolve(file, baseLocation, publicId, result);
+		// run the applicable post-normalized resolvers
+		//
+		for (int i = 0; i < chain.postnormalization.length; i++)
+		{
+			String tempresult = chain.postnormalization[i].resolve(file, baseLocation, publicId, result);
 			if(tempresult != null)
 			{
 			  result = tempresult;
@@ -95,25 +118,22 @@ public class ExtensibleURIResolver implements URIResolver
     public String resolvePhysicalLocation(String baseLocation, String publicId, String logicalLocation)
     {
       String result = logicalLocation;
-      URIResolverExtensionRegistry resolverRegistry = URIResolverExtensionRegistry.getIntance();
       IFile file = computeFile(baseLocation);
       
       // compute the project that holds the resource
       //      
       IProject project =  file != null ? file.getProject() : null;            
-      List list = resolverRegistry.getExtensionDescriptors(project);      
-      for (Iterator i = resolverRegistry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_PHYSICAL).iterator(); i.hasNext(); )
-      {        
-        // get the list of applicable physical resolvers from the extension registry
-        //
-        while (i.hasNext())
+
+      // run the applicable physical resolvers, the results are not remembered
+      // since they depend on the state of the internet cache
+      //
+      URIResolverExtension[] resolvers = URIResolutionCache.getInstance().getChain(project).physical;
+      for (int i = 0; i < resolvers.length; i++)
+      {
+        String tempresult = resolvers[i].resolve(file, baseLocation, publicId, result);
+        if(tempresult != null)
         {
-          URIResolverExtension resolver = (URIResolverExtension) i.next();
-          String tempresult = resolver.resolve(file, baseLocation, publicId, result);
-          if(tempresult != null)
-          {
-            result = tempresult;
-          }
+          result = tempresult;
         }
       }        
       return result;
@@ -15,10 +15,8 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -146,7 +144,11 @@ public final class URI
   // The fragment of any URI is removed before caching it here, to minimize
   // the size of the cache in the usual case where most URIs only differ by
   // the fragment.
-  private static final Map uriCache = Collections.synchronizedMap(new HashMap());
+  // The cache is bounded, and its values may be weak; see URICache.
+  private static final URICache uriCache =
+    new URICache
+      (Integer.getInteger("org.eclipse.wst.common.uriresolver.uriCacheSize", 4096).intValue(),
+       Boolean.getBoolean("org.eclipse.wst.common.uriresolver.uriCacheWeak"));
 
   // The lower-cased schemes that will be used to identify archive URIs.
   private static final Set archiveSchemes;
@@ -534,7 +536,7 @@ public final class URI
     String base = i == -1 ? uri : uri.substring(0, i);
     String fragment = i == -1 ? null : uri.substring(i + 1);
 
-    URI result = (URI)uriCache.get(base);
+    URI result = uriCache.get(base);
 
     if (result == null)
     {
@@ -549,6 +551,15 @@ public final class URI
     return result;
   }
 
+  /**
+   * Returns the cache of URIs created from strings, which can be used to
+   * look at its statistics.
+   */
+  public static URICache getURICache()
+  {
+    return uriCache;
+  }
+
   // String-parsing implementation.
   private static URI parseIntoURI(String uri)
   {
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.internal;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of parsed {@link URI}s, keyed by the strings from which
+ * they were created.
+ * <p>
+ * The cache is split into stripes, each with its own lock, so that threads
+ * creating different URIs rarely wait for each other. Each stripe holds at
+ * most its share of the capacity and forgets its least recently used URI
+ * when it is full. When the values are weak, a URI that is no longer used
+ * anywhere else can also be garbage collected, and its entry is removed the
+ * next time that its stripe is used.
+ * </p>
+ * <p>
+ * The capacity and weak values can be set with the system properties
+ * <code>org.eclipse.wst.common.uriresolver.uriCacheSize</code> and
+ * <code>org.eclipse.wst.common.uriresolver.uriCacheWeak</code>.
+ * </p>
+ */
+public final class URICache
+{
+  private static final int STRIPES = 16;
+
+  private final Stripe[] stripes;
+  private final int capacity;
+  private final boolean weak;
+
+  /**
+   * Create a cache.
+   *
+   * @param capacity the most URIs that are remembered
+   * @param weak true if the URIs may be garbage collected while they are in the cache
+   */
+  public URICache(int capacity, boolean weak)
+  {
+    this.capacity = Math.max(capacity, STRIPES);
+    this.weak = weak;
+    stripes = new Stripe[STRIPES];
+    for (int i = 0; i < STRIPES; ++i)
+    {
+      stripes[i] = new Stripe(this.capacity / STRIPES);
+    }
+  }
+
+  /**
+   * Returns the URI that was created from the string, or null if it is not
+   * in the cache.
+   */
+  public URI get(String key)
+  {
+    return stripeFor(key).get(key);
+  }
+
+  /**
+   * Remembers the URI that was created from the string.
+   */
+  public void put(String key, URI uri)
+  {
+    stripeFor(key).put(key, uri, weak);
+  }
+
+  /**
+   * Forgets all of the URIs, and resets the statistics.
+   */
+  public void clear()
+  {
+    for (int i = 0; i < STRIPES; ++i)
+    {
+      stripes[i].clear();
+    }
+  }
+
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  public boolean isWeak()
+  {
+    return weak;
+  }
+
+  /**
+   * Returns the number of URIs in the cache. With weak values, this includes
+   * URIs that have been garbage collected but not yet removed.
+   */
+  public int getSize()
+  {
+    int size = 0;
+    for (int i = 0; i < STRIPES; ++i)
+    {
+      size += stripes[i].size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of lookups that found a URI.
+   */
+  public long getHits()
+  {
+    long hits = 0;
+    for (int i = 0; i < STRIPES; ++i)
+    {
+      hits += stripes[i].getHits();
+    }
+    return hits;
+  }
+
+  /**
+   * Returns the number of lookups that did not find a URI.
+   */
+  public long getMisses()
+  {
+    long misses = 0;
+    for (int i = 0; i < STRIPES; ++i)
+    {
+      misses += stripes[i].getMisses();
+    }
+    return misses;
+  }
+
+  public String toString()
+  {
+    return "URICache(size=" + getSize() + ", capacity=" + capacity + ", weak=" + weak +  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      ", hits=" + getHits() + ", misses=" + getMisses() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+
+  private Stripe stripeFor(String key)
+  {
+    // Spread the bits of the hash code, so that keys that only differ at
+    // the end still land in different stripes.
+    int h = key.hashCode();
+    h ^= (h >>> 20) ^ (h >>> 12);
+    h ^= (h >>> 7) ^ (h >>> 4);
+    return stripes[h & (STRIPES - 1)];
+  }
+
+  /**
+   * A part of the cache, guarded by itself.
+   */
+  private static final class Stripe
+  {
+    private final Map map;
+    private final ReferenceQueue queue = new ReferenceQueue();
+    private long hits;
+    private long misses;
+
+    Stripe(final int capacity)
+    {
+      map = new LinkedHashMap(16, 0.75f, true)
+      {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry eldest)
+        {
+          return size() > capacity;
+        }
+      };
+    }
+
+    synchronized URI get(String key)
+    {
+      expunge();
+      Object value = map.get(key);
+      URI result = value instanceof WeakValue ? (URI)((WeakValue)value).get() : (URI)value;
+      if (result == null)
+      {
+        ++misses;
+      }
+      else
+      {
+        ++hits;
+      }
+      return result;
+    }
+
+    synchronized void put(String key, URI uri, boolean weak)
+    {
+      expunge();
+      map.put(key, weak ? (Object)new WeakValue(key, uri, queue) : uri);
+    }
+
+    synchronized void clear()
+    {
+      map.clear();
+      while (queue.poll() != null)
+      {
+        // Discard the references of the forgotten URIs.
+      }
+      hits = 0;
+      misses = 0;
+    }
+
+    synchronized int size()
+    {
+      return map.size();
+    }
+
+    synchronized long getHits()
+    {
+      return hits;
+    }
+
+    synchronized long getMisses()
+    {
+      return misses;
+    }
+
+    // Removes the entries whose URIs have been garbage collected, unless
+    // the entry has been replaced since.
+    private void expunge()
+    {
+      WeakValue value;
+      while ((value = (WeakValue)queue.poll()) != null)
+      {
+        if (map.get(value.key) == value)
+        {
+          map.remove(value.key);
+        }
+      }
+    }
+  }
+
+  private static final class WeakValue extends WeakReference
+  {
+    final String key;
+
+    WeakValue(String key, URI uri, ReferenceQueue queue)
+    {
+      super(uri, queue);
+      this.key = key;
+    }
+  }
+}
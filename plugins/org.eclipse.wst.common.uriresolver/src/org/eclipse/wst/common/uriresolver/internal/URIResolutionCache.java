@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.internal;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IRegistryChangeEvent;
+import org.eclipse.core.runtime.IRegistryChangeListener;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.wst.common.uriresolver.internal.provisional.CacheableURIResolverExtension;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverExtension;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverPlugin;
+
+/**
+ * Remembers the results of ExtensibleURIResolver.resolve, and the chain of
+ * extension resolvers that applies to each project, so that resolving the
+ * same reference again does not have to look up the file, check the natures
+ * of the project, and run the resolvers and the normalization again.
+ * <p>
+ * The project of a resolution is the project that holds the base location,
+ * so the results are keyed by the base location, public id and system id.
+ * Everything is forgotten when the workspace changes (other than changes to
+ * markers only), when the resolver extensions change, and when
+ * {@link URIResolverPlugin#resolutionsChanged()} is called. The chains are
+ * also forgotten when a project is added, removed, opened, closed, or has its
+ * description (and so its natures) changed.
+ * </p>
+ * <p>
+ * Results are only remembered for chains whose prenormalization and
+ * postnormalization resolvers all implement
+ * {@link CacheableURIResolverExtension}, since other resolvers may depend on
+ * something outside of the workspace, such as a catalog, and have no way to
+ * say when it changes.
+ * </p>
+ */
+public class URIResolutionCache implements IResourceChangeListener, IRegistryChangeListener
+{
+	/**
+	 * Returned by {@link #getResult(Key)} when the result is not known. A
+	 * null result is a valid result.
+	 */
+	public static final Object NOT_CACHED = new Object();
+
+	/**
+	 * The largest number of results that are remembered.
+	 */
+	private static final int MAX_RESULTS = 1000;
+
+	private static URIResolutionCache instance;
+
+	/** The results, keyed by Key, least recently used first. Guarded by this. */
+	private final Map results = new LinkedHashMap(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry eldest)
+		{
+			return size() > MAX_RESULTS;
+		}
+	};
+
+	/** The chains of resolvers, keyed by project (null for no project). Guarded by this. */
+	private final Map chains = new HashMap();
+
+	/**
+	 * Incremented each time the cache is cleared, so that a result that was
+	 * computed before the cache was cleared is not remembered. Guarded by this.
+	 */
+	private int generation = 0;
+
+	/**
+	 * Get the one and only cache, creating it, and starting to listen for
+	 * changes, if needed.
+	 */
+	public synchronized static URIResolutionCache getInstance()
+	{
+		if (instance == null)
+		{
+			URIResolutionCache cache = new URIResolutionCache();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(cache, IResourceChangeEvent.POST_CHANGE);
+			Platform.getExtensionRegistry().addRegistryChangeListener(cache, getNamespace());
+			instance = cache;
+		}
+		return instance;
+	}
+
+	/**
+	 * Stop listening for changes, and discard the cache.
+	 */
+	public synchronized static void shutdown()
+	{
+		if (instance != null)
+		{
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(instance);
+			Platform.getExtensionRegistry().removeRegistryChangeListener(instance);
+			instance = null;
+		}
+	}
+
+	/**
+	 * Clear the cache, if there is one.
+	 */
+	public synchronized static void clearInstance()
+	{
+		if (instance != null)
+			instance.clear();
+	}
+
+	private URIResolutionCache()
+	{
+	}
+
+	/**
+	 * Forget all of the results and chains.
+	 */
+	public synchronized void clear()
+	{
+		results.clear();
+		chains.clear();
+		generation++;
+	}
+
+	public synchronized int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * Answer the result that was remembered for the key, or NOT_CACHED.
+	 */
+	public synchronized Object getResult(Key key)
+	{
+		Object result = results.get(key);
+		if (result == null && !results.containsKey(key))
+			return NOT_CACHED;
+		return result;
+	}
+
+	/**
+	 * Remember a result, unless the cache has been cleared since the
+	 * generation that the result was computed in.
+	 */
+	public synchronized void putResult(Key key, String result, int resultGeneration)
+	{
+		if (resultGeneration == generation)
+			results.put(key, result);
+	}
+
+	/**
+	 * Answer the chain of resolvers that apply to the project.
+	 *
+	 * @param project the project, or null if the resource is not in the workspace
+	 */
+	public Chain getChain(IProject project)
+	{
+		int chainGeneration;
+		synchronized (this)
+		{
+			Chain chain = (Chain) chains.get(project);
+			if (chain != null)
+				return chain;
+			chainGeneration = generation;
+		}
+
+		// the resolvers are created outside of the lock, since creating them
+		// may start their plug-ins
+		URIResolverExtensionRegistry registry = URIResolverExtensionRegistry.getIntance();
+		List list = registry.getExtensionDescriptors(project);
+		Chain chain = new Chain(
+				toArray(registry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_PRENORMALIZATION)),
+				toArray(registry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_POSTNORMALIZATION)),
+				toArray(registry.getMatchingURIResolvers(list, URIResolverExtensionRegistry.STAGE_PHYSICAL)));
+		synchronized (this)
+		{
+			if (chainGeneration == generation)
+				chains.put(project, chain);
+		}
+		return chain;
+	}
+
+	public void resourceChanged(IResourceChangeEvent event)
+	{
+		IResourceDelta delta = event.getDelta();
+		if (delta == null || !isSignificant(delta))
+			return;
+		clear();
+	}
+
+	public void registryChanged(IRegistryChangeEvent event)
+	{
+		if (event.getExtensionDeltas(getNamespace(), URIResolverExtensionRegistryReader.EXTENSION_POINT_ID).length == 0)
+			return;
+		URIResolverExtensionRegistry.reset();
+		clear();
+	}
+
+	/**
+	 * Answer true if the delta has changes other than to markers or
+	 * synchronization information. Changes to project descriptions and
+	 * project open states are significant, so they are covered too.
+	 */
+	private static boolean isSignificant(IResourceDelta delta)
+	{
+		if (delta.getKind() != IResourceDelta.CHANGED)
+			return true;
+		if ((delta.getFlags() & ~(IResourceDelta.MARKERS | IResourceDelta.SYNC)) != 0)
+			return true;
+		IResourceDelta[] children = delta.getAffectedChildren();
+		for (int i = 0; i < children.length; i++)
+		{
+			if (isSignificant(children[i]))
+				return true;
+		}
+		return false;
+	}
+
+	private static URIResolverExtension[] toArray(List resolvers)
+	{
+		return (URIResolverExtension[]) resolvers.toArray(new URIResolverExtension[resolvers.size()]);
+	}
+
+	private static String getNamespace()
+	{
+		return URIResolverPlugin.getInstance().getBundle().getSymbolicName();
+	}
+
+	/**
+	 * The extension resolvers that apply to a project, for each stage, in
+	 * priority order.
+	 */
+	public static class Chain
+	{
+		public final URIResolverExtension[] prenormalization;
+		public final URIResolverExtension[] postnormalization;
+		public final URIResolverExtension[] physical;
+
+		/**
+		 * True if the results of the prenormalization and postnormalization
+		 * resolvers may be remembered.
+		 */
+		public final boolean cacheable;
+
+		Chain(URIResolverExtension[] prenormalization, URIResolverExtension[] postnormalization, URIResolverExtension[] physical)
+		{
+			this.prenormalization = prenormalization;
+			this.postnormalization = postnormalization;
+			this.physical = physical;
+			this.cacheable = isCacheable(prenormalization) && isCacheable(postnormalization);
+		}
+
+		private static boolean isCacheable(URIResolverExtension[] resolvers)
+		{
+			for (int i = 0; i < resolvers.length; i++)
+			{
+				if (!(resolvers[i] instanceof CacheableURIResolverExtension))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The arguments of a resolution.
+	 */
+	public static class Key
+	{
+		private final String baseLocation;
+		private final String publicId;
+		private final String systemId;
+		private final int hashCode;
+
+		public Key(String baseLocation, String publicId, String systemId)
+		{
+			this.baseLocation = baseLocation;
+			this.publicId = publicId;
+			this.systemId = systemId;
+			this.hashCode = (hashCode(baseLocation) * 31 + hashCode(publicId)) * 31 + hashCode(systemId);
+		}
+
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		public boolean equals(Object obj)
+		{
+			if (obj == this)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return hashCode == other.hashCode && equals(baseLocation, other.baseLocation) && equals(publicId, other.publicId) && equals(systemId, other.systemId);
+		}
+
+		private static int hashCode(String s)
+		{
+			return s != null ? s.hashCode() : 0;
+		}
+
+		private static boolean equals(String a, String b)
+		{
+			return a != null ? a.equals(b) : b == null;
+		}
+	}
+}
@@ -64,6 +64,15 @@ public class URIResolverExtensionRegistry
 		return instance;
 	}
 
+	/**
+	 * Discard the registry, so that the extension resolvers are read again the
+	 * next time that the registry is used.
+	 */
+	public synchronized static void reset()
+	{
+		instance = null;
+	}
+
 	/**
 	 * Add an extension resolver to the registry.
 	 * 
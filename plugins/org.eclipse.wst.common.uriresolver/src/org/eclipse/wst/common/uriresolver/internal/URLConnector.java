@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.LinkedList;
+
+/**
+ * Opens input streams on URLs using a small, shared pool of threads, so that
+ * a caller can give up on a slow server without a thread being created for
+ * every stream that is opened.
+ * <p>
+ * When the Java runtime supports them, the connect and read timeouts are also
+ * set on the connection itself, so that a thread of the pool is not held for
+ * longer than the timeout by a server that does not answer.
+ * </p>
+ */
+public class URLConnector
+{
+	/**
+	 * The largest number of streams that are opened at the same time.
+	 */
+	private static final int MAX_THREADS = 8;
+
+	/**
+	 * A thread of the pool stops after it has been idle for this many milliseconds.
+	 */
+	private static final long IDLE_TIME = 30000;
+
+	private static final URLConnector instance = new URLConnector();
+
+	private static Method setConnectTimeout;
+	private static Method setReadTimeout;
+
+	static
+	{
+		// These methods are only available on Java 5 and later.
+		try
+		{
+			setConnectTimeout = URLConnection.class.getMethod("setConnectTimeout", new Class[]{int.class}); //$NON-NLS-1$
+			setReadTimeout = URLConnection.class.getMethod("setReadTimeout", new Class[]{int.class}); //$NON-NLS-1$
+		}
+		catch (NoSuchMethodException e)
+		{
+			setConnectTimeout = null;
+			setReadTimeout = null;
+		}
+	}
+
+	/** The requests that are waiting for a thread. Guarded by itself. */
+	private final LinkedList queue = new LinkedList();
+	private int threads = 0;
+	private int idleThreads = 0;
+
+	public static URLConnector getInstance()
+	{
+		return instance;
+	}
+
+	private URLConnector()
+	{
+	}
+
+	/**
+	 * Start opening an input stream on the url.
+	 *
+	 * @param url
+	 *            the url to open
+	 * @param timeout
+	 *            the connect and read timeout in milliseconds to set on the
+	 *            connection, or zero or lower to leave the connection's
+	 *            defaults
+	 * @return the request, which will hold the stream once it is open
+	 * @throws IOException
+	 *             if the url is not valid, or the connection cannot be created
+	 */
+	public Request open(String url, int timeout) throws IOException
+	{
+		Request request = new Request(createConnection(url, timeout));
+		synchronized (queue)
+		{
+			queue.addLast(request);
+			if (idleThreads > 0)
+			{
+				queue.notify();
+			}
+			/*
+			 * An idle thread is only counted as busy once it has woken up, so
+			 * a burst of requests can find the same idle thread. Start a thread
+			 * for each request that the idle threads can not take.
+			 */
+			if (queue.size() > idleThreads && threads < MAX_THREADS)
+			{
+				threads++;
+				Thread thread = new Thread(new Worker(), "URI Resolver Connector"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		return request;
+	}
+
+	/**
+	 * Create a connection to the url, with the timeout set on it if the runtime
+	 * supports it.
+	 */
+	public URLConnection createConnection(String url, int timeout) throws IOException
+	{
+		URLConnection connection = new URL(url).openConnection();
+		if (timeout > 0 && setConnectTimeout != null)
+		{
+			Object[] args = new Object[]{new Integer(timeout)};
+			try
+			{
+				setConnectTimeout.invoke(connection, args);
+				setReadTimeout.invoke(connection, args);
+			}
+			catch (Exception e)
+			{
+				// the timeout is also enforced by the caller
+			}
+		}
+		return connection;
+	}
+
+	private Request nextRequest()
+	{
+		synchronized (queue)
+		{
+			long deadline = System.currentTimeMillis() + IDLE_TIME;
+			while (queue.isEmpty())
+			{
+				long wait = deadline - System.currentTimeMillis();
+				if (wait <= 0)
+				{
+					threads--;
+					return null;
+				}
+				idleThreads++;
+				try
+				{
+					queue.wait(wait);
+				}
+				catch (InterruptedException e)
+				{
+					threads--;
+					return null;
+				}
+				finally
+				{
+					idleThreads--;
+				}
+			}
+			return (Request) queue.removeFirst();
+		}
+	}
+
+	private void remove(Request request)
+	{
+		synchronized (queue)
+		{
+			queue.remove(request);
+		}
+	}
+
+	private class Worker implements Runnable
+	{
+		public void run()
+		{
+			Request request;
+			while ((request = nextRequest()) != null)
+			{
+				request.run();
+			}
+		}
+	}
+
+	/**
+	 * The opening of an input stream, which may not have finished yet.
+	 */
+	public class Request
+	{
+		private final URLConnection connection;
+		private boolean done = false;
+		private boolean cancelled = false;
+		private InputStream stream = null;
+		private IOException error = null;
+
+		Request(URLConnection connection)
+		{
+			this.connection = connection;
+		}
+
+		void run()
+		{
+			synchronized (this)
+			{
+				if (cancelled)
+					return;
+			}
+			InputStream result = null;
+			IOException exception = null;
+			try
+			{
+				result = connection.getInputStream();
+			}
+			catch (IOException e)
+			{
+				exception = e;
+			}
+			catch (RuntimeException e)
+			{
+				exception = new IOException(e.toString());
+			}
+			synchronized (this)
+			{
+				if (cancelled)
+				{
+					// the caller has moved on, cleanup
+					close(result);
+				}
+				else
+				{
+					stream = result;
+					error = exception;
+				}
+				done = true;
+				notifyAll();
+			}
+		}
+
+		/**
+		 * Answer true if the stream has been opened, or could not be opened.
+		 */
+		public synchronized boolean isDone()
+		{
+			return done;
+		}
+
+		/**
+		 * Wait for the stream to be opened.
+		 *
+		 * @param timeout
+		 *            the longest time to wait in milliseconds, or zero to wait
+		 *            until the stream has been opened
+		 * @return the stream, or null if it has not been opened before the
+		 *         timeout, or the request has been cancelled
+		 * @throws IOException
+		 *             if the stream could not be opened
+		 * @throws InterruptedException
+		 *             if the calling thread is interrupted while waiting
+		 */
+		public synchronized InputStream get(long timeout) throws IOException, InterruptedException
+		{
+			long deadline = System.currentTimeMillis() + timeout;
+			while (!done && !cancelled)
+			{
+				if (timeout <= 0)
+				{
+					wait();
+				}
+				else
+				{
+					long wait = deadline - System.currentTimeMillis();
+					if (wait <= 0)
+						break;
+					wait(wait);
+				}
+			}
+			if (error != null)
+				throw error;
+			return stream;
+		}
+
+		/**
+		 * Give up on the request. If the stream is opened later it is closed.
+		 *
+		 * @return true if the request was cancelled, false if it had already
+		 *         finished
+		 */
+		public boolean cancel()
+		{
+			synchronized (this)
+			{
+				if (done)
+					return false;
+				cancelled = true;
+				notifyAll();
+			}
+			remove(this);
+			return true;
+		}
+	}
+
+	private static void close(InputStream stream)
+	{
+		if (stream != null)
+		{
+			try
+			{
+				stream.close();
+			}
+			catch (IOException e)
+			{
+			}
+		}
+	}
+}
@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.common.uriresolver.internal.provisional;
+
+/**
+ * A URI resolver extension whose results may be remembered. The results of
+ * a resolution are only remembered when every prenormalization and
+ * postnormalization resolver that applies to the project implements this
+ * interface.
+ * <p>
+ * Remembered results are forgotten whenever the workspace changes. A
+ * resolver whose answers depend on something outside of the workspace, such
+ * as a catalog or a preference, must call
+ * {@link URIResolverPlugin#resolutionsChanged()} when that changes.
+ * </p>
+ */
+public interface CacheableURIResolverExtension extends URIResolverExtension {
+}
@@ -15,7 +15,9 @@ import java.util.Map;
 
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.wst.common.uriresolver.internal.ExtensibleURIResolver;
+import org.eclipse.wst.common.uriresolver.internal.URIResolutionCache;
 import org.eclipse.wst.common.uriresolver.internal.URIResolverExtensionRegistry;
+import org.osgi.framework.BundleContext;
 
 
 public class URIResolverPlugin extends Plugin {
@@ -32,6 +34,21 @@ public class URIResolverPlugin extends Plugin {
 		instance = this;
 	}	
 	
+	public void stop(BundleContext context) throws Exception {
+		URIResolutionCache.shutdown();
+		super.stop(context);
+	}
+
+	/**
+	 * Forget the results of earlier resolutions. Resolvers that implement
+	 * {@link CacheableURIResolverExtension} call this when something outside
+	 * of the workspace that their answers depend on changes.
+	 */
+	public static void resolutionsChanged()
+	{
+		URIResolutionCache.clearInstance();
+	}
+	
 					
 	public static URIResolver createResolver()
 	{
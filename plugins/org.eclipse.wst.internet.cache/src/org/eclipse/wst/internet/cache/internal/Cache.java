@@ -16,27 +16,29 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.wst.common.uriresolver.URIHelper;
+import org.eclipse.wst.internet.cache.internal.preferences.PreferenceConstants;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -55,18 +57,30 @@ public class Cache
   private static final String URI = "uri";
   private static final String LOCATION ="location";
   private static final String ENTRY = "entry";
-  private static final String CACHE = "cache";
   private static final String LAST_MODIFIED = "lastModified";
   private static final String EXPIRATION_TIME = "expirationTime";
+  private static final String ETAG_ATTRIBUTE = "etag";
+  private static final String ETAG = "ETag";
+  private static final String IF_NONE_MATCH = "If-None-Match";
   private static final String FILE_PROTOCOL = "file:///";
   private static final String CACHE_FILE = "cache.xml";
+  private static final String INDEX_FILE = "cache.index";
   private static final String CACHE_EXTENSION = ".cache";
   private static final String CACHE_PREFIX = "wtpcache";
-  private static final String CACHE_SUFFIX = null;
+  private static final String TEMP_EXTENSION = ".tmp";
+  /**
+   * The largest number of bytes that are transferred to a cache file at a time.
+   */
+  private static final long TRANSFER_SIZE = 65536;
   /**
    * The default timeout for a cache entry is 1 day.
    */
   private static final long TIMEOUT = 86400000;
+  /**
+   * The last access time of an entry is only recorded in the index if it has
+   * changed by more than 1 minute.
+   */
+  private static final long ACCESS_RESOLUTION = 60000;
 	
   /**
    * The one and only instance of the cache.
@@ -74,22 +88,40 @@ public class Cache
   private static Cache cacheInstance = null;
   
   /**
-   * The cache is stored in a hashtable.
+   * The cache is stored in a hashtable. The hashtable is synchronized, so it
+   * can be read and updated from any thread.
    */
   private Hashtable cache;
   
   /**
-   * A set of uncached resources. The cache was not able to cache resources
-   * in this list. This list allows quickly skipping over these resources in
-   * future requests. 
+   * The uncached resources. The cache was not able to cache these resources.
+   * This allows quickly skipping over these resources in future requests,
+   * until their time to live has passed.
    */
-  private Set uncached;
+  private NegativeCache uncached;
+  
+  /**
+   * The downloads that are in progress, keyed by URI. A request for a URI
+   * that is already being downloaded waits for that download instead of
+   * starting another one. Guarded by itself.
+   */
+  private final Map inProgress = new HashMap();
   
   /**
    * The location of the cache
    */
   private File cacheLocation = null;
   
+  /**
+   * The index of the cache entries, in the plugin state location.
+   */
+  private CacheIndex index;
+  
+  /**
+   * The number of bytes used by the cached files. Guarded by this.
+   */
+  private long totalSize = 0;
+  
   /**
    * Private constructor.
    */
@@ -97,7 +129,8 @@ public class Cache
   {
 	  this.cacheLocation = cacheLocation.toFile();//Platform.getPluginStateLocation(CachePlugin.getDefault()).toFile();
     cache = new Hashtable();
-    uncached = new HashSet();
+    uncached = new NegativeCache();
+    index = new CacheIndex(new File(this.cacheLocation, INDEX_FILE));
   }
   
   /**
@@ -128,26 +161,135 @@ public class Cache
 	  if(uri == null) return null;
 	  CacheEntry result = (CacheEntry)cache.get(uri);
 	  
+	  // When working offline only the resources that are already cached are used,
+	  // even if they have expired.
+	  if(isOffline())
+	  {
+		return result == null ? null : getLocation(result);
+	  }
+	  
 	  // If no result is in the cache and the URI is of an allowed type
 	  // retrieve it and store it in the cache.
 	  if(result == null)
 	  {
       
-        if(!uncached.contains(uri))
+        if(!uncached.isBlocked(uri))
 	    {
-          result = cacheResource(uri); 
+          result = fetch(uri, null); 
         }
 	  }
 	  // Retreive a fresh copy of the result if it has timed out.
 	  else if(result.hasExpired())
 	  {
-		result = refreshCacheEntry(result);
+		result = fetch(uri, result);
 	  }
 	  if(result == null || result.getLocalFile() == null)
 	  {
 		return null;
 	  }
-	  return FILE_PROTOCOL + cacheLocation.toString() + "/" + result.getLocalFile();
+	  return getLocation(result);
+  }
+  
+  /**
+   * Get the location of the local file of a cache entry, and record that the
+   * entry has been used.
+   * 
+   * @param cacheEntry The cache entry.
+   * @return The location of the local file.
+   */
+  private String getLocation(CacheEntry cacheEntry)
+  {
+	  touch(cacheEntry);
+	  return FILE_PROTOCOL + cacheLocation.toString() + "/" + cacheEntry.getLocalFile();
+  }
+  
+  /**
+   * Determine if the cache is working offline, in which case no remote
+   * resources are retrieved.
+   * 
+   * @return True if the cache is working offline, false otherwise.
+   */
+  private static boolean isOffline()
+  {
+	return CachePlugin.isRunning() && CachePlugin.getDefault().isOffline();
+  }
+  
+  /**
+   * Cache or refresh the specified resource, unless another thread is already
+   * doing so, in which case wait for that thread to finish and use its result.
+   * 
+   * @param uri The remote URI to cache.
+   * @param expired The expired cache entry to refresh, or null if the resource
+   *                is not in the cache.
+   * @return The cache entry for the resource or null if the remote resource
+   *         could not be retrieved.
+   */
+  private CacheEntry fetch(String uri, CacheEntry expired)
+  {
+	Fetch fetch;
+	boolean owner = false;
+	synchronized(inProgress)
+	{
+	  fetch = (Fetch)inProgress.get(uri);
+	  if(fetch == null)
+	  {
+		// The entry may have been cached, or the download may have failed,
+		// while we were waiting for the lock.
+		CacheEntry current = (CacheEntry)cache.get(uri);
+		if(current != null && !current.hasExpired())
+		{
+		  return current;
+		}
+		if(current == null && uncached.isBlocked(uri))
+		{
+		  return null;
+		}
+		fetch = new Fetch();
+		inProgress.put(uri, fetch);
+		owner = true;
+	  }
+	}
+	if(!owner)
+	{
+	  return fetch.waitForResult();
+	}
+	CacheEntry result = null;
+	try
+	{
+	  result = expired == null ? cacheResource(uri) : refreshCacheEntry(expired);
+	}
+	finally
+	{
+	  synchronized(inProgress)
+	  {
+		inProgress.remove(uri);
+	  }
+	  fetch.setResult(result);
+	}
+	return result;
+  }
+  
+  /**
+   * Determine if the specified resource is in the cache.
+   * 
+   * @param uri The URI of the resource.
+   * @return True if the resource is in the cache, even if it has expired, false otherwise.
+   */
+  protected boolean isCached(String uri)
+  {
+	return cache.containsKey(uri);
+  }
+  
+  /**
+   * Determine if the specified resource could not be cached and its time to
+   * live has not passed yet.
+   * 
+   * @param uri The URI of the resource.
+   * @return True if the resource should not be retrieved yet, false otherwise.
+   */
+  protected boolean isUncached(String uri)
+  {
+	return uncached.isBlocked(uri);
   }
   
   /**
@@ -157,7 +299,29 @@ public class Cache
    */
   protected String[] getUncachedURIs()
   {
-    return (String[])uncached.toArray(new String[uncached.size()]);
+    return uncached.getURIs();
+  }
+  
+  /**
+   * Get the list of uncached resources whose time to live has passed, so
+   * that another attempt may be made to cache them.
+   * 
+   * @return The list of uncached resources that may be retried.
+   */
+  protected String[] getRetryableURIs()
+  {
+    return uncached.getRetryableURIs();
+  }
+  
+  /**
+   * Get the earliest time at which another attempt may be made to cache an
+   * uncached resource.
+   * 
+   * @return The earliest retry time, or -1 if there are no uncached resources.
+   */
+  protected long getNextRetryTime()
+  {
+    return uncached.getNextRetryTime();
   }
   
   /**
@@ -170,12 +334,13 @@ public class Cache
   
   /**
    * Add an uncached resource to the list and start the 
-   * uncached job if not already started.
+   * uncached job if not already started. Each time a resource is added
+   * its time to live is increased.
    */
   protected void addUncachedURI(String uri)
   {
+    uncached.failed(uri);
 	CacheJob.startJob();
-    uncached.add(uri);
   }
   
   /**
@@ -191,7 +356,6 @@ public class Cache
   {
 	  CacheEntry cacheEntry = null;
 	  InputStream is = null;
-	  OutputStream os = null;
 	  try
 	  {
 		  String actualUri = uri;
@@ -210,9 +374,10 @@ public class Cache
 		  {
 			is = URIHelper.getInputStream(actualUri, 0);
 	    	if (is == null) {
-	    	  uncached.add(uri);
+	    	  uncached.failed(uri);
 	    	  return cacheEntry;
 	    	}
+		    File tempFile = download(is);
 		    Random rand = new Random();
 			String fileName = rand.nextInt() + CACHE_EXTENSION;
 		    File file = new File(cacheLocation, fileName);
@@ -222,28 +387,18 @@ public class Cache
 			  fileName = rand.nextInt() + CACHE_EXTENSION;
 			  file = new File(cacheLocation,fileName);
 		    }
-		    os = new FileOutputStream(file);
-		    byte[] bytes = new byte[1024];
-		    int bytelength;
-		    while((bytelength = is.read(bytes)) != -1)
-		    {
-			  os.write(bytes, 0, bytelength);
-		    }
-			long lastModified = conn.getLastModified();
-		    long expiration = conn.getExpiration();
-			if(expiration == 0)
-			{
-			  expiration = System.currentTimeMillis() + TIMEOUT;
-			}
-		    cacheEntry = new CacheEntry(uri, fileName, lastModified, expiration);
-		    cache.put(uri,cacheEntry);
+		    move(tempFile, file);
+		    cacheEntry = new CacheEntry(uri, fileName, conn.getLastModified(), getExpiration(conn), conn.getHeaderField(ETAG));
+		    cacheEntry.setSize(file.length());
+		    cacheEntry.setLastAccessed(System.currentTimeMillis());
+		    addEntry(cacheEntry);
+		    uncached.succeeded(uri);
 		  }
 
 	  }
 	  catch(Exception t)
 	  {
 		  // Put the entry in the uncached list so the resolution work will not be performed again.
-      // TODO: Add in a timeout for the non-located uris.
       addUncachedURI(uri);
 	  }
 	  finally
@@ -259,26 +414,17 @@ public class Cache
 			    // Do nothing if the stream cannot be closed.
 			  }
 		  }
-		  if(os != null)
-		  {
-			  try
-			  {
-			    os.close();
-			  }
-			  catch(IOException e)
-			  {
-				// Do nothing if the stream cannot be closed. 
-			  }
-		  }
 	  }
 	  return cacheEntry;
   }
   
   /**
-   * Refresh the cache entry if necessary. The cache entry will be refreshed
-   * if the remote resource is accessible and the last modified time of the
-   * remote resource is greater than the last modified time of the cached
-   * resource.
+   * Refresh the cache entry if necessary. The request is made conditional on the
+   * entity tag and the last modified time of the cached resource, so a server
+   * that supports conditional requests answers with 304 (Not Modified) instead of
+   * sending the resource again. In that case, or if the remote resource has not
+   * been modified, only the expiration time is updated. Otherwise the cached
+   * resource is replaced.
    * 
    * @param cacheEntry The cache entry to refresh.
    * @return The refreshed cache entry.
@@ -287,55 +433,61 @@ public class Cache
   {
 	  URLConnection conn = null;
 	  InputStream is = null;
-	  OutputStream os = null;
 	  try
 	  {
 		  URL url = new URL(cacheEntry.getURI());
 		  conn = url.openConnection();
+		  String etag = cacheEntry.getETag();
+		  if(etag != null)
+		  {
+			conn.setRequestProperty(IF_NONE_MATCH, etag);
+		  }
+		  if(cacheEntry.getLastModified() > 0)
+		  {
+			conn.setIfModifiedSince(cacheEntry.getLastModified());
+		  }
 		  conn.connect();
 		  
+		  boolean notModified = conn instanceof HttpURLConnection && 
+		    ((HttpURLConnection)conn).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
 		  long lastModified = conn.getLastModified();
-	      if(lastModified > cacheEntry.getLastModified())
+		  String newETag = conn.getHeaderField(ETAG);
+		  boolean modified;
+		  if(notModified)
 		  {
-			long expiration = conn.getExpiration();
-		    if(expiration == 0)
-			{
-			  expiration = System.currentTimeMillis() + TIMEOUT;
-			}
-			
-		    is = conn.getInputStream();
-			
-			String localFile = cacheEntry.getLocalFile();
-  
-		    File tempFile = File.createTempFile(CACHE_PREFIX, CACHE_SUFFIX);
-			tempFile.deleteOnExit();
-
-		    os = new FileOutputStream(tempFile);
-		    byte[] bytes = new byte[1024];
-		    int bytelength;
-		    while((bytelength = is.read(bytes)) != -1)
-		    {
-			  os.write(bytes, 0, bytelength);
-		    }
-			is.close();
-			os.close();
-			deleteFile(cacheEntry.getURI());
-			File f = new File(cacheLocation, localFile);
-			tempFile.renameTo(f);
-			cacheEntry.setExpiration(expiration);
-			cacheEntry.setLastModified(lastModified);
+			modified = false;
 		  }
-		  // The cache entry hasn't changed. Just update the expiration time.
-	      else
+		  else if(etag != null && newETag != null)
 		  {
-			long expiration = conn.getExpiration();
-			if(expiration == 0)
+			modified = !etag.equals(newETag);
+		  }
+		  else
+		  {
+			modified = lastModified > cacheEntry.getLastModified();
+		  }
+		  
+	      if(modified)
+		  {
+		    is = conn.getInputStream();
+		    File tempFile = download(is);
+		    File file = new File(cacheLocation, cacheEntry.getLocalFile());
+			move(tempFile, file);
+			cacheEntry.setLastModified(lastModified);
+			synchronized(this)
 			{
-			  expiration = System.currentTimeMillis() + TIMEOUT;
+			  totalSize += file.length() - cacheEntry.getSize();
+			  cacheEntry.setSize(file.length());
 			}
-			cacheEntry.setExpiration(expiration);
 		  }
-
+		  if(newETag != null)
+		  {
+			cacheEntry.setETag(newETag);
+		  }
+		  // If the cache entry hasn't changed this just updates the expiration time.
+		  cacheEntry.setExpiration(getExpiration(conn));
+		  index.put(cacheEntry);
+		  // A new version of the resource may be larger than the old one.
+		  evict(cacheEntry);
 	  }
 	  catch(Exception e)
 	  {
@@ -354,21 +506,91 @@ public class Cache
 			    // Do nothing if the stream cannot be closed.
 			  }
 		  }
-		  if(os != null)
-		  {
-			  try
-			  {
-			    os.close();
-			  }
-			  catch(IOException e)
-			  {
-				// Do nothing if the stream cannot be closed. 
-			  }
-		  }
 	  }
 	  return cacheEntry;
   }
   
+  /**
+   * Get the expiration time that the server specified for the resource, or the
+   * default timeout from now if it did not specify one.
+   * 
+   * @param conn The connection to the resource.
+   * @return The expiration time.
+   */
+  private long getExpiration(URLConnection conn)
+  {
+	long expiration = conn.getExpiration();
+	if(expiration == 0)
+	{
+	  expiration = System.currentTimeMillis() + TIMEOUT;
+	}
+	return expiration;
+  }
+  
+  /**
+   * Download a resource into a temporary file in the cache location. The bytes are
+   * transferred by the file channel rather than being copied through a buffer.
+   * 
+   * @param is The stream of the resource.
+   * @return The temporary file.
+   * @throws IOException If the resource cannot be downloaded.
+   */
+  private File download(InputStream is) throws IOException
+  {
+	File tempFile = File.createTempFile(CACHE_PREFIX, TEMP_EXTENSION, cacheLocation);
+	FileOutputStream os = null;
+	boolean success = false;
+	try
+	{
+	  os = new FileOutputStream(tempFile);
+	  FileChannel out = os.getChannel();
+	  ReadableByteChannel in = Channels.newChannel(is);
+	  long position = 0;
+	  long count;
+	  while((count = out.transferFrom(in, position, TRANSFER_SIZE)) > 0)
+	  {
+		position += count;
+	  }
+	  success = true;
+	}
+	finally
+	{
+	  if(os != null)
+	  {
+		os.close();
+	  }
+	  if(!success)
+	  {
+		tempFile.delete();
+	  }
+	}
+	return tempFile;
+  }
+  
+  /**
+   * Move a downloaded file to its place in the cache. The temporary file is in the
+   * same directory as the cache file, so the file is replaced by a rename and a reader
+   * never sees a partly written file.
+   * 
+   * @param tempFile The downloaded file.
+   * @param file The cache file.
+   * @throws IOException If the file cannot be moved.
+   */
+  private void move(File tempFile, File file) throws IOException
+  {
+	if(tempFile.renameTo(file))
+	{
+	  return;
+	}
+	// Some platforms cannot rename over an existing file.
+	file.delete();
+	if(!tempFile.renameTo(file))
+	{
+	  tempFile.delete();
+	  throw new IOException("Unable to move " + tempFile + " to " + file);
+	}
+  }
+  
   /**
    * Get an array of the cached URIs.
    * 
@@ -381,62 +603,106 @@ public class Cache
   }
   
   /**
-   * Close the cache. Closing the cache involves serializing the data to an XML file
-   * in the plugin state location.
+   * Close the cache. The changes to the cache have already been recorded in the
+   * index as they were made, so closing the cache just rewrites the index with
+   * the current entries.
    */
   protected void close()
   {
-	  DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      try {
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document cachedoc = builder.newDocument();
-		Element rootelem = cachedoc.createElement(CACHE);
-		cachedoc.appendChild(rootelem);
-		
-	  Enumeration uris = cache.keys();
-	  while(uris.hasMoreElements())
+	  synchronized(this)
 	  {
-		  String key = (String)uris.nextElement();
-		  CacheEntry cacheEntry = (CacheEntry)cache.get(key);
-		  if(cacheEntry != null)
-		  {
-			  Element entry = cachedoc.createElement(ENTRY);
-			  entry.setAttribute(URI, key);
-			  entry.setAttribute(LOCATION, cacheEntry.getLocalFile());
-			  entry.setAttribute(EXPIRATION_TIME, String.valueOf(cacheEntry.getExpirationTime()));
-			  entry.setAttribute(LAST_MODIFIED, String.valueOf(cacheEntry.getLastModified()));
-			  rootelem.appendChild(entry);
-		  }
+		index.compact(new ArrayList(cache.values()));
 	  }
-	  
-	  // Write the cache entry.
-	  TransformerFactory tFactory  = TransformerFactory.newInstance();
-      Transformer transformer = tFactory.newTransformer();
-      Source input = new DOMSource(cachedoc);
-	  IPath stateLocation = Platform.getStateLocation(CachePlugin.getDefault().getBundle());
-      Result output = new StreamResult(stateLocation.toString() + "/" + CACHE_FILE);
-      transformer.transform(input, output);
-
-      }catch(Exception e)
+	  index.close();
+	  cacheInstance = null;
+  }
+  
+  /**
+   * A download that is in progress. Other threads that need the same
+   * resource wait for its result.
+   */
+  private static class Fetch
+  {
+	private boolean done = false;
+	private CacheEntry result = null;
+	
+	synchronized void setResult(CacheEntry result)
+	{
+	  this.result = result;
+	  done = true;
+	  notifyAll();
+	}
+	
+	synchronized CacheEntry waitForResult()
+	{
+	  while(!done)
 	  {
-		  System.out.println("Unable to store internet cache.");
+		try
+		{
+		  wait();
+		}
+		catch(InterruptedException e)
+		{
+		  Thread.currentThread().interrupt();
+		  return null;
+		}
 	  }
-	  cacheInstance = null;
+	  return result;
+	}
   }
   
   /**
-   * Open the cache. Opening the cache involves parsing the cache XML file in
-   * the plugin state location if it can be read.
+   * Open the cache. Opening the cache involves reading the cache index in the
+   * plugin state location if it can be read. If there is no index, the cache
+   * XML file that was written by earlier versions is read instead, and is then
+   * replaced by the index.
    */
   protected static void open(IPath cacheLocation)
   {
-    cacheInstance = new Cache(cacheLocation);
+    Cache newCache = new Cache(cacheLocation);
+    File legacyFile = new File(newCache.cacheLocation, CACHE_FILE);
+    Map entries;
+    if(newCache.index.exists() || !legacyFile.exists())
+    {
+      entries = newCache.index.load();
+    }
+    else
+    {
+      entries = loadLegacy(newCache.cacheLocation, legacyFile);
+    }
+    Iterator iter = entries.values().iterator();
+    while(iter.hasNext())
+    {
+      CacheEntry entry = (CacheEntry)iter.next();
+      if(new File(newCache.cacheLocation, entry.getLocalFile()).exists())
+      {
+        newCache.cache.put(entry.getURI(), entry);
+        newCache.totalSize += entry.getSize();
+      }
+    }
+    // The cache XML file is only deleted once the index has replaced it.
+    if(newCache.index.compact(new ArrayList(newCache.cache.values())) && legacyFile.exists())
+    {
+      legacyFile.delete();
+    }
+    newCache.evict(null);
+    cacheInstance = newCache;
+  }
+  
+  /**
+   * Read the cache XML file that was written by earlier versions.
+   * 
+   * @param cacheLocation The location of the cache.
+   * @param legacyFile The cache XML file.
+   * @return A map of URIs to cache entries.
+   */
+  private static Map loadLegacy(File cacheLocation, File legacyFile)
+  {
+	Map result = new HashMap();
 	  DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
       try {
-		  
-		IPath stateLocation = cacheLocation;
         DocumentBuilder builder = factory.newDocumentBuilder();
-        Document cachedoc = builder.parse(stateLocation.toString() + "/" + CACHE_FILE);
+        Document cachedoc = builder.parse(legacyFile);
 		Element rootelem = cachedoc.getDocumentElement();
 		NodeList entries = rootelem.getChildNodes();
 		int numEntries = entries.getLength();
@@ -452,6 +718,7 @@ public class Cache
 					String location = e.getAttribute(LOCATION);
 					String lm = e.getAttribute(LAST_MODIFIED);
 					String et = e.getAttribute(EXPIRATION_TIME);
+					String etag = e.hasAttribute(ETAG_ATTRIBUTE) ? e.getAttribute(ETAG_ATTRIBUTE) : null;
 					long lastModified = -1;
 					long expirationTime = -1;
 					try
@@ -470,7 +737,11 @@ public class Cache
 					}
 					if(uri != null && location != null)
 					{
-					  cacheInstance.cache.put(uri, new CacheEntry(uri, location, lastModified, expirationTime));
+					  CacheEntry cacheEntry = new CacheEntry(uri, location, lastModified, expirationTime, etag);
+					  File file = new File(cacheLocation, location);
+					  cacheEntry.setSize(file.length());
+					  cacheEntry.setLastAccessed(file.lastModified());
+					  result.put(uri, cacheEntry);
 					}
 				}
 			}
@@ -484,6 +755,7 @@ public class Cache
 	  {
 		  System.out.println("Unable to load cache.");
 	  }
+	  return result;
   }
   
   /**
@@ -491,14 +763,19 @@ public class Cache
    */
   public void clear()
   {
-	Enumeration keys = cache.keys();
-	while(keys.hasMoreElements())
+	synchronized(this)
 	{
-	  String key = (String)keys.nextElement();
+	  Enumeration keys = cache.keys();
+	  while(keys.hasMoreElements())
+	  {
+	    String key = (String)keys.nextElement();
 	  
-	  deleteFile(key);
+	    deleteFile(key);
+	  }
+	  cache.clear();
+	  totalSize = 0;
 	}
-	cache.clear();
+	index.clear();
   }
   
   /**
@@ -509,8 +786,150 @@ public class Cache
   {
 	  if(uri == null) return;
 	  
+	  removeEntry(uri);
+  }
+  
+  /**
+   * Add an entry to the cache, and then evict the least recently used
+   * entries if the cache has grown beyond its budget.
+   * 
+   * @param cacheEntry The entry to add.
+   */
+  private void addEntry(CacheEntry cacheEntry)
+  {
+	synchronized(this)
+	{
+	  CacheEntry old = (CacheEntry)cache.put(cacheEntry.getURI(), cacheEntry);
+	  if(old != null)
+	  {
+		totalSize -= old.getSize();
+	  }
+	  totalSize += cacheEntry.getSize();
+	}
+	index.put(cacheEntry);
+	evict(cacheEntry);
+	// The entries are copied and written while the cache is locked, so that
+	// a change that is recorded in the index meanwhile is not compacted away.
+	synchronized(this)
+	{
+	  if(index.needsCompaction(cache.size()))
+	  {
+		index.compact(new ArrayList(cache.values()));
+	  }
+	}
+  }
+  
+  /**
+   * Remove an entry from the cache and delete its file.
+   * 
+   * @param uri The URI of the entry.
+   */
+  private void removeEntry(String uri)
+  {
+	synchronized(this)
+	{
 	  deleteFile(uri);
-	  cache.remove(uri);
+	  CacheEntry old = (CacheEntry)cache.remove(uri);
+	  if(old == null)
+	  {
+		return;
+	  }
+	  totalSize -= old.getSize();
+	}
+	index.remove(uri);
+  }
+  
+  /**
+   * Record that an entry has been used. So that the index does not grow with
+   * every request, the time is only recorded if it has moved on by more than
+   * the access resolution.
+   * 
+   * @param cacheEntry The entry that has been used.
+   */
+  private void touch(CacheEntry cacheEntry)
+  {
+	long now = System.currentTimeMillis();
+	if(now - cacheEntry.getLastAccessed() > ACCESS_RESOLUTION)
+	{
+	  cacheEntry.setLastAccessed(now);
+	  index.access(cacheEntry.getURI(), now);
+	}
+  }
+  
+  /**
+   * Remove the least recently used entries until the cache is within its byte
+   * and entry budgets. Entries that are being downloaded are not removed.
+   * 
+   * @param keep An entry that must not be removed, or null.
+   */
+  private synchronized void evict(CacheEntry keep)
+  {
+	long maxSize = getMaxSize();
+	int maxEntries = getMaxEntries();
+	if(totalSize <= maxSize && cache.size() <= maxEntries)
+	{
+	  return;
+	}
+	// The access times are updated by touch without the lock, so they are
+	// copied before sorting; the order must not change while it is sorted.
+	List entries = new ArrayList(cache.size());
+	Iterator iter = cache.values().iterator();
+	while(iter.hasNext())
+	{
+	  entries.add(new AccessTime((CacheEntry)iter.next()));
+	}
+	Collections.sort(entries);
+	iter = entries.iterator();
+	while(iter.hasNext() && (totalSize > maxSize || cache.size() > maxEntries))
+	{
+	  CacheEntry entry = ((AccessTime)iter.next()).entry;
+	  if(entry == keep)
+	  {
+		continue;
+	  }
+	  synchronized(inProgress)
+	  {
+		if(inProgress.containsKey(entry.getURI()))
+		{
+		  continue;
+		}
+	  }
+	  removeEntry(entry.getURI());
+	}
+  }
+  
+  /**
+   * Get the largest number of bytes that the cached files may use.
+   */
+  private static long getMaxSize()
+  {
+	int megabytes = 0;
+	if(CachePlugin.isRunning())
+	{
+	  megabytes = CachePlugin.getDefault().getPluginPreferences().getInt(PreferenceConstants.CACHE_MAX_SIZE);
+	}
+	if(megabytes <= 0)
+	{
+	  megabytes = PreferenceConstants.DEFAULT_CACHE_MAX_SIZE;
+	}
+	return megabytes * 1048576L;
+  }
+  
+  /**
+   * Get the largest number of entries that the cache may hold.
+   */
+  private static int getMaxEntries()
+  {
+	int entries = 0;
+	if(CachePlugin.isRunning())
+	{
+	  entries = CachePlugin.getDefault().getPluginPreferences().getInt(PreferenceConstants.CACHE_MAX_ENTRIES);
+	}
+	if(entries <= 0)
+	{
+	  entries = PreferenceConstants.DEFAULT_CACHE_MAX_ENTRIES;
+	}
+	return entries;
   }
   
   /**
@@ -531,4 +950,26 @@ public class Cache
 	    } 
 	  }
   }
-}
\ No newline at end of file
+  
+  /**
+   * The last access time of a cache entry, as it was when the cache was
+   * sorted for eviction.
+   */
+  private static class AccessTime implements Comparable
+  {
+	final CacheEntry entry;
+	final long lastAccessed;
+	
+	AccessTime(CacheEntry entry)
+	{
+	  this.entry = entry;
+	  this.lastAccessed = entry.getLastAccessed();
+	}
+	
+	public int compareTo(Object o)
+	{
+	  long other = ((AccessTime)o).lastAccessed;
+	  return lastAccessed < other ? -1 : (lastAccessed == other ? 0 : 1);
+	}
+  }
+}
@@ -20,6 +20,9 @@ public class CacheEntry
   private String localFile;
   private long lastModified;
   private long expirationTime;
+  private String etag;
+  private long size;
+  private long lastAccessed;
   
   /**
    * Create a new cache entry.
@@ -38,6 +41,23 @@ public class CacheEntry
 	this.expirationTime = expirationTime;
   }
   
+  /**
+   * Create a new cache entry.
+   * 
+   * @param uri The remote URI of the cache entry.
+   * @param localFile The local file that contains the cached entry.
+   * @param lastModifie The time this resource was last modified.
+   * @param expirationTime The time in miliseconds that this cache entry will
+   *                       expire.
+   * @param etag The entity tag of the resource, or null if the server did not
+   *             specify one.
+   */
+  public CacheEntry(String uri, String localFile, long lastModified, long expirationTime, String etag)
+  {
+	this(uri, localFile, lastModified, expirationTime);
+	this.etag = etag;
+  }
+  
   /**
    * The cache entry is expired if its expiration time is less then the
    * current system time and not equal to -1.
@@ -111,4 +131,58 @@ public class CacheEntry
   {
 	this.lastModified = lastModified;
   }
+  
+  /**
+   * Get the entity tag of the cached resource.
+   * 
+   * @return The entity tag of the cached resource, or null if the server did not specify one.
+   */
+  public String getETag()
+  {
+	return etag;
+  }
+  
+  /**
+   * Set the entity tag of the cached resource.
+   */
+  public void setETag(String etag)
+  {
+	this.etag = etag;
+  }
+  
+  /**
+   * Get the size in bytes of the local file.
+   * 
+   * @return The size in bytes of the local file.
+   */
+  public long getSize()
+  {
+	return size;
+  }
+  
+  /**
+   * Set the size in bytes of the local file.
+   */
+  public void setSize(long size)
+  {
+	this.size = size;
+  }
+  
+  /**
+   * Get the last time this cache entry was used.
+   * 
+   * @return The last time this cache entry was used.
+   */
+  public long getLastAccessed()
+  {
+	return lastAccessed;
+  }
+  
+  /**
+   * Set the last time this cache entry was used.
+   */
+  public void setLastAccessed(long lastAccessed)
+  {
+	this.lastAccessed = lastAccessed;
+  }
 }
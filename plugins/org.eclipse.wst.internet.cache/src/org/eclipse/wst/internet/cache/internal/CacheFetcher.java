@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.internet.cache.internal;
+
+import java.text.MessageFormat;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * A cache fetcher caches a list of resources using a small, bounded number
+ * of threads, so that one slow or unreachable server does not hold up the
+ * rest of the list. Each resource is cached with Cache.getResource, so a
+ * resource that is already being downloaded by another thread is not
+ * downloaded again.
+ */
+public class CacheFetcher
+{
+  /**
+   * The maximum number of resources that are downloaded at the same time.
+   */
+  private static final int MAX_THREADS = 4;
+
+  /**
+   * How often, in milliseconds, the progress monitor is checked for cancellation.
+   */
+  private static final long POLL_TIME = 200;
+
+  private final String[] uris;
+  private int next = 0;
+  private int finished = 0;
+  private boolean canceled = false;
+  private String current = null;
+
+  /**
+   * Constructor.
+   *
+   * @param uris The URIs to cache.
+   */
+  public CacheFetcher(String[] uris)
+  {
+	this.uris = uris;
+  }
+
+  /**
+   * Cache all of the resources, and wait until they have been cached. The
+   * monitor is only used on the calling thread.
+   *
+   * The resources that can not be cached are recorded as uncached by the
+   * cache, which retries them when their time to live has passed.
+   *
+   * @param monitor The progress monitor. The resources that have not been
+   *                started when the monitor is canceled are not cached.
+   */
+  public void fetch(IProgressMonitor monitor)
+  {
+	int numThreads = Math.min(MAX_THREADS, uris.length);
+	for(int i = 0; i < numThreads; i++)
+	{
+	  Thread thread = new Thread(new Worker(), "Internet Cache Fetcher " + (i + 1));
+	  thread.setDaemon(true);
+	  thread.start();
+	}
+
+	int reported = 0;
+	String reportedURI = null;
+	while(true)
+	{
+	  int done;
+	  int started;
+	  String uri;
+	  synchronized(this)
+	  {
+		if(!canceled && monitor.isCanceled())
+		{
+		  canceled = true;
+		}
+		started = next;
+		done = finished;
+		uri = current;
+		if(done == started && (canceled || next == uris.length))
+		{
+		  break;
+		}
+		try
+		{
+		  wait(POLL_TIME);
+		}
+		catch(InterruptedException e)
+		{
+		  canceled = true;
+		}
+	  }
+	  if(uri != null && uri != reportedURI)
+	  {
+		monitor.setTaskName(MessageFormat.format(CacheMessages._UI_CACHE_MONITOR_CACHING, new Object[]{uri}));
+		reportedURI = uri;
+	  }
+	  if(done > reported)
+	  {
+		monitor.worked(done - reported);
+		reported = done;
+	  }
+	}
+	synchronized(this)
+	{
+	  if(finished > reported)
+	  {
+		monitor.worked(finished - reported);
+	  }
+	}
+  }
+
+  private synchronized String nextURI()
+  {
+	if(canceled || next >= uris.length)
+	{
+	  return null;
+	}
+	current = uris[next];
+	return uris[next++];
+  }
+
+  private synchronized void done()
+  {
+	finished++;
+	notifyAll();
+  }
+
+  private class Worker implements Runnable
+  {
+	public void run()
+	{
+	  String uri;
+	  while((uri = nextURI()) != null)
+	  {
+		try
+		{
+		  Cache cache = Cache.getInstance();
+		  if(cache != null)
+		  {
+			cache.getResource(uri);
+		  }
+		}
+		finally
+		{
+		  done();
+		}
+	  }
+	}
+  }
+}
@@ -0,0 +1,444 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.internet.cache.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The cache index records the entries of the cache in a compact binary file.
+ * Changes are appended to the file as they are made, so nothing needs to be
+ * written when the workbench shuts down, and the file is rewritten with just
+ * the current entries when it is opened and when it has grown to contain many
+ * more changes than entries.
+ * <p>
+ * The file starts with a header (a magic number and a version), followed by
+ * records that each start with a record type:
+ * <pre>
+ *   PUT    uri, location, last modified, expiration time, has etag, [etag], size, last accessed
+ *   REMOVE uri
+ *   ACCESS uri, last accessed
+ *   CLEAR
+ * </pre>
+ * If the workbench stops while a record is being written, the incomplete
+ * record is ignored when the index is read. When the index is rewritten, the
+ * old file is kept as a backup until the new one is in place, and the backup
+ * is read if the workbench stopped before the new file was.
+ */
+public class CacheIndex
+{
+  private static final int MAGIC = 0x57435849;
+  private static final int VERSION = 1;
+
+  private static final byte PUT = 1;
+  private static final byte REMOVE = 2;
+  private static final byte ACCESS = 3;
+  private static final byte CLEAR = 4;
+
+  /**
+   * The index is rewritten once it contains this many more records than entries.
+   */
+  private static final int COMPACT_THRESHOLD = 1000;
+
+  private final File file;
+  private final File backupFile;
+  private DataOutputStream out = null;
+  private int records = 0;
+
+  /**
+   * A record could not be written. Nothing more is appended until the index
+   * has been rewritten, so that the damage is limited to the end of the file.
+   */
+  private boolean broken = false;
+
+  /**
+   * Constructor.
+   *
+   * @param file The index file.
+   */
+  public CacheIndex(File file)
+  {
+	this.file = file;
+	this.backupFile = new File(file.getPath() + ".bak");
+  }
+
+  /**
+   * Determine if the index file exists.
+   *
+   * @return True if the index file exists, false otherwise.
+   */
+  public boolean exists()
+  {
+	return file.exists() || backupFile.exists();
+  }
+
+  /**
+   * Read the entries in the index file.
+   *
+   * @return A map of URIs to cache entries.
+   */
+  public synchronized Map load()
+  {
+	Map entries = new HashMap();
+	if(!file.exists() && !backupFile.renameTo(file))
+	{
+	  return entries;
+	}
+	DataInputStream in = null;
+	try
+	{
+	  in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+	  if(in.readInt() != MAGIC || in.readInt() != VERSION)
+	  {
+		return entries;
+	  }
+	  while(true)
+	  {
+		byte type = in.readByte();
+		if(type == PUT)
+		{
+		  CacheEntry entry = readEntry(in);
+		  entries.put(entry.getURI(), entry);
+		}
+		else if(type == REMOVE)
+		{
+		  entries.remove(in.readUTF());
+		}
+		else if(type == ACCESS)
+		{
+		  String uri = in.readUTF();
+		  long lastAccessed = in.readLong();
+		  CacheEntry entry = (CacheEntry)entries.get(uri);
+		  if(entry != null)
+		  {
+			entry.setLastAccessed(lastAccessed);
+		  }
+		}
+		else if(type == CLEAR)
+		{
+		  entries.clear();
+		}
+		else
+		{
+		  break;
+		}
+	  }
+	}
+	catch(EOFException e)
+	{
+	  // The end of the index, or an incomplete record at the end of the index.
+	}
+	catch(UTFDataFormatException e)
+	{
+	  // An incomplete record at the end of the index.
+	}
+	catch(IOException e)
+	{
+	  System.out.println("Unable to read the internet cache index.");
+	}
+	finally
+	{
+	  close(in);
+	}
+	return entries;
+  }
+
+  /**
+   * Record a new or changed entry.
+   *
+   * @param entry The cache entry.
+   */
+  public synchronized void put(CacheEntry entry)
+  {
+	try
+	{
+	  DataOutputStream out = getOutput();
+	  if(out != null)
+	  {
+		out.writeByte(PUT);
+		writeEntry(out, entry);
+		written();
+	  }
+	}
+	catch(IOException e)
+	{
+	  failed();
+	}
+  }
+
+  /**
+   * Record that an entry has been removed.
+   *
+   * @param uri The URI of the entry.
+   */
+  public synchronized void remove(String uri)
+  {
+	try
+	{
+	  DataOutputStream out = getOutput();
+	  if(out != null)
+	  {
+		out.writeByte(REMOVE);
+		out.writeUTF(uri);
+		written();
+	  }
+	}
+	catch(IOException e)
+	{
+	  failed();
+	}
+  }
+
+  /**
+   * Record that an entry has been accessed.
+   *
+   * @param uri The URI of the entry.
+   * @param lastAccessed The time that the entry was accessed.
+   */
+  public synchronized void access(String uri, long lastAccessed)
+  {
+	try
+	{
+	  DataOutputStream out = getOutput();
+	  if(out != null)
+	  {
+		out.writeByte(ACCESS);
+		out.writeUTF(uri);
+		out.writeLong(lastAccessed);
+		written();
+	  }
+	}
+	catch(IOException e)
+	{
+	  failed();
+	}
+  }
+
+  /**
+   * Record that all the entries have been removed.
+   */
+  public synchronized void clear()
+  {
+	try
+	{
+	  DataOutputStream out = getOutput();
+	  if(out != null)
+	  {
+		out.writeByte(CLEAR);
+		written();
+	  }
+	}
+	catch(IOException e)
+	{
+	  failed();
+	}
+  }
+
+  /**
+   * Determine if the index has grown enough that it should be compacted.
+   *
+   * @param numEntries The number of entries in the cache.
+   * @return True if the index should be compacted, false otherwise.
+   */
+  public synchronized boolean needsCompaction(int numEntries)
+  {
+	return records > numEntries + COMPACT_THRESHOLD;
+  }
+
+  /**
+   * Rewrite the index so that it only contains the given entries. If the
+   * index can not be rewritten, the old index is kept.
+   *
+   * @param entries The cache entries.
+   * @return True if the index was rewritten, false otherwise.
+   */
+  public synchronized boolean compact(Collection entries)
+  {
+	close(out);
+	out = null;
+	File tempFile = new File(file.getPath() + ".tmp");
+	DataOutputStream tempOut = null;
+	boolean success = false;
+	try
+	{
+	  tempOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+	  tempOut.writeInt(MAGIC);
+	  tempOut.writeInt(VERSION);
+	  Iterator iter = entries.iterator();
+	  while(iter.hasNext())
+	  {
+		tempOut.writeByte(PUT);
+		writeEntry(tempOut, (CacheEntry)iter.next());
+	  }
+	  tempOut.close();
+	  tempOut = null;
+	  success = replace(tempFile);
+	}
+	catch(IOException e)
+	{
+	  // Handled below.
+	}
+	finally
+	{
+	  close(tempOut);
+	}
+	if(success)
+	{
+	  records = entries.size();
+	  broken = false;
+	}
+	else
+	{
+	  tempFile.delete();
+	  System.out.println("Unable to write the internet cache index.");
+	}
+	return success;
+  }
+
+  /**
+   * Replace the index file with the given file. The old index is renamed to
+   * the backup first, and is put back if the new file can not be renamed.
+   *
+   * @param newFile The new index file.
+   * @return True if the index file was replaced, false otherwise.
+   */
+  private boolean replace(File newFile)
+  {
+	backupFile.delete();
+	if(file.exists() && !file.renameTo(backupFile))
+	{
+	  return false;
+	}
+	if(!newFile.renameTo(file))
+	{
+	  backupFile.renameTo(file);
+	  return false;
+	}
+	backupFile.delete();
+	return true;
+  }
+
+  /**
+   * Close the index file.
+   */
+  public synchronized void close()
+  {
+	close(out);
+	out = null;
+  }
+
+  private DataOutputStream getOutput() throws IOException
+  {
+	if(broken)
+	{
+	  return null;
+	}
+	if(out == null)
+	{
+	  boolean exists = file.exists();
+	  out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+	  if(!exists)
+	  {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	  }
+	}
+	return out;
+  }
+
+  private void written() throws IOException
+  {
+	out.flush();
+	records++;
+  }
+
+  private void failed()
+  {
+	close(out);
+	out = null;
+	broken = true;
+	System.out.println("Unable to update the internet cache index.");
+  }
+
+  private static void writeEntry(DataOutputStream out, CacheEntry entry) throws IOException
+  {
+	out.writeUTF(entry.getURI());
+	out.writeUTF(entry.getLocalFile());
+	out.writeLong(entry.getLastModified());
+	out.writeLong(entry.getExpirationTime());
+	String etag = entry.getETag();
+	out.writeBoolean(etag != null);
+	if(etag != null)
+	{
+	  out.writeUTF(etag);
+	}
+	out.writeLong(entry.getSize());
+	out.writeLong(entry.getLastAccessed());
+  }
+
+  private static CacheEntry readEntry(DataInputStream in) throws IOException
+  {
+	String uri = in.readUTF();
+	String location = in.readUTF();
+	long lastModified = in.readLong();
+	long expirationTime = in.readLong();
+	String etag = in.readBoolean() ? in.readUTF() : null;
+	CacheEntry entry = new CacheEntry(uri, location, lastModified, expirationTime, etag);
+	entry.setSize(in.readLong());
+	entry.setLastAccessed(in.readLong());
+	return entry;
+  }
+
+  private static void close(InputStream in)
+  {
+	if(in != null)
+	{
+	  try
+	  {
+		in.close();
+	  }
+	  catch(IOException e)
+	  {
+		// Do nothing if the stream cannot be closed.
+	  }
+	}
+  }
+
+  private static void close(OutputStream out)
+  {
+	if(out != null)
+	{
+	  try
+	  {
+		out.close();
+	  }
+	  catch(IOException e)
+	  {
+		// Do nothing if the stream cannot be closed.
+	  }
+	}
+  }
+}
@@ -11,7 +11,9 @@
 
 package org.eclipse.wst.internet.cache.internal;
 
-import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -19,13 +21,19 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
 /**
- * A cache job runs once an hour to cache any prespecified resources which
- * should be cached and any resources for which an attempt was previously 
- * made to cache them but they were unable to be cached.
+ * A cache job caches any prespecified resources which should be cached and
+ * any resources for which an attempt was previously made to cache them but
+ * they were unable to be cached. An uncached resource is only retried once
+ * its time to live has passed, and the job schedules itself to run again when
+ * the next one may be retried. The resources are cached in parallel by a
+ * CacheFetcher.
  */
 public class CacheJob extends Job
 {
-  private static final long SCHEDULE_TIME = 3600000;
+  /**
+   * The job is not rescheduled to run again sooner than 1 minute.
+   */
+  private static final long MINIMUM_DELAY = 60000;
 
   private static CacheJob job = null;
   /**
@@ -41,54 +49,70 @@ public class CacheJob extends Job
    */
   protected IStatus run(IProgressMonitor monitor)
   {
-	boolean allSuccessful = true;
     Cache cache = Cache.getInstance();
-    String[] uncachedURIs = cache.getUncachedURIs();
-    int numUncachedURIs = uncachedURIs.length;
-
-    cache.clearUncachedURIs();
-    monitor.beginTask(CacheMessages._UI_CACHE_MONITOR_NAME, numUncachedURIs);
+    if(cache == null || (CachePlugin.isRunning() && CachePlugin.getDefault().isOffline()))
+    {
+      finished(this, -1);
+      return Status.OK_STATUS;
+    }
+    // The uncached URIs whose time to live has not passed yet are left for a later run.
+    String[] uris = addResourcesToCache(cache, cache.getRetryableURIs());
+    monitor.beginTask(CacheMessages._UI_CACHE_MONITOR_NAME, uris.length);
     try
     {
-      for(int i = 0; i < numUncachedURIs; i++)
+      CacheFetcher fetcher = new CacheFetcher(uris);
+      fetcher.fetch(monitor);
+      if (monitor.isCanceled())
       {
-        if (monitor.isCanceled())
-        {
-          for(int j = i; j < numUncachedURIs; j++)
-          {
-            cache.addUncachedURI(uncachedURIs[j]);
-          }
-          return Status.CANCEL_STATUS;
-        }
-        String uri = uncachedURIs[i];
-        monitor.setTaskName(MessageFormat.format(CacheMessages._UI_CACHE_MONITOR_CACHING, new Object[]{uri}));
-       
-        String cachedURI = cache.getResource(uri);
-        if(cachedURI == null)
-    	{
-    	  allSuccessful = false;
-    	}
-        monitor.worked(1);
+        return Status.CANCEL_STATUS;
       }
       monitor.done();
       return Status.OK_STATUS;
     } 
     finally
     {
-      // If all the uncached URIs could not be cached 
-      // schedule the next time the job should run.
-      if(!allSuccessful)
-      {
-    	  startJob(SCHEDULE_TIME); 
-      }
+      // Schedule the next time the job should run, which is when
+      // the next uncached URI may be retried.
+      finished(this, cache.getNextRetryTime());
     }
   }
   
+  /**
+   * Add the resources that have been specified for caching, that are not cached
+   * yet, and whose licenses have already been agreed to, to the list of uncached
+   * URIs. Resources whose licenses have not been agreed to are left until they
+   * are requested, so that the user can be prompted.
+   * 
+   * @param cache The cache.
+   * @param uncachedURIs The uncached URIs.
+   * @return The URIs to cache.
+   */
+  private String[] addResourcesToCache(Cache cache, String[] uncachedURIs)
+  {
+	Set uris = new LinkedHashSet(Arrays.asList(uncachedURIs));
+	ToCacheRegistryReader reader = ToCacheRegistryReader.getInstance();
+	LicenseRegistry licenseRegistry = LicenseRegistry.getInstance();
+	String[] toCache = reader.getURIsToCache();
+	for(int i = 0; i < toCache.length; i++)
+	{
+	  if(cache.isCached(toCache[i]) || cache.isUncached(toCache[i]))
+	  {
+		continue;
+	  }
+	  String license = reader.getResourceToCache(toCache[i]).getLicense();
+	  if(license == null || licenseRegistry.getLicenseState(license) == LicenseRegistry.LICENSE_AGREE)
+	  {
+		uris.add(toCache[i]);
+	  }
+	}
+	return (String[])uris.toArray(new String[uris.size()]);
+  }
+  
   /**
    * Start the cache job. The cache job caches resources that were not able to be previously
    * downloaded. Only one job is run at a time.
    */
-  protected static void startJob() 
+  protected static synchronized void startJob() 
   {
 	if(job == null)
 	{
@@ -96,13 +120,37 @@ public class CacheJob extends Job
 	}
   }
   
+  /**
+   * Schedule the next run of the cache job, unless the job has been stopped
+   * or replaced while it was running.
+   * 
+   * @param finishedJob The job that has finished.
+   * @param nextRetryTime The time at which the job should run again, or -1
+   *                      if there is nothing to retry.
+   */
+  private static synchronized void finished(CacheJob finishedJob, long nextRetryTime)
+  {
+	if(job != finishedJob)
+	{
+	  return;
+	}
+	if(nextRetryTime == -1)
+	{
+	  job = null;
+	}
+	else
+	{
+	  startJob(Math.max(MINIMUM_DELAY, nextRetryTime - System.currentTimeMillis()));
+	}
+  }
+  
   /**
    * Start a new cache job with the specified delay.
    * 
    * @param delay
    * 		The start delay for the cache job.
    */
-  private static void startJob(long delay)
+  private static synchronized void startJob(long delay)
   {
 	job = new CacheJob();
 	job.setPriority(CacheJob.DECORATE);
@@ -113,7 +161,7 @@ public class CacheJob extends Job
    * Stop the current cache job. The cache job caches resources that were not able to be previously
    * downloaded.
    */
-  protected static void stopJob() 
+  protected static synchronized void stopJob() 
   {
 	if (job != null) 
 	{
@@ -139,6 +139,36 @@ public class CachePlugin extends AbstractUIPlugin
 	return true;
   }
   
+  /**
+   * Set whether or not the cache is working offline. When the cache is working
+   * offline remote resources are never retrieved, and only the resources that
+   * are already cached are used.
+   * 
+   * @param offline If true the cache is working offline, if false it is not.
+   */
+  public void setOffline(boolean offline) 
+  {
+	getPluginPreferences().setValue(PreferenceConstants.OFFLINE, offline);
+	if(offline)
+	{
+	  CacheJob.stopJob();
+	}
+	else
+	{
+	  CacheJob.startJob();
+	}
+  }
+
+  /**
+   * Returns true if the cache is working offline, false otherwise.
+   * 
+   * @return True if the cache is working offline, false otherwise.
+   */
+  public boolean isOffline() 
+  {
+	return getPluginPreferences().getBoolean(PreferenceConstants.OFFLINE);
+  }
+  
   static boolean isRunning() {
 	  return plugin != null;
   }
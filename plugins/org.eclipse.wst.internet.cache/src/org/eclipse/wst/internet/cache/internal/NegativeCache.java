@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.internet.cache.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The negative cache holds the URIs of resources that the cache was not able
+ * to retrieve. A URI is not retried until its time to live has passed, so that
+ * every resolution of an unreachable resource does not have to wait for the
+ * connection to time out. Each time a URI fails again its time to live is
+ * doubled, up to a maximum. The number of URIs that are remembered is limited,
+ * and when the limit is reached the least recently failed URI is forgotten.
+ */
+public class NegativeCache
+{
+  /**
+   * The time to live after the first failure is 1 minute.
+   */
+  private static final long INITIAL_TTL = 60000;
+
+  /**
+   * The longest time to live is 1 day.
+   */
+  private static final long MAX_TTL = 86400000;
+
+  /**
+   * The largest number of URIs that are remembered.
+   */
+  private static final int MAX_ENTRIES = 1000;
+
+  /**
+   * The failures, keyed by URI, in the order that they last failed. The map is
+   * kept in insertion order, so looking a URI up does not move it, and failed
+   * re-inserts a URI each time that it fails again. Guarded by this.
+   */
+  private final Map failures = new LinkedHashMap(16, 0.75f, false)
+  {
+	private static final long serialVersionUID = 1L;
+
+	protected boolean removeEldestEntry(Map.Entry eldest)
+	{
+	  return size() > MAX_ENTRIES;
+	}
+  };
+
+  /**
+   * Determine if a URI should not be retrieved yet.
+   *
+   * @param uri The URI.
+   * @return True if the URI failed and its time to live has not passed, false otherwise.
+   */
+  public synchronized boolean isBlocked(String uri)
+  {
+	Failure failure = (Failure)failures.get(uri);
+	return failure != null && System.currentTimeMillis() < failure.retryTime;
+  }
+
+  /**
+   * Record that a URI could not be retrieved.
+   *
+   * @param uri The URI.
+   */
+  public synchronized void failed(String uri)
+  {
+	Failure failure = (Failure)failures.remove(uri);
+	if(failure == null)
+	{
+	  failure = new Failure();
+	  failure.ttl = INITIAL_TTL;
+	}
+	else
+	{
+	  failure.ttl = Math.min(failure.ttl * 2, MAX_TTL);
+	}
+	failure.retryTime = System.currentTimeMillis() + failure.ttl;
+	failures.put(uri, failure);
+  }
+
+  /**
+   * Record that a URI has been retrieved.
+   *
+   * @param uri The URI.
+   */
+  public synchronized void succeeded(String uri)
+  {
+	failures.remove(uri);
+  }
+
+  /**
+   * Get all of the URIs that have failed.
+   *
+   * @return The URIs that have failed.
+   */
+  public synchronized String[] getURIs()
+  {
+	return (String[])failures.keySet().toArray(new String[failures.size()]);
+  }
+
+  /**
+   * Get the URIs whose time to live has passed, so that they may be retried.
+   *
+   * @return The URIs that may be retried.
+   */
+  public synchronized String[] getRetryableURIs()
+  {
+	long now = System.currentTimeMillis();
+	List result = new ArrayList();
+	Iterator iter = failures.entrySet().iterator();
+	while(iter.hasNext())
+	{
+	  Map.Entry entry = (Map.Entry)iter.next();
+	  if(((Failure)entry.getValue()).retryTime <= now)
+	  {
+		result.add(entry.getKey());
+	  }
+	}
+	return (String[])result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Get the earliest time at which a URI may be retried.
+   *
+   * @return The earliest retry time, or -1 if no URIs have failed.
+   */
+  public synchronized long getNextRetryTime()
+  {
+	long next = -1;
+	Iterator iter = failures.values().iterator();
+	while(iter.hasNext())
+	{
+	  long retryTime = ((Failure)iter.next()).retryTime;
+	  if(next == -1 || retryTime < next)
+	  {
+		next = retryTime;
+	  }
+	}
+	return next;
+  }
+
+  /**
+   * Forget all of the failures.
+   */
+  public synchronized void clear()
+  {
+	failures.clear();
+  }
+
+  private static class Failure
+  {
+	long ttl;
+	long retryTime;
+  }
+}
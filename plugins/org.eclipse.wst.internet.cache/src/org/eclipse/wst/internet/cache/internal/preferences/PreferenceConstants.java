@@ -19,5 +19,25 @@ public class PreferenceConstants
   public static final String CACHE_ENABLED = "cacheEnabled";
   
   public static final String PROMPT_DISAGREED_LICENSES = "promptDisagreedLicenses";
+  
+  /**
+   * Whether the cache is working offline, in which case remote resources are
+   * never retrieved and only the resources that are already cached are used.
+   */
+  public static final String OFFLINE = "offline";
+  
+  /**
+   * The largest number of megabytes that the cached resources may use.
+   */
+  public static final String CACHE_MAX_SIZE = "cacheMaxSize";
+  
+  /**
+   * The largest number of resources that may be cached.
+   */
+  public static final String CACHE_MAX_ENTRIES = "cacheMaxEntries";
+  
+  public static final int DEFAULT_CACHE_MAX_SIZE = 100;
+  
+  public static final int DEFAULT_CACHE_MAX_ENTRIES = 10000;
 	
 }
@@ -29,5 +29,8 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer
 	IPreferenceStore store = CachePlugin.getDefault().getPreferenceStore();
     store.setDefault(PreferenceConstants.CACHE_ENABLED, true);
     store.setDefault(PreferenceConstants.PROMPT_DISAGREED_LICENSES, false);
+    store.setDefault(PreferenceConstants.OFFLINE, false);
+    store.setDefault(PreferenceConstants.CACHE_MAX_SIZE, PreferenceConstants.DEFAULT_CACHE_MAX_SIZE);
+    store.setDefault(PreferenceConstants.CACHE_MAX_ENTRIES, PreferenceConstants.DEFAULT_CACHE_MAX_ENTRIES);
   }
 }
@@ -11,142 +11,347 @@
 package org.eclipse.wst.validation.internal;
 
 
-import java.util.Vector;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
 
 
 /**
  * This class manages (queue, invoke, etc.) the Runnables that perform the validation for a
  * particular validator.
+ * <p>
+ * The Runnables are run on a bounded pool of threads, whose size comes from the parallelism preference.
+ * Every Runnable is queued with a serialization key, and the Runnables that share a key are run one after
+ * another, in the order that they were queued. Runnables with different keys can run at the same time.
+ * Runnables that are queued without a key all share the same key, so they keep the original behavior of
+ * being run one at a time.
+ * </p>
  */
 public class VThreadManager {
-	private static VThreadManager _manager = null;
-	private static final int MAX_NUM_OF_RESTART = 5; // the maximum number of times that the thread
-	// should attempt to ignore a Throwable and
-	// carry on
 
-	private Thread _validationThread = null; // This thread checks if the current Runnable is
-	// finished, and if so, loads the first Runnable off of
-	// the queue and starts it.
-	volatile int restart = 0; // how many times has the thread been restarted?
-	volatile Jobs _jobs = null;
+	/** The key of the Runnables that were queued without one. */
+	private static final Object DefaultKey = new Object();
+
+	/** Has the manager been created? */
+	private static volatile boolean _created;
+
+	private final ThreadPoolExecutor _executor;
+
+	/** The Runnables that are waiting to be run, by serialization key. Guarded by itself. */
+	private final Map<Object, Lane> _lanes = new HashMap<Object, Lane>(20);
+
+	/** The number of Runnables that have been queued, but that have not finished or been cancelled. */
+	private final AtomicInteger _outstanding = new AtomicInteger();
+
+	private final AtomicInteger _queueDepth = new AtomicInteger();
+	private final AtomicInteger _maxQueueDepth = new AtomicInteger();
+	private final AtomicLong _completed = new AtomicLong();
+	private final AtomicLong _cancelled = new AtomicLong();
+	private final AtomicLong _totalWaitTime = new AtomicLong();
+	private final AtomicLong _maxWaitTime = new AtomicLong();
 
 	private VThreadManager() {
-		_jobs = new Jobs();
-
-		// Start the validation thread to check for queued ValidationOperation
-		Runnable validationRunnable = new Runnable() {
-			public void run() {
-				while (true) {
-					try {
-						if (restart > MAX_NUM_OF_RESTART) {
-							// something has gone seriously, seriously wrong
-							String message = "restart = " + restart; //$NON-NLS-1$
-							ValidationPlugin.getPlugin().logMessage(IStatus.ERROR, message);
-							break;
-						}
+		int size = getParallelism();
+		_executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(), new ValidationThreadFactory());
+		_created = true;
+	}
 
-						Runnable job = getJobs().dequeue(); // If currentRunnable is null, there's
-						// nothing on the queue. Shouldn't
-						// happen with a semaphore.
-						if (job != null) {
-							getJobs().setActive(true);
-							job.run();
-							getJobs().setActive(false);
-						}
-					} catch (Exception e) {
-						restart++;
-						getJobs().setActive(false);
-						ValidationPlugin.getPlugin().handleException(e);
-					} finally {
-						//do nothing
-					}
-				}
-			}
-		};
+	private static int getParallelism(){
+		return Math.max(1, ValManager.getDefault().getGlobalPreferences().getParallelism());
+	}
 
-		_validationThread = new Thread(validationRunnable, "ValidationThread"); //$NON-NLS-1$
-		_validationThread.start();
+	/**
+	 * Resize the pool of threads if the parallelism preference has changed.
+	 */
+	private synchronized void adjustPoolSize(){
+		int size = getParallelism();
+		if (_executor.getMaximumPoolSize() < size){
+			_executor.setMaximumPoolSize(size);
+			_executor.setCorePoolSize(size);
+		}
+		else if (_executor.getMaximumPoolSize() > size){
+			_executor.setCorePoolSize(size);
+			_executor.setMaximumPoolSize(size);
+		}
 	}
 
 	public static VThreadManager getManager() {
-		if (_manager == null) {
-			_manager = new VThreadManager();
+		return Singleton.manager;
+	}
+
+	/**
+	 * Queue a Runnable. It is run after all the other Runnables that were queued without a key.
+	 */
+	public void queue(Runnable runnable) {
+		queue(DefaultKey, runnable);
+	}
+
+	/**
+	 * Queue a Runnable, that must be run after the other Runnables of the same project.
+	 */
+	public void queue(IProject project, Runnable runnable) {
+		queue(project == null ? DefaultKey : project, runnable);
+	}
+
+	/**
+	 * Queue a Runnable.
+	 *
+	 * @param key the serialization key. The Runnables that have equal keys are run one at a time, in the order
+	 * that they were queued.
+	 * @param runnable the work to do.
+	 */
+	public void queue(Object key, Runnable runnable) {
+		Task task = new Task(runnable);
+		_outstanding.incrementAndGet();
+		int depth = _queueDepth.incrementAndGet();
+		updateMax(_maxQueueDepth, depth);
+
+		boolean start = false;
+		Lane lane;
+		synchronized(_lanes){
+			lane = _lanes.get(key);
+			if (lane == null){
+				lane = new Lane(key);
+				_lanes.put(key, lane);
+				start = true;
+			}
+			lane._tasks.add(task);
+		}
+		if (start){
+			adjustPoolSize();
+			_executor.execute(lane);
 		}
-		return _manager;
 	}
 
-	Jobs getJobs() {
-		return _jobs;
+	/**
+	 * Remove the Runnables with this key that have not started yet.
+	 *
+	 * @return the number of Runnables that were removed.
+	 */
+	public int cancel(Object key) {
+		synchronized(_lanes){
+			Lane lane = _lanes.get(key);
+			if (lane == null)return 0;
+			int count = lane._tasks.size();
+			lane._tasks.clear();
+			cancelled(count);
+			return count;
+		}
 	}
 
-	public void queue(Runnable runnable) {
-		getJobs().queue(runnable);
+	/**
+	 * Remove all the Runnables that have not started yet.
+	 *
+	 * @return the number of Runnables that were removed.
+	 */
+	public int cancelAll() {
+		int count = 0;
+		synchronized(_lanes){
+			for (Lane lane : _lanes.values()){
+				count += lane._tasks.size();
+				lane._tasks.clear();
+			}
+		}
+		cancelled(count);
+		return count;
+	}
+
+	private void cancelled(int count){
+		if (count == 0)return;
+		_queueDepth.addAndGet(-count);
+		_cancelled.addAndGet(count);
+		_outstanding.addAndGet(-count);
 	}
 
 	/**
 	 * Return true if all of the Runnables have been run.
 	 */
 	public boolean isDone() {
-		return getJobs().isDone();
+		return _outstanding.get() == 0;
+	}
+
+	/**
+	 * Answer the number of Runnables that are waiting to be run.
+	 */
+	public int getQueueDepth() {
+		return _queueDepth.get();
 	}
 
-	private class Jobs {
-		private Vector<Runnable> _queuedJobs; // The queued Runnables that need to be run.
-		private boolean _isActive; // Is a job being run in the validation thread?
+	/**
+	 * Answer the largest number of Runnables that have been waiting to be run at the same time.
+	 */
+	public int getMaxQueueDepth() {
+		return _maxQueueDepth.get();
+	}
 
-		public Jobs() {
-			_queuedJobs = new Vector<Runnable>();
+	/**
+	 * Answer the number of Runnables that are being run.
+	 */
+	public int getActiveCount() {
+		return _executor.getActiveCount();
+	}
+
+	/**
+	 * Answer the number of Runnables that have been run, including the ones that failed.
+	 */
+	public long getCompletedCount() {
+		return _completed.get();
+	}
+
+	/**
+	 * Answer the number of Runnables that were cancelled before they were run.
+	 */
+	public long getCancelledCount() {
+		return _cancelled.get();
+	}
+
+	/**
+	 * Answer the average time in milliseconds that a Runnable waited between being queued and being run.
+	 */
+	public long getAverageWaitTime() {
+		long completed = _completed.get();
+		if (completed == 0)return 0;
+		return _totalWaitTime.get() / completed;
+	}
+
+	/**
+	 * Answer the longest time in milliseconds that a Runnable waited between being queued and being run.
+	 */
+	public long getMaxWaitTime() {
+		return _maxWaitTime.get();
+	}
+
+	/**
+	 * Stop the validation threads. The Runnables that have not started are not run. This is called when the
+	 * plug-in is stopped.
+	 */
+	public static void shutdown() {
+		if (_created){
+			getManager().cancelAll();
+			getManager()._executor.shutdownNow();
 		}
+	}
+
+	private static void updateMax(AtomicInteger max, int value){
+		int current = max.get();
+		while (value > current && !max.compareAndSet(current, value))current = max.get();
+	}
+
+	private static void updateMax(AtomicLong max, long value){
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value))current = max.get();
+	}
 
-		public synchronized void queue(Runnable runnable) {
-			// If there is a thread running already, then it must finish before another validation
-			// thread is launched, or the validation messages could reflect the last thread
-			// finished,
-			// instead of the last state of changes.
+	/**
+	 * The Runnables of one serialization key. A lane is handed to the executor when its first Runnable is
+	 * queued, and it stays with the same thread until it has run out of Runnables.
+	 */
+	private final class Lane implements Runnable {
+		private final Object _key;
+		private final LinkedList<Task> _tasks = new LinkedList<Task>();
 
-			// Have to wait for the current Runnable to finish, so add this to the end of the queue
-			_queuedJobs.add(runnable);
-			notifyAll();
+		Lane(Object key){
+			_key = key;
 		}
 
+		public void run() {
+			boolean done = false;
+			try {
+				while (true){
+					Task task;
+					synchronized(_lanes){
+						task = _tasks.poll();
+						if (task == null){
+							_lanes.remove(_key);
+							done = true;
+							return;
+						}
+					}
+					task.run();
+				}
+			}
+			finally {
+				// an Error escaped from a task, the lane must not be left in _lanes without a thread
+				if (!done)restart();
+			}
+		}
+		
 		/**
-		 * Pop the Runnable off of the head of the queue.
+		 * Hand the rest of the Runnables to another thread, or remove the lane if there are none.
 		 */
-		synchronized Runnable dequeue() {
-			while (_queuedJobs.size() == 0) {
-				try {
-					wait();
-				} catch (InterruptedException exc) {
-					//Ignore
+		private void restart(){
+			synchronized(_lanes){
+				if (_tasks.isEmpty()){
+					_lanes.remove(_key);
+					return;
 				}
-			} // Block on the semaphore; break when a job has been added to the queue.
-
-			Runnable job = null;
-			if (_queuedJobs.size() > 0) {
-				job = _queuedJobs.get(0);
-				if (job != null) {
-					_queuedJobs.remove(0);
+			}
+			try {
+				_executor.execute(this);
+			}
+			catch (RejectedExecutionException e){
+				synchronized(_lanes){
+					_lanes.remove(_key);
+					cancelled(_tasks.size());
+					_tasks.clear();
 				}
 			}
-			return job;
 		}
+	}
+
+	private final class Task implements Runnable {
+		private final Runnable _runnable;
+		private final long _queued = System.currentTimeMillis();
 
-		public synchronized boolean isActive() {
-			return _isActive;
+		Task(Runnable runnable){
+			_runnable = runnable;
 		}
 
-		public synchronized void setActive(boolean active) {
-			_isActive = active;
+		public void run() {
+			_queueDepth.decrementAndGet();
+			long wait = System.currentTimeMillis() - _queued;
+			_totalWaitTime.addAndGet(wait);
+			updateMax(_maxWaitTime, wait);
+			try {
+				_runnable.run();
+			}
+			catch (Exception e){
+				ValidationPlugin.getPlugin().handleException(e);
+			}
+			finally {
+				_completed.incrementAndGet();
+				_outstanding.decrementAndGet();
+			}
 		}
+	}
 
-		/**
-		 * Return true if all of the Runnables have been run.
-		 */
-		public synchronized boolean isDone() {
-			return ((_queuedJobs.size() == 0) && !isActive());
+	private final static class ValidationThreadFactory implements ThreadFactory {
+
+		private int _count;
+
+		public synchronized Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ValidationThread " + (++_count)); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
 		}
 	}
+
+	/**
+	 * Store the singleton for the VThreadManager. This approach is used to avoid having to synchronize the
+	 * VThreadManager.getManager() method.
+	 */
+	private static class Singleton {
+		static VThreadManager manager = new VThreadManager();
+	}
 }
@@ -12,6 +12,7 @@ package org.eclipse.wst.validation.internal.plugin;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ISaveParticipant;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -22,11 +23,15 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.eclipse.wst.validation.ValidationFramework;
-import org.eclipse.wst.validation.internal.DependencyIndex;
+import org.eclipse.wst.validation.internal.ContentTypeCache;
 import org.eclipse.wst.validation.internal.EventManager;
 import org.eclipse.wst.validation.internal.ProjectUnavailableError;
 import org.eclipse.wst.validation.internal.ResourceUnavailableError;
 import org.eclipse.wst.validation.internal.Tracing;
+import org.eclipse.wst.validation.internal.VThreadManager;
+import org.eclipse.wst.validation.internal.ValFanOut;
+import org.eclipse.wst.validation.internal.ValPropertyStore;
+import org.eclipse.wst.validation.internal.ValSaveParticipant;
 import org.eclipse.wst.validation.internal.core.Message;
 import org.eclipse.wst.validation.internal.provisional.core.IMessage;
 import org.osgi.framework.Bundle;
@@ -100,9 +105,12 @@ public class ValidationPlugin extends Plugin {
 			IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE | 
 			IResourceChangeEvent.POST_BUILD | IResourceChangeEvent.PRE_BUILD | IResourceChangeEvent.POST_CHANGE);
 
-		DependencyIndex di = (DependencyIndex)ValidationFramework.getDefault().getDependencyIndex();
+		ValSaveParticipant sp = ValSaveParticipant.getDefault();
+		sp.add((ISaveParticipant)ValidationFramework.getDefault().getDependencyIndex());
+		sp.add(ContentTypeCache.getDefault());
+		sp.add(ValPropertyStore.getDefault());
 		IWorkspace ws = ResourcesPlugin.getWorkspace();
-		ws.addSaveParticipant(this, di);
+		ws.addSaveParticipant(this, sp);
 //		ws.addResourceChangeListener(ValOperationManager.getDefault(), 
 //			IResourceChangeEvent.POST_BUILD | IResourceChangeEvent.PRE_BUILD);
 
@@ -112,6 +120,8 @@ public class ValidationPlugin extends Plugin {
 		super.stop(context);
 		ResourcesPlugin.getWorkspace().removeResourceChangeListener( EventManager.getManager() );		
 		ValidationFramework.getDefault().cancel();
+		ValFanOut.shutdown();
+		VThreadManager.shutdown();
 //		ResourcesPlugin.getWorkspace().removeResourceChangeListener( ValOperationManager.getDefault() );		
 		EventManager.getManager().shutdown();
 	}
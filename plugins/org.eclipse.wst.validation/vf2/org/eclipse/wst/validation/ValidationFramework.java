@@ -35,13 +35,13 @@ import org.eclipse.wst.validation.Validator.V1;
 import org.eclipse.wst.validation.internal.ConfigurationManager;
 import org.eclipse.wst.validation.internal.ContentTypeWrapper;
 import org.eclipse.wst.validation.internal.DebugConstants;
-import org.eclipse.wst.validation.internal.DependencyIndex;
 import org.eclipse.wst.validation.internal.DisabledResourceManager;
 import org.eclipse.wst.validation.internal.DisabledValidatorManager;
 import org.eclipse.wst.validation.internal.GlobalConfiguration;
 import org.eclipse.wst.validation.internal.MarkerManager;
 import org.eclipse.wst.validation.internal.Misc;
 import org.eclipse.wst.validation.internal.PerformanceMonitor;
+import org.eclipse.wst.validation.internal.PersistentDependencyIndex;
 import org.eclipse.wst.validation.internal.ProjectUnavailableError;
 import org.eclipse.wst.validation.internal.ValManager;
 import org.eclipse.wst.validation.internal.ValOperation;
@@ -151,7 +151,7 @@ public final class ValidationFramework {
 		// note how the _dependencyIndex is volatile so that this double checking approach can be used.
 		if (_dependencyIndex == null){
 			synchronized(this){
-				if (_dependencyIndex == null)_dependencyIndex = new DependencyIndex();
+				if (_dependencyIndex == null)_dependencyIndex = new PersistentDependencyIndex();
 			}
 		}
 		return _dependencyIndex;
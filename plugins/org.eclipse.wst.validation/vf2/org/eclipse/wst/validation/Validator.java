@@ -94,6 +94,12 @@ public abstract class Validator implements Comparable<Validator> {
 	 */
 	private String		_sourceId;
 	
+	/** Can this validator be run on several projects at the same time? */
+	private boolean		_threadSafe = true;
+	
+	/** Can this validator validate several resources of the same project at the same time? */
+	private boolean		_reentrant;
+	
 	protected boolean 	_manualValidation = true;
 	
 	/** An optional customized marker id for this validator. */
@@ -203,6 +209,8 @@ public abstract class Validator implements Comparable<Validator> {
 		_markerId = v._markerId;
 		_messageSettings = v._messageSettings;
 		_sourceId = v._sourceId;
+		_threadSafe = v._threadSafe;
+		_reentrant = v._reentrant;
 		_version = v._version;
 		_migrated = v._migrated;
 		
@@ -715,6 +723,15 @@ public static class V1 extends Validator {
 		return _vmd.isActive();
 	}
 	
+	/**
+	 * The version 1 validators predate the parallel scheduling of validation, so they are
+	 * never assumed to be thread safe.
+	 */
+	@Override
+	public boolean isThreadSafe() {
+		return false;
+	}
+	
 	@Override
 	public boolean setBuildValidation(boolean buildValidation) {
 		boolean changed = super.setBuildValidation(buildValidation);
@@ -1188,7 +1205,7 @@ public final static class V2 extends Validator implements IAdaptable {
 //			if (sanityTest(msgs.length, resource)){
 				MarkerManager mm = MarkerManager.getDefault();
 				for (ValidatorMessage m : msgs){
-					mm.createMarker(m, getId());
+					mm.createMarker(m, getId(), operation);
 				}
 //			}
 //			else {
@@ -1283,8 +1300,15 @@ public final static class V2 extends Validator implements IAdaptable {
 		if (project == null)_pendingValidationStarted.set(true);
 		else {
 			AbstractValidator val = getDelegatedValidator();
-			if (_pendingValidationStarted.getAndSet(false)){
-				val.validationStarting(null, state, monitor);
+			if (_pendingValidationStarted.get()){
+				// several projects may be starting at the same time, and none of them may proceed until the
+				// null project has been started.
+				synchronized(_pendingValidationStarted){
+					if (_pendingValidationStarted.get()){
+						val.validationStarting(null, state, monitor);
+						_pendingValidationStarted.set(false);
+					}
+				}
 			}
 			val.validationStarting(project, state, monitor);
 		}
@@ -1344,6 +1368,30 @@ public void setSourceId(String sourceId) {
 }
 
 
+/**
+ * Answer true if this validator can be run on several projects at the same time. Validators that are not
+ * thread safe are serialized by the framework when projects are being validated in parallel.
+ */
+public boolean isThreadSafe() {
+	return _threadSafe;
+}
+
+public void setThreadSafe(boolean threadSafe) {
+	_threadSafe = threadSafe;
+}
+
+/**
+ * Answer true if this validator can validate several resources of the same project at the same time.
+ * Only reentrant validators have their resources fanned out to the validation threads.
+ */
+public boolean isReentrant() {
+	return _reentrant;
+}
+
+public void setReentrant(boolean reentrant) {
+	_reentrant = reentrant;
+}
+
 void setMessages(Map<String, MessageSeveritySetting> map) {
 	_messageSettings = map;
 	bumpChangeCountMessages();
@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.core.runtime.content.IContentTypeManager;
+import org.eclipse.core.runtime.content.IContentTypeManager.ContentTypeChangeEvent;
+import org.eclipse.core.runtime.content.IContentTypeManager.IContentTypeChangeListener;
+import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
+
+/**
+ * Remember the content types of the files in the workspace, so that a file that hasn't changed doesn't
+ * need to be read again to determine its content type. This is used by the ContentTypeWrapper.
+ * <p>
+ * The content types are keyed by the full path of the file, and an entry is only used if the file still
+ * has the same modification stamp. The cache is saved in the plug-in's state location, along with a
+ * signature of the content types that were defined when it was saved. If the content types have changed,
+ * either while running or between sessions, the cache is thrown away.
+ * </p>
+ * <p>
+ * The format of the file is:
+ * <pre>
+ * Version number
+ * Signature of the content types
+ * Number of content type ids
+ *   content type id
+ * Number of entries
+ *   full path, modification stamp, index of the content type id (or -1 if the file has no content type)
+ * </pre>
+ * </p>
+ */
+public final class ContentTypeCache implements ISaveParticipant, IContentTypeChangeListener {
+
+	/** Answered by get() when the file doesn't have a content type. */
+	public static final String NoContentType = ""; //$NON-NLS-1$
+
+	private static final int CurrentVersion = 1;
+
+	/** The key is the full path of the file, in portable form. */
+	private final ConcurrentMap<String, Entry> _entries = new ConcurrentHashMap<String, Entry>(1000);
+
+	private volatile boolean	_loaded;
+	private volatile boolean	_dirty;
+
+	public static ContentTypeCache getDefault(){
+		return Singleton.contentTypeCache;
+	}
+
+	private ContentTypeCache(){
+		Platform.getContentTypeManager().addContentTypeChangeListener(this);
+	}
+
+	/**
+	 * Answer the content type id of the file.
+	 *
+	 * @param file the file whose content type is needed.
+	 * @param stamp the current modification stamp of the file.
+	 *
+	 * @return null if the content type of the file at this modification stamp isn't known, or NoContentType
+	 * if it is known that the file doesn't have a content type.
+	 */
+	public String get(IFile file, long stamp){
+		if (stamp == IResource.NULL_STAMP)return null;
+		init();
+		Entry entry = _entries.get(file.getFullPath().toPortableString());
+		if (entry == null || entry.stamp != stamp)return null;
+		return entry.contentTypeId;
+	}
+
+	/**
+	 * Remember the content type of the file.
+	 *
+	 * @param file the file.
+	 * @param stamp the modification stamp of the file when the content type was determined.
+	 * @param type the content type. It can be null if the file doesn't have a content type.
+	 */
+	public void put(IFile file, long stamp, IContentType type){
+		if (stamp == IResource.NULL_STAMP)return;
+		init();
+		String id = type == null ? NoContentType : type.getId();
+		_entries.put(file.getFullPath().toPortableString(), new Entry(stamp, id));
+		_dirty = true;
+	}
+
+	public void contentTypeChanged(ContentTypeChangeEvent event) {
+		_entries.clear();
+		_dirty = true;
+	}
+
+	public void doneSaving(ISaveContext context) {
+	}
+
+	public void prepareToSave(ISaveContext context) throws CoreException {
+	}
+
+	public void rollback(ISaveContext context) {
+	}
+
+	public void saving(ISaveContext context) throws CoreException {
+		if (!_loaded || !_dirty)return;
+		if (context.getKind() == ISaveContext.FULL_SAVE)prune();
+		_dirty = false;
+		File f = getLocation();
+		File temp = new File(f.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		boolean error = false;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			write(out);
+		}
+		catch (IOException e){
+			error = true;
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		finally {
+			Misc.close(out);
+		}
+		if (!error && f.exists() && !f.delete())error = true;
+		if (error || !temp.renameTo(f)){
+			temp.delete();
+			_dirty = true;
+		}
+	}
+
+	private void write(DataOutputStream out) throws IOException {
+		out.writeInt(CurrentVersion);
+		out.writeLong(getSignature());
+
+		Map<String, Integer> types = new HashMap<String, Integer>(50);
+		List<String> typeList = new ArrayList<String>(50);
+		List<Map.Entry<String, Entry>> entries = new ArrayList<Map.Entry<String, Entry>>(_entries.entrySet());
+		for (Map.Entry<String, Entry> me : entries){
+			String id = me.getValue().contentTypeId;
+			if (id.length() > 0 && !types.containsKey(id)){
+				types.put(id, typeList.size());
+				typeList.add(id);
+			}
+		}
+		out.writeInt(typeList.size());
+		for (String id : typeList)out.writeUTF(id);
+
+		out.writeInt(entries.size());
+		for (Map.Entry<String, Entry> me : entries){
+			Entry entry = me.getValue();
+			out.writeUTF(me.getKey());
+			out.writeLong(entry.stamp);
+			out.writeInt(entry.contentTypeId.length() == 0 ? -1 : types.get(entry.contentTypeId));
+		}
+	}
+
+	/**
+	 * Drop the entries for the files that no longer exist.
+	 */
+	private void prune(){
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (Iterator<String> it = _entries.keySet().iterator(); it.hasNext();){
+			if (root.findMember(it.next()) == null)it.remove();
+		}
+	}
+
+	private void init(){
+		if (!_loaded)load();
+	}
+
+	private synchronized void load(){
+		if (_loaded)return;
+		File f = getLocation();
+		if (f.exists()){
+			DataInputStream in = null;
+			try {
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+				read(in);
+			}
+			catch (IOException e){
+				_entries.clear();
+				Tracing.log("ContentTypeCache-01: Unable to read the content type cache: " + e); //$NON-NLS-1$
+			}
+			finally {
+				Misc.close(in);
+			}
+		}
+		_loaded = true;
+	}
+
+	private void read(DataInputStream in) throws IOException {
+		if (in.readInt() != CurrentVersion)return;
+		if (in.readLong() != getSignature())return;
+
+		int numTypes = in.readInt();
+		String[] types = new String[numTypes];
+		for (int i=0; i<numTypes; i++)types[i] = in.readUTF();
+
+		int numEntries = in.readInt();
+		for (int i=0; i<numEntries; i++){
+			String path = in.readUTF();
+			long stamp = in.readLong();
+			int type = in.readInt();
+			_entries.put(path, new Entry(stamp, type < 0 ? NoContentType : types[type]));
+		}
+	}
+
+	/**
+	 * Answer a signature of the content types that are currently defined, including the file names and
+	 * extensions that they have been associated with.
+	 */
+	static long getSignature(){
+		IContentTypeManager ctm = Platform.getContentTypeManager();
+		IContentType[] types = ctm.getAllContentTypes();
+		long h = types.length;
+		for (IContentType type : types){
+			long th = type.getId().hashCode();
+			IContentType base = type.getBaseType();
+			if (base != null)th = 31*th + base.getId().hashCode();
+			String[] specs = type.getFileSpecs(IContentType.FILE_EXTENSION_SPEC | IContentType.FILE_NAME_SPEC);
+			for (String spec : specs)th = 31*th + spec.hashCode();
+			// the order of the content types is not defined, so combine them in a way that doesn't depend on it
+			h += th * 0x9E3779B97F4A7C15L;
+		}
+		return h;
+	}
+
+	private static File getLocation(){
+		IPath path = ValidationPlugin.getPlugin().getStateLocation().append("contentTypes.cache"); //$NON-NLS-1$
+		return path.toFile();
+	}
+
+	private final static class Entry {
+		final long		stamp;
+		final String	contentTypeId;
+
+		Entry(long stamp, String contentTypeId){
+			this.stamp = stamp;
+			this.contentTypeId = contentTypeId;
+		}
+	}
+
+	/**
+	 * Store the singleton for the ContentTypeCache. This approach is used to avoid having to synchronize the
+	 * ContentTypeCache.getDefault() method.
+	 */
+	private static class Singleton {
+		static ContentTypeCache contentTypeCache = new ContentTypeCache();
+	}
+
+}
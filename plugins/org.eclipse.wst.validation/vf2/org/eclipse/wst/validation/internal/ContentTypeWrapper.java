@@ -13,13 +13,16 @@ package org.eclipse.wst.validation.internal;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.content.IContentDescription;
 import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
 
 /**
  * Since it can be expense to determine a content type, we provide a wrapper so that we only
- * need to get it once, as we validate a resource.
+ * need to get it once, as we validate a resource. The content types are also remembered across
+ * validations, and sessions, in the ContentTypeCache, so that a file is only read again once it
+ * has changed.
  * @author karasiuk
  *
  */
@@ -31,6 +34,19 @@ public class ContentTypeWrapper {
 	public IContentType getContentType(IFile file){
 		if (_initialized)return _type;
 		
+		ContentTypeCache cache = ContentTypeCache.getDefault();
+		long stamp = file.getModificationStamp();
+		String id = cache.get(file, stamp);
+		if (id != null){
+			IContentType type = null;
+			if (id.length() > 0)type = Platform.getContentTypeManager().getContentType(id);
+			if (type != null || id.length() == 0){
+				_type = type;
+				_initialized = true;
+				return _type;
+			}
+		}
+		
 		IContentDescription cd = null;
 		try {
 			cd = file.getContentDescription();
@@ -42,11 +58,16 @@ public class ContentTypeWrapper {
 			}
 			catch (CoreException e2){
 				if (Tracing.isLogging())ValidationPlugin.getPlugin().handleException(e2);
+				return null;
 			}
 		}
-		if (cd == null)return null;
+		if (cd == null){
+			cache.put(file, stamp, null);
+			return null;
+		}
 		_type = cd.getContentType();
 		_initialized = true;
+		cache.put(file, stamp, _type);
 		return _type;
 	}
 
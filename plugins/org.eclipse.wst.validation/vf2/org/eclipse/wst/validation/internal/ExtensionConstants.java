@@ -46,6 +46,19 @@ public interface ExtensionConstants {
 	 */
 	String sourceId = "sourceid"; //$NON-NLS-1$
 	
+	/** 
+	 * threadSafe - can the validator be run on several projects at the same time? true or false. This is an 
+	 * optional attribute, and if it is not supplied it is assumed to be true. Validators that keep per 
+	 * project state in instance fields should set this to false, so that the framework serializes them.
+	 */
+	String threadSafe = "threadSafe"; //$NON-NLS-1$
+	
+	/**
+	 * reentrant - can the validator validate several resources of the same project at the same time? true or
+	 * false. This is an optional attribute, and if it is not supplied it is assumed to be false.
+	 */
+	String reentrant = "reentrant"; //$NON-NLS-1$
+	
 	/** 
 	 * version - the version of this definition. The attribute is a simple integer, and if not specified it
 	 * is assumed to be 1. This allows the filter settings to be changed in the future.
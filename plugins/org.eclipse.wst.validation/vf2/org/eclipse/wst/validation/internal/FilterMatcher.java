@@ -0,0 +1,480 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.wst.validation.Friend;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.model.FilterGroup;
+import org.eclipse.wst.validation.internal.model.FilterRule;
+
+/**
+ * The filters of all the validators of a project, compiled so that the validators that apply to a resource
+ * can be found in a single pass over the resource.
+ * <p>
+ * The project level rules (natures, facets and target runtimes), and the build and manual settings, are
+ * evaluated once, when the matcher is created. The remaining resource level rules are shared between all
+ * the validators, so that a rule that several validators use is only evaluated once. File extensions are
+ * looked up in a map, and the file, folder and full path rules are looked up by walking a prefix tree. The
+ * content type of a file is only determined if the answer still depends on it after the other rules have
+ * been evaluated.
+ * </p>
+ * <p>
+ * A matcher answers the same thing as calling Friend.shouldValidate() on each validator, and it is only
+ * valid for the configuration that it was created for. Version 1 validators, and any rules that the matcher
+ * doesn't know how to compile, are still checked one at a time.
+ * </p>
+ */
+public final class FilterMatcher {
+
+	private static final String PortableFileDelim = "/"; //$NON-NLS-1$
+
+	private final Validator[]	_validators;
+	private final int			_configNumber;
+	private final ValType		_valType;
+	private final IProject		_project;
+
+	/** A hash of everything that the answers of this matcher depend on, apart from the resource itself. */
+	private final long			_signature;
+
+	/** The version 2 validators that apply to every resource that isn't derived. */
+	private final BitSet		_always = new BitSet();
+
+	/** The version 2 validators that depend on the resource level rules. */
+	private final List<Condition>	_conditions = new LinkedList<Condition>();
+
+	/** The validators that need to be checked one at a time. */
+	private final List<Validator>	_interpreted = new ArrayList<Validator>();
+	private final List<Integer>		_interpretedBits = new ArrayList<Integer>();
+
+	/** The rules that have been compiled, the key is a description of the rule. */
+	private final Map<String, Integer>	_ruleIds = new HashMap<String, Integer>(50);
+
+	private final Map<String, BitSet>	_extensions = new HashMap<String, BitSet>(20);
+	private final Map<String, BitSet>	_extensionsIgnoreCase = new HashMap<String, BitSet>(20);
+
+	/** The prefix trees for the file rules, indexed by file type, and then by case sensitivity. */
+	private final PrefixTree[][]		_prefixes = new PrefixTree[4][2];
+
+	private final List<FilterRule.FilePattern>	_patterns = new ArrayList<FilterRule.FilePattern>();
+	private final List<Integer>					_patternIds = new ArrayList<Integer>();
+
+	private final List<FilterRule.ContentType>	_contentTypes = new ArrayList<FilterRule.ContentType>();
+	private final List<Integer>					_contentTypeIds = new ArrayList<Integer>();
+
+	/** The content type rules that match a content type, the key is the content type id. */
+	private final ConcurrentMap<String, BitSet>	_contentTypeMatches = new ConcurrentHashMap<String, BitSet>(20);
+
+	/**
+	 * Compile the filters.
+	 *
+	 * @param project the project whose validators are being compiled.
+	 * @param validators the validators that are in effect for the project.
+	 * @param indexes the bit for each of the validators.
+	 * @param valType the type of validation.
+	 * @param configNumber the configuration that the validators came from.
+	 */
+	public FilterMatcher(IProject project, Validator[] validators, int[] indexes, ValType valType, int configNumber){
+		_project = project;
+		_validators = validators;
+		_valType = valType;
+		_configNumber = configNumber;
+
+		StringBuffer description = new StringBuffer(1000);
+		for (int i=0; i<validators.length; i++){
+			Validator val = validators[i];
+			description.append(val.getId()).append(';');
+			if (!ValidatorProjectManager.get().shouldValidate(val, project, valType))continue;
+			if (valType == ValType.Build && !val.isBuildValidation())continue;
+			if (valType == ValType.Manual && !val.isManualValidation())continue;
+
+			Validator.V2 v2 = val.asV2Validator();
+			if (v2 == null || !compile(v2, indexes[i], description)){
+				_interpreted.add(val);
+				_interpretedBits.add(indexes[i]);
+				description.append('I');
+			}
+		}
+		_signature = hash(description);
+	}
+
+	/**
+	 * Answer a signature of the compiled filters. Two matchers with the same signature give the same answer
+	 * for a resource, except for the validators that are checked one at a time.
+	 * <p>
+	 * Unlike the configuration number, the signature can be compared with one from an earlier session.
+	 * </p>
+	 */
+	public long getSignature(){
+		return _signature;
+	}
+
+	/**
+	 * A 64 bit FNV-1a hash.
+	 */
+	private static long hash(CharSequence s){
+		long h = 0xcbf29ce484222325L;
+		for (int i=0; i<s.length(); i++){
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	/**
+	 * Answer true if this matcher was compiled from these validators, in this configuration.
+	 */
+	public boolean isCurrent(Validator[] validators, int configNumber){
+		return _validators == validators && _configNumber == configNumber;
+	}
+
+	/**
+	 * Add the validator's filters. A validator that can never apply to a resource in this project is
+	 * compiled to nothing.
+	 *
+	 * @return false if the validator has a rule that can't be compiled.
+	 */
+	private boolean compile(Validator.V2 v2, int bit, StringBuffer description){
+		List<BitSet> include = new LinkedList<BitSet>();
+		List<BitSet> exclude = new LinkedList<BitSet>();
+		List<Boolean> includeCT = new LinkedList<Boolean>();
+		List<Boolean> excludeCT = new LinkedList<Boolean>();
+
+		for (FilterGroup group : v2.getGroups()){
+			description.append(group.isExclude() ? 'x' : 'i').append(group.hashCodeForConfig());
+			FilterRule[] rules = group.getRules();
+			boolean projectMatched = false;
+			boolean hasContentType = false;
+			List<FilterRule> resourceRules = new LinkedList<FilterRule>();
+			for (FilterRule rule : rules){
+				if (isResourceRule(rule)){
+					resourceRules.add(rule);
+					if (rule instanceof FilterRule.ContentType)hasContentType = true;
+				}
+				else if (isProjectRule(rule)){
+					Boolean match = rule.matchesProject(_project);
+					if (match != null && match)projectMatched = true;
+				}
+				else return false;
+			}
+			description.append(projectMatched ? 'm' : 'n');
+
+			if (group.isExclude()){
+				// the project is excluded, so none of its resources are validated
+				if (projectMatched)return true;
+				if (resourceRules.isEmpty())continue;
+				exclude.add(addRules(resourceRules));
+				excludeCT.add(hasContentType);
+			}
+			else if (group.isInclude()){
+				if (projectMatched || rules.length == 0)continue;
+				// the only rules are project rules, and none of them matched
+				if (resourceRules.isEmpty())return true;
+				include.add(addRules(resourceRules));
+				includeCT.add(hasContentType);
+			}
+			else return false;
+		}
+
+		if (include.isEmpty() && exclude.isEmpty())_always.set(bit);
+		else _conditions.add(new Condition(bit, include, includeCT, exclude, excludeCT));
+		return true;
+	}
+
+	private static boolean isResourceRule(FilterRule rule){
+		if (rule instanceof FilterRule.File){
+			int type = ((FilterRule.File)rule).getFileType();
+			return type >= FilterRule.File.FileTypeFile && type <= FilterRule.File.FileTypeFull;
+		}
+		return rule instanceof FilterRule.FileExt || rule instanceof FilterRule.FilePattern || 
+			rule instanceof FilterRule.ContentType;
+	}
+
+	private static boolean isProjectRule(FilterRule rule){
+		return rule instanceof FilterRule.ProjectNature || rule instanceof FilterRule.Facet ||
+			rule instanceof FilterRule.TargetRuntime;
+	}
+
+	/**
+	 * Add the rules to the lookup structures, and answer their ids.
+	 */
+	private BitSet addRules(List<FilterRule> rules){
+		BitSet ids = new BitSet();
+		for (FilterRule rule : rules)ids.set(addRule(rule));
+		return ids;
+	}
+
+	private int addRule(FilterRule rule){
+		String key = getKey(rule);
+		Integer id = _ruleIds.get(key);
+		if (id != null)return id;
+		id = _ruleIds.size();
+		_ruleIds.put(key, id);
+
+		if (rule instanceof FilterRule.FileExt){
+			FilterRule.FileExt ext = (FilterRule.FileExt)rule;
+			if (ext.isCaseSensitive())getOrCreate(_extensions, ext.getPattern()).set(id);
+			else getOrCreate(_extensionsIgnoreCase, ext.getPattern().toLowerCase()).set(id);
+		}
+		else if (rule instanceof FilterRule.File){
+			FilterRule.File file = (FilterRule.File)rule;
+			int caseIndex = file.isCaseSensitive() ? 1 : 0;
+			PrefixTree tree = _prefixes[file.getFileType()][caseIndex];
+			if (tree == null){
+				tree = new PrefixTree();
+				_prefixes[file.getFileType()][caseIndex] = tree;
+			}
+			String pattern = file.getPattern();
+			tree.add(file.isCaseSensitive() ? pattern : pattern.toLowerCase(), id);
+		}
+		else if (rule instanceof FilterRule.FilePattern){
+			_patterns.add((FilterRule.FilePattern)rule);
+			_patternIds.add(id);
+		}
+		else if (rule instanceof FilterRule.ContentType){
+			_contentTypes.add((FilterRule.ContentType)rule);
+			_contentTypeIds.add(id);
+		}
+		return id;
+	}
+
+	private static String getKey(FilterRule rule){
+		StringBuffer b = new StringBuffer(100);
+		b.append(rule.getType());
+		if (rule instanceof FilterRule.FilterRuleCaseSensitive){
+			b.append(((FilterRule.FilterRuleCaseSensitive)rule).isCaseSensitive() ? 'C' : 'c');
+		}
+		if (rule instanceof FilterRule.File)b.append(((FilterRule.File)rule).getFileType());
+		if (rule instanceof FilterRule.ContentType)b.append(((FilterRule.ContentType)rule).isExactMatch() ? 'E' : 'e');
+		b.append(':');
+		b.append(rule.getPattern());
+		return b.toString();
+	}
+
+	private static BitSet getOrCreate(Map<String, BitSet> map, String key){
+		BitSet bs = map.get(key);
+		if (bs == null){
+			bs = new BitSet();
+			map.put(key, bs);
+		}
+		return bs;
+	}
+
+	/**
+	 * Answer the validators that should validate the resource.
+	 *
+	 * @param resource the resource that is being validated. It must be in the project that the matcher was
+	 * compiled for.
+	 * @param contentTypeWrapper used to remember the content type of the resource.
+	 *
+	 * @return a new BitSet, that can be changed by the caller.
+	 */
+	public BitSet match(IResource resource, ContentTypeWrapper contentTypeWrapper){
+		BitSet result = new BitSet();
+		if (!resource.isDerived()){
+			result.or(_always);
+			if (!_conditions.isEmpty())matchConditions(resource, contentTypeWrapper, result);
+		}
+
+		matchInterpreted(resource, contentTypeWrapper, result);
+		return result;
+	}
+
+	/**
+	 * Update the answer for the validators that need to be checked one at a time. The answers for these
+	 * validators are not covered by the signature.
+	 *
+	 * @param result the validators that should validate the resource. The bits for the validators that are
+	 * checked one at a time are set or cleared.
+	 */
+	public void matchInterpreted(IResource resource, ContentTypeWrapper contentTypeWrapper, BitSet result){
+		int i = 0;
+		for (Integer bit : _interpretedBits){
+			Validator val = _interpreted.get(i++);
+			result.set(bit, Friend.shouldValidate(val, resource, _valType, contentTypeWrapper));
+		}
+	}
+
+	private void matchConditions(IResource resource, ContentTypeWrapper contentTypeWrapper, BitSet result){
+		BitSet matched = new BitSet(_ruleIds.size());
+
+		String ext = resource.getFileExtension();
+		if (ext != null){
+			BitSet bs = _extensions.get(ext);
+			if (bs != null)matched.or(bs);
+			bs = _extensionsIgnoreCase.get(ext.toLowerCase());
+			if (bs != null)matched.or(bs);
+		}
+
+		for (int type=FilterRule.File.FileTypeFile; type<=FilterRule.File.FileTypeFull; type++){
+			PrefixTree[] trees = _prefixes[type];
+			if (trees[0] == null && trees[1] == null)continue;
+			String name = getName(resource, type);
+			if (trees[1] != null)trees[1].match(name, matched);
+			if (trees[0] != null)trees[0].match(name.toLowerCase(), matched);
+		}
+
+		if (!_patterns.isEmpty()){
+			String name = PortableFileDelim + resource.getProjectRelativePath().toPortableString();
+			int i = 0;
+			for (Integer id : _patternIds){
+				if (_patterns.get(i++).matches(name))matched.set(id);
+			}
+		}
+
+		List<Condition> undecided = null;
+		for (Condition c : _conditions){
+			Boolean match = c.match(matched, false);
+			if (match == null){
+				if (undecided == null)undecided = new LinkedList<Condition>();
+				undecided.add(c);
+			}
+			else if (match)result.set(c.bit);
+		}
+		if (undecided == null)return;
+
+		if (resource instanceof IFile){
+			IContentType ct = contentTypeWrapper.getContentType((IFile)resource);
+			if (ct != null)matched.or(getContentTypeMatches(ct));
+		}
+		for (Condition c : undecided){
+			if (c.match(matched, true))result.set(c.bit);
+		}
+	}
+
+	/**
+	 * Answer the name that the file rules of this type match against.
+	 */
+	private static String getName(IResource resource, int type){
+		switch (type){
+		case FilterRule.File.FileTypeFile:
+			return resource.getName();
+		case FilterRule.File.FileTypeFolder:
+			return resource.getProjectRelativePath().removeLastSegments(1).toString() + PortableFileDelim;
+		default:
+			return resource.getProjectRelativePath().toPortableString();
+		}
+	}
+
+	/**
+	 * Answer the content type rules that match the content type.
+	 */
+	private BitSet getContentTypeMatches(IContentType ct){
+		BitSet bs = _contentTypeMatches.get(ct.getId());
+		if (bs != null)return bs;
+		bs = new BitSet();
+		int i = 0;
+		for (Integer id : _contentTypeIds){
+			FilterRule.ContentType rule = _contentTypes.get(i++);
+			IContentType type = rule.getContentType();
+			if (type == null)continue;
+			if (rule.isExactMatch() ? ct.getId().equals(type.getId()) : ct.isKindOf(type))bs.set(id);
+		}
+		_contentTypeMatches.put(ct.getId(), bs);
+		return bs;
+	}
+
+	/**
+	 * The resource level filter groups of a validator.
+	 */
+	private final static class Condition {
+		final int		bit;
+		final BitSet[]	include;
+		final boolean[]	includeCT;
+		final BitSet[]	exclude;
+		final boolean[]	excludeCT;
+
+		Condition(int bit, List<BitSet> include, List<Boolean> includeCT, List<BitSet> exclude, List<Boolean> excludeCT){
+			this.bit = bit;
+			this.include = include.toArray(new BitSet[include.size()]);
+			this.exclude = exclude.toArray(new BitSet[exclude.size()]);
+			this.includeCT = toArray(includeCT);
+			this.excludeCT = toArray(excludeCT);
+		}
+
+		private static boolean[] toArray(List<Boolean> list){
+			boolean[] result = new boolean[list.size()];
+			int i = 0;
+			for (Boolean b : list)result[i++] = b;
+			return result;
+		}
+
+		/**
+		 * @param matched the rules that have matched the resource.
+		 * @param knowContentType true if the content type rules are included in the matched rules.
+		 * @return null if the answer depends on the content type.
+		 */
+		Boolean match(BitSet matched, boolean knowContentType){
+			boolean undecided = false;
+			for (int i=0; i<exclude.length; i++){
+				if (exclude[i].intersects(matched))return Boolean.FALSE;
+				if (excludeCT[i] && !knowContentType)undecided = true;
+			}
+			for (int i=0; i<include.length; i++){
+				if (include[i].intersects(matched))continue;
+				if (includeCT[i] && !knowContentType)undecided = true;
+				else return Boolean.FALSE;
+			}
+			return undecided ? null : Boolean.TRUE;
+		}
+	}
+
+	/**
+	 * A tree of the prefixes of the file rules. Walking a name down the tree finds all the rules whose
+	 * pattern is a prefix of the name.
+	 */
+	private final static class PrefixTree {
+		private final Node _root = new Node();
+
+		void add(String prefix, int id){
+			Node node = _root;
+			for (int i=0; i<prefix.length(); i++){
+				Character c = prefix.charAt(i);
+				Node child = node.children.get(c);
+				if (child == null){
+					child = new Node();
+					node.children.put(c, child);
+				}
+				node = child;
+			}
+			if (node.ids == null)node.ids = new BitSet();
+			node.ids.set(id);
+		}
+
+		void match(String name, BitSet matched){
+			Node node = _root;
+			if (node.ids != null)matched.or(node.ids);
+			for (int i=0; i<name.length(); i++){
+				node = node.children.get(name.charAt(i));
+				if (node == null)return;
+				if (node.ids != null)matched.or(node.ids);
+			}
+		}
+
+		private final static class Node {
+			final Map<Character, Node> children = new HashMap<Character, Node>(4);
+			BitSet	ids;
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.ValidatorMessage;
+import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
+
+/**
+ * The marker changes that a validation operation has asked for, but that have not been made yet.
+ * <p>
+ * Every marker that is created or deleted is a separate workspace change, and on a large build the resulting
+ * stream of marker deltas can keep the UI busy. Instead the changes are collected here, and are made in a
+ * single workspace runnable when the batch is flushed, so that there is only one delta for all of them.
+ * The changes are made in the order that they were asked for.
+ * </p>
+ * <p>
+ * Changes can be added from any thread. The owner of the operation is responsible for flushing the batch,
+ * at the very least when the operation has finished.
+ * </p>
+ */
+public final class MarkerBatch {
+
+	/** Once there are this many changes, flushIfFull will make them. */
+	private static final int FlushThreshold = 1000;
+
+	private List<Change>	_changes = new ArrayList<Change>(100);
+
+	/** Make sure that one batch of changes is made before the next one is started. */
+	private final Object	_flushLock = new Object();
+
+	/**
+	 * Delete the validation markers on this resource that were created before the given time.
+	 *
+	 * @see MarkerManager#deleteMarkers(IResource, long, int)
+	 */
+	public void delete(final IResource resource, final long operationStartTime, final int depth){
+		add(new Change(){
+			public void apply() throws CoreException {
+				MarkerManager.getDefault().deleteMarkers(resource, operationStartTime, depth);
+			}
+		});
+	}
+
+	/**
+	 * Clear the markers on this resource that were created by this validator.
+	 *
+	 * @see MarkerManager#clearMarker(IResource, Validator)
+	 */
+	public void clear(final IResource resource, final Validator validator){
+		add(new Change(){
+			public void apply() throws CoreException {
+				MarkerManager.getDefault().clearMarker(resource, validator);
+			}
+		});
+	}
+
+	/**
+	 * Create a marker for the message.
+	 *
+	 * @see MarkerManager#createMarker(ValidatorMessage, String)
+	 */
+	public void create(final ValidatorMessage message, final String id){
+		add(new Change(){
+			public void apply() throws CoreException {
+				MarkerManager.getDefault().createMarker(message, id);
+			}
+		});
+	}
+
+	private synchronized void add(Change change){
+		_changes.add(change);
+	}
+
+	/**
+	 * Make the changes, but only if enough of them have been collected.
+	 */
+	public void flushIfFull(){
+		boolean full;
+		synchronized(this){
+			full = _changes.size() >= FlushThreshold;
+		}
+		if (full)flush();
+	}
+
+	/**
+	 * Make all the changes that have been collected so far, as a single workspace change.
+	 */
+	public void flush(){
+		synchronized(_flushLock){
+			final List<Change> changes;
+			synchronized(this){
+				if (_changes.isEmpty())return;
+				changes = _changes;
+				_changes = new ArrayList<Change>(100);
+			}
+
+			IWorkspaceRunnable runnable = new IWorkspaceRunnable(){
+				public void run(IProgressMonitor monitor) throws CoreException {
+					for (Change change : changes){
+						try {
+							change.apply();
+						}
+						catch (ResourceUnavailableError e){
+							// the resource has gone away since the change was asked for, so there is nothing to do
+						}
+						catch (ProjectUnavailableError e){
+							// the project has been closed or deleted since the change was asked for
+						}
+						catch (CoreException e){
+							ValidationPlugin.getPlugin().handleException(e);
+						}
+					}
+				}
+			};
+			try {
+				ResourcesPlugin.getWorkspace().run(runnable, null, IWorkspace.AVOID_UPDATE, null);
+			}
+			catch (CoreException e){
+				ValidationPlugin.getPlugin().handleException(e);
+			}
+		}
+	}
+
+	private interface Change {
+		void apply() throws CoreException;
+	}
+
+}
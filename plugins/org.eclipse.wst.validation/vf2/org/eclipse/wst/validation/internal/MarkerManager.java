@@ -10,10 +10,10 @@
  *******************************************************************************/
 package org.eclipse.wst.validation.internal;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
@@ -26,12 +26,18 @@ import org.eclipse.wst.validation.internal.provisional.core.IMessage;
 
 /**
  * A central place to manage all of the V2 validation markers.
+ * <p>
+ * The methods that take a ValOperation will add their change to the operation's MarkerBatch if it has
+ * one, so that all the marker changes for the operation are made together. Otherwise the change is made
+ * immediately.
+ * </p>
  * @author karasiuk
  *
  */
 public class MarkerManager {
 	
-	private Set<String> _markers = new HashSet<String>(50);
+	/** The marker types that are owned by the validation framework. */
+	private Set<String> _markers = new CopyOnWriteArraySet<String>();
 	
 	public static MarkerManager getDefault(){
 		return Singleton.markerManager;
@@ -74,6 +80,28 @@ public class MarkerManager {
 		}
 	}
 	
+	/**
+	 * Clear any validation markers that may have been set by this validator, as part of an operation.
+	 * 
+	 * @see #clearMarker(IResource, Validator)
+	 */
+	public void clearMarker(IResource resource, Validator validator, ValOperation operation) throws CoreException {
+		MarkerBatch batch = operation.getMarkerBatch();
+		if (batch == null)clearMarker(resource, validator);
+		else if (resource != null)batch.clear(resource, validator);
+	}
+	
+	/**
+	 * Create a marker for the message, as part of an operation.
+	 * 
+	 * @see #createMarker(ValidatorMessage, String)
+	 */
+	public void createMarker(ValidatorMessage m, String id, ValOperation operation){
+		MarkerBatch batch = operation.getMarkerBatch();
+		if (batch == null)createMarker(m, id);
+		else batch.create(m, id);
+	}
+	
 	@SuppressWarnings("unchecked")
 	public void createMarker(ValidatorMessage m, String id){
 		try {
@@ -111,18 +139,10 @@ public class MarkerManager {
 			if(!resource.exists())
 				return;
 
-			IMarker[] markers = resource.findMarkers(null, true, depth);
-			String markerType;
-			for (IMarker marker : markers){
-				try {
-					markerType = marker.getType();
-				}
-				catch (CoreException e)
-				{
-					//ignore the marker
-					return;
-				}
-				if (_markers.contains(markerType)){
+			// only look at the marker types that we own, rather than at every marker on the resource
+			for (String markerType : _markers){
+				IMarker[] markers = resource.findMarkers(markerType, false, depth);
+				for (IMarker marker : markers){
 					long createTime = marker.getCreationTime();
 					if (createTime < operationStartTime){
 						try {
@@ -143,6 +163,17 @@ public class MarkerManager {
 		}		
 	}
 	
+	/**
+	 * Delete all the markers on this resource that were created before the operation started.
+	 * 
+	 * @see #deleteMarkers(IResource, long, int)
+	 */
+	public void deleteMarkers(IResource resource, ValOperation operation, int depth){
+		MarkerBatch batch = operation.getMarkerBatch();
+		if (batch == null)deleteMarkers(resource, operation.getStarted(), depth);
+		else batch.delete(resource, operation.getStarted(), depth);
+	}
+	
 	public void makeMarkers(List<IMessage> list){
 		for (IMessage message : list){
 			IResource res = null;
@@ -15,22 +15,59 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.validation.IPerformanceMonitor;
 import org.eclipse.wst.validation.PerformanceCounters;
 import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
 
+/**
+ * The performance monitor for the validators.
+ * <p>
+ * While it is collecting, the monitor aggregates every counter that it is given: per validator totals and
+ * latency histograms, per content type totals, and the slowest validations. Adding a counter doesn't take
+ * a lock, and doesn't keep the counter (unless it is one of the slowest), so the monitor can be left on. 
+ * The aggregated information can be polled with getSnapshot().
+ * </p>
+ */
 public class PerformanceMonitor implements IPerformanceMonitor {
 	
-	private CollectionLevel _level = CollectionLevel.None;
+	/** The number of slowest validations that are kept. */
+	private static final int NumberSlowest = 50;
+	
+	/** Used in the content type cache for file extensions that don't have a content type. */
+	private static final String NoContentType = ""; //$NON-NLS-1$
+	
+	private volatile CollectionLevel _level = CollectionLevel.None;
 	private boolean			_summaryOnly;
 	
+	/** Should each counter also be written to the trace? */
+	private boolean			_trace;
+	
+	/** The key is the validator id. */
+	private final ConcurrentMap<String, ValidatorStats> _validators = new ConcurrentHashMap<String, ValidatorStats>(40);
+	
+	/** The key is the content type id, or NoContentType. */
+	private final ConcurrentMap<String, ContentTypeStats> _contentTypes = new ConcurrentHashMap<String, ContentTypeStats>(40);
+	
+	/** Maps a file extension to a content type id, so that the content type manager isn't asked every time. */
+	private final ConcurrentMap<String, String> _extensions = new ConcurrentHashMap<String, String>(40);
+	
+	private final Slowest	_slowest = new Slowest(NumberSlowest);
+	
 	/**
 	 * Create a performance monitor.
 	 * 
@@ -49,9 +86,16 @@ public class PerformanceMonitor implements IPerformanceMonitor {
 	public static PerformanceMonitor create(boolean traceTimes, String file, boolean logInSeconds){
 		PerformanceMonitor pm = null;
 		if (file == null || file.length() == 0)pm = new PerformanceMonitor();
-		else pm = new ToFile(file, logInSeconds);
+		else {
+			// every counter that is added goes to the file
+			pm = new ToFile(file, logInSeconds);
+			pm._trace = true;
+		}
 		
-		if (traceTimes)pm.setCollectionLevel(CollectionLevel.Default);
+		if (traceTimes){
+			pm._trace = true;
+			pm.setCollectionLevel(CollectionLevel.Default);
+		}
 		
 		return pm;
 	}
@@ -66,12 +110,49 @@ public class PerformanceMonitor implements IPerformanceMonitor {
 		_level = level;
 	}
 
+	/**
+	 * Answer a summary per validator, or if a summary wasn't asked for, the slowest validations. The
+	 * individual counters are not kept.
+	 */
 	public List<PerformanceCounters> getPerformanceCounters(boolean asSummary) {
-		return new LinkedList<PerformanceCounters>();
+		if (!asSummary)return _slowest.get();
+		List<PerformanceCounters> list = new LinkedList<PerformanceCounters>();
+		for (ValidatorStats vs : _validators.values()){
+			list.add(new PerformanceCounters(vs.id, vs.name, null, (int)vs.invocations.sum(), 
+				vs.elapsed.sum(), vs.getCpuTime()));
+		}
+		return list;
 	}
 
-
 	public void resetPerformanceCounters() {
+		_validators.clear();
+		_contentTypes.clear();
+		_slowest.clear();
+	}
+	
+	/**
+	 * Answer the performance information that has been aggregated so far. This is cheap enough to be
+	 * called every few seconds.
+	 */
+	public PerformanceSnapshot getSnapshot(){
+		List<PerformanceSnapshot.ValidatorSummary> validators = 
+			new ArrayList<PerformanceSnapshot.ValidatorSummary>(_validators.size());
+		for (ValidatorStats vs : _validators.values()){
+			validators.add(new PerformanceSnapshot.ValidatorSummary(vs.id, vs.name, vs.validations.sum(),
+				vs.invocations.sum(), vs.elapsed.sum(), vs.getCpuTime(), vs.elapsedHistogram.getPercentiles(),
+				vs.cpuHistogram.getPercentiles()));
+		}
+		
+		List<PerformanceSnapshot.ContentTypeSummary> types = 
+			new ArrayList<PerformanceSnapshot.ContentTypeSummary>(_contentTypes.size());
+		for (Map.Entry<String, ContentTypeStats> me : _contentTypes.entrySet()){
+			ContentTypeStats cs = me.getValue();
+			String id = me.getKey() == NoContentType ? null : me.getKey();
+			types.add(new PerformanceSnapshot.ContentTypeSummary(id, cs.validations.sum(), cs.elapsed.sum(),
+				cs.unknownCpu ? -1 : cs.cpu.sum()));
+		}
+		
+		return new PerformanceSnapshot(validators, types, _slowest.get());
 	}
 
 	public boolean isCollecting() {
@@ -83,9 +164,57 @@ public class PerformanceMonitor implements IPerformanceMonitor {
 	}
 	
 	public void add(PerformanceCounters counters){
+		aggregate(counters);
+		if (_trace)log(counters);
+	}
+	
+	/**
+	 * Write the counter out.
+	 */
+	protected void log(PerformanceCounters counters){
 		Tracing.write(counters.toString());
 	}
 	
+	private void aggregate(PerformanceCounters pc){
+		ValidatorStats vs = _validators.get(pc.getValidatorId());
+		if (vs == null){
+			ValidatorStats newStats = new ValidatorStats(pc.getValidatorId(), pc.getValidatorName());
+			vs = _validators.putIfAbsent(pc.getValidatorId(), newStats);
+			if (vs == null)vs = newStats;
+		}
+		vs.add(pc);
+		
+		String type = getContentType(pc.getResourceName());
+		ContentTypeStats cs = _contentTypes.get(type);
+		if (cs == null){
+			ContentTypeStats newStats = new ContentTypeStats();
+			cs = _contentTypes.putIfAbsent(type, newStats);
+			if (cs == null)cs = newStats;
+		}
+		cs.add(pc);
+		
+		_slowest.offer(pc);
+	}
+	
+	/**
+	 * Answer the content type of the resource, based only on its name so that the resource is never read.
+	 * 
+	 * @return NoContentType if the name doesn't have a content type.
+	 */
+	private String getContentType(String name){
+		if (name == null)return NoContentType;
+		int dot = name.lastIndexOf('.');
+		String ext = dot < 0 ? null : name.substring(dot+1);
+		if (ext != null){
+			String type = _extensions.get(ext);
+			if (type != null)return type;
+		}
+		IContentType ct = Platform.getContentTypeManager().findContentTypeFor(name);
+		String type = ct == null ? NoContentType : ct.getId();
+		if (ext != null)_extensions.put(ext, type);
+		return type;
+	}
+	
 	public static class Counters{
 		String	name;
 		int 	numberInvocations;
@@ -112,7 +241,7 @@ public class PerformanceMonitor implements IPerformanceMonitor {
 		}
 		
 		@Override
-		public synchronized void add(PerformanceCounters pc) {
+		protected synchronized void log(PerformanceCounters pc) {
 			try {
 				PrintWriter pw = getWriter();
 				pw.print(_df.format(pc.getWhen()) + Comma + 
@@ -151,14 +280,23 @@ public class PerformanceMonitor implements IPerformanceMonitor {
 		}
 	}
 	
+	/**
+	 * A monitor that keeps the counters themselves. Only the most recent MaxCounters counters are kept, so
+	 * that a monitor that is left on doesn't grow without bound.
+	 */
 	public static class Collecting extends PerformanceMonitor {
-		private List<PerformanceCounters>	_counters = new LinkedList<PerformanceCounters>();
 		
-		public void add(PerformanceCounters counters){
+		/** The number of counters that are kept. */
+		private static final int MaxCounters = 10000;
+		
+		private LinkedList<PerformanceCounters>	_counters = new LinkedList<PerformanceCounters>();
+		
+		public synchronized void add(PerformanceCounters counters){
+			if (_counters.size() == MaxCounters)_counters.removeFirst();
 			_counters.add(counters);
 		}
 		
-		public List<PerformanceCounters> getPerformanceCounters(boolean asSummary) {
+		public synchronized List<PerformanceCounters> getPerformanceCounters(boolean asSummary) {
 			if (asSummary){
 				Map<String, Counters> map = new HashMap<String, Counters>(40);
 				for (PerformanceCounters pc : _counters){
@@ -180,13 +318,206 @@ public class PerformanceMonitor implements IPerformanceMonitor {
 				}
 				return list;
 			}
-			return _counters;
+			return new LinkedList<PerformanceCounters>(_counters);
 		}
 		
-		public void resetPerformanceCounters() {
+		public synchronized void resetPerformanceCounters() {
 			_counters.clear();
 		}
 
 	}
+	
+	/**
+	 * A counter that many threads can add to without contending with each other. Each thread adds to
+	 * one of several cells, and the cells are summed when the counter is read.
+	 */
+	private final static class StripedCounter {
+		private static final int Stripes = 16;
+		
+		/** Only every eighth cell is used, so that the stripes are on different cache lines. */
+		private static final int Spacing = 8;
+		
+		private final AtomicLongArray _cells = new AtomicLongArray(Stripes*Spacing);
+		
+		public void add(long value){
+			int stripe = (int)Thread.currentThread().getId() & (Stripes-1);
+			_cells.addAndGet(stripe*Spacing, value);
+		}
+		
+		public long sum(){
+			long sum = 0;
+			for (int i=0; i<Stripes; i++)sum += _cells.get(i*Spacing);
+			return sum;
+		}
+	}
+	
+	/**
+	 * A histogram of non negative values. The buckets are spaced logarithmically, with eight buckets for
+	 * each power of two, so any value is within 12.5% of the upper bound of its bucket.
+	 */
+	private final static class Histogram {
+		private static final int SubBits = 3;
+		private static final int SubBuckets = 1 << SubBits;
+		private static final int NumberBuckets = (64 - SubBits + 1) * SubBuckets;
+		
+		private final AtomicLongArray _buckets = new AtomicLongArray(NumberBuckets);
+		
+		public void add(long value){
+			if (value < 0)return;
+			_buckets.incrementAndGet(bucket(value));
+		}
+		
+		/**
+		 * Answer the 50th, 95th and 99th percentiles. They are all 0 if nothing has been added.
+		 */
+		public long[] getPercentiles(){
+			long[] counts = new long[NumberBuckets];
+			long total = 0;
+			for (int i=0; i<NumberBuckets; i++){
+				counts[i] = _buckets.get(i);
+				total += counts[i];
+			}
+			long[] result = new long[3];
+			if (total == 0)return result;
+			
+			long[] wanted = {(total*50+99)/100, (total*95+99)/100, (total*99+99)/100};
+			long seen = 0;
+			int next = 0;
+			for (int i=0; i<NumberBuckets && next < wanted.length; i++){
+				seen += counts[i];
+				while (next < wanted.length && seen >= wanted[next])result[next++] = upperBound(i);
+			}
+			return result;
+		}
+		
+		private static int bucket(long value){
+			if (value < SubBuckets)return (int)value;
+			int exp = 63 - Long.numberOfLeadingZeros(value);
+			int sub = (int)(value >>> (exp - SubBits)) & (SubBuckets-1);
+			return (exp - SubBits + 1) * SubBuckets + sub;
+		}
+		
+		private static long upperBound(int bucket){
+			if (bucket < SubBuckets)return bucket;
+			int exp = bucket / SubBuckets + SubBits - 1;
+			long sub = bucket % SubBuckets;
+			long width = 1L << (exp - SubBits);
+			return ((SubBuckets + sub) << (exp - SubBits)) + width - 1;
+		}
+	}
+	
+	private final static class ValidatorStats {
+		final String			id;
+		final String			name;
+		final StripedCounter	validations = new StripedCounter();
+		final StripedCounter	invocations = new StripedCounter();
+		final StripedCounter	elapsed = new StripedCounter();
+		final StripedCounter	cpu = new StripedCounter();
+		final Histogram			elapsedHistogram = new Histogram();
+		final Histogram			cpuHistogram = new Histogram();
+		
+		/** Set once any of the counters didn't know its CPU time. */
+		volatile boolean		unknownCpu;
+		
+		ValidatorStats(String id, String name){
+			this.id = id;
+			this.name = name;
+		}
+		
+		void add(PerformanceCounters pc){
+			validations.add(1);
+			invocations.add(pc.getNumberInvocations());
+			elapsed.add(pc.getElapsedTime());
+			elapsedHistogram.add(pc.getElapsedTime());
+			if (pc.getCpuTime() == -1)unknownCpu = true;
+			else {
+				cpu.add(pc.getCpuTime());
+				cpuHistogram.add(pc.getCpuTime());
+			}
+		}
+		
+		long getCpuTime(){
+			return unknownCpu ? -1 : cpu.sum();
+		}
+	}
+	
+	private final static class ContentTypeStats {
+		final StripedCounter	validations = new StripedCounter();
+		final StripedCounter	elapsed = new StripedCounter();
+		final StripedCounter	cpu = new StripedCounter();
+		volatile boolean		unknownCpu;
+		
+		void add(PerformanceCounters pc){
+			validations.add(1);
+			elapsed.add(pc.getElapsedTime());
+			if (pc.getCpuTime() == -1)unknownCpu = true;
+			else cpu.add(pc.getCpuTime());
+		}
+	}
+	
+	/**
+	 * The slowest validations. Most validations are faster than the fastest one that is being kept, and
+	 * they are rejected with a single volatile read, the lock is only taken for the rest.
+	 */
+	private final static class Slowest {
+		private final PerformanceCounters[]	_entries;
+		private int							_size;
+		
+		/** Validations that are not slower than this are not kept. */
+		private volatile long				_threshold = -1;
+		
+		Slowest(int size){
+			_entries = new PerformanceCounters[size];
+		}
+		
+		void offer(PerformanceCounters pc){
+			if (pc.getElapsedTime() <= _threshold)return;
+			synchronized(this){
+				if (_size < _entries.length){
+					_entries[_size++] = pc;
+					if (_size == _entries.length)_threshold = findFastest().getElapsedTime();
+					return;
+				}
+				PerformanceCounters fastest = findFastest();
+				if (pc.getElapsedTime() <= fastest.getElapsedTime())return;
+				for (int i=0; i<_size; i++){
+					if (_entries[i] == fastest){
+						_entries[i] = pc;
+						break;
+					}
+				}
+				_threshold = findFastest().getElapsedTime();
+			}
+		}
+		
+		private PerformanceCounters findFastest(){
+			PerformanceCounters fastest = _entries[0];
+			for (int i=1; i<_size; i++){
+				if (_entries[i].getElapsedTime() < fastest.getElapsedTime())fastest = _entries[i];
+			}
+			return fastest;
+		}
+		
+		/**
+		 * Answer the slowest validations, slowest first.
+		 */
+		synchronized List<PerformanceCounters> get(){
+			PerformanceCounters[] entries = new PerformanceCounters[_size];
+			System.arraycopy(_entries, 0, entries, 0, _size);
+			Arrays.sort(entries, new Comparator<PerformanceCounters>(){
+				public int compare(PerformanceCounters pc1, PerformanceCounters pc2) {
+					if (pc1.getElapsedTime() == pc2.getElapsedTime())return 0;
+					return pc1.getElapsedTime() > pc2.getElapsedTime() ? -1 : 1;
+				}
+			});
+			return new LinkedList<PerformanceCounters>(Arrays.asList(entries));
+		}
+		
+		synchronized void clear(){
+			Arrays.fill(_entries, null);
+			_size = 0;
+			_threshold = -1;
+		}
+	}
 
 }
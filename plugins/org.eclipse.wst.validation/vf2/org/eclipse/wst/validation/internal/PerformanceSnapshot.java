@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.wst.validation.PerformanceCounters;
+
+/**
+ * The performance information that a PerformanceMonitor has aggregated, at a point in time. This object is
+ * immutable.
+ * <p>
+ * Elapsed times are in milliseconds and CPU times are in nanoseconds. A CPU time of -1 means that it could not
+ * be determined. The percentiles come from histograms whose buckets are within 12.5% of each other, so they
+ * are estimates.
+ * </p>
+ */
+public final class PerformanceSnapshot {
+
+	private final long						_when;
+	private final List<ValidatorSummary>	_validators;
+	private final List<ContentTypeSummary>	_contentTypes;
+	private final List<PerformanceCounters>	_slowest;
+
+	PerformanceSnapshot(List<ValidatorSummary> validators, List<ContentTypeSummary> contentTypes,
+		List<PerformanceCounters> slowest){
+		_when = System.currentTimeMillis();
+		_validators = Collections.unmodifiableList(validators);
+		_contentTypes = Collections.unmodifiableList(contentTypes);
+		_slowest = Collections.unmodifiableList(slowest);
+	}
+
+	/**
+	 * Answer when the snapshot was taken.
+	 *
+	 * @see System#currentTimeMillis()
+	 */
+	public long getWhen() {
+		return _when;
+	}
+
+	/**
+	 * Answer a summary for each of the validators that has been called.
+	 */
+	public List<ValidatorSummary> getValidators() {
+		return _validators;
+	}
+
+	/**
+	 * Answer a summary for each of the content types that has been validated. Resources that don't have a
+	 * content type are summarized under a null content type id.
+	 */
+	public List<ContentTypeSummary> getContentTypes() {
+		return _contentTypes;
+	}
+
+	/**
+	 * Answer the slowest validations, slowest first.
+	 */
+	public List<PerformanceCounters> getSlowest() {
+		return _slowest;
+	}
+
+	public final static class ValidatorSummary {
+		private final String	_validatorId;
+		private final String	_validatorName;
+		private final long		_validations;
+		private final long		_numberInvocations;
+		private final long		_elapsedTime;
+		private final long		_cpuTime;
+		private final long[]	_elapsedPercentiles;
+		private final long[]	_cpuPercentiles;
+
+		ValidatorSummary(String validatorId, String validatorName, long validations, long numberInvocations,
+			long elapsedTime, long cpuTime, long[] elapsedPercentiles, long[] cpuPercentiles){
+			_validatorId = validatorId;
+			_validatorName = validatorName;
+			_validations = validations;
+			_numberInvocations = numberInvocations;
+			_elapsedTime = elapsedTime;
+			_cpuTime = cpuTime;
+			_elapsedPercentiles = elapsedPercentiles;
+			_cpuPercentiles = cpuPercentiles;
+		}
+
+		public String getValidatorId() {
+			return _validatorId;
+		}
+
+		public String getValidatorName() {
+			return _validatorName;
+		}
+
+		/** Answer the number of times that the validator was asked to validate a resource. */
+		public long getValidations() {
+			return _validations;
+		}
+
+		/** Answer the number of resources that the validator reported as having validated. */
+		public long getNumberInvocations() {
+			return _numberInvocations;
+		}
+
+		/** Answer the total elapsed time in milliseconds. */
+		public long getElapsedTime() {
+			return _elapsedTime;
+		}
+
+		/** Answer the total CPU time in nanoseconds, or -1 if it could not be determined. */
+		public long getCpuTime() {
+			return _cpuTime;
+		}
+
+		public long getElapsedP50(){
+			return _elapsedPercentiles[0];
+		}
+
+		public long getElapsedP95(){
+			return _elapsedPercentiles[1];
+		}
+
+		public long getElapsedP99(){
+			return _elapsedPercentiles[2];
+		}
+
+		public long getCpuP50(){
+			return _cpuPercentiles[0];
+		}
+
+		public long getCpuP95(){
+			return _cpuPercentiles[1];
+		}
+
+		public long getCpuP99(){
+			return _cpuPercentiles[2];
+		}
+	}
+
+	public final static class ContentTypeSummary {
+		private final String	_contentTypeId;
+		private final long		_validations;
+		private final long		_elapsedTime;
+		private final long		_cpuTime;
+
+		ContentTypeSummary(String contentTypeId, long validations, long elapsedTime, long cpuTime){
+			_contentTypeId = contentTypeId;
+			_validations = validations;
+			_elapsedTime = elapsedTime;
+			_cpuTime = cpuTime;
+		}
+
+		/** Answer the content type id, or null for the resources that don't have a content type. */
+		public String getContentTypeId() {
+			return _contentTypeId;
+		}
+
+		public long getValidations() {
+			return _validations;
+		}
+
+		/** Answer the total elapsed time in milliseconds. */
+		public long getElapsedTime() {
+			return _elapsedTime;
+		}
+
+		/** Answer the total CPU time in nanoseconds, or -1 if it could not be determined. */
+		public long getCpuTime() {
+			return _cpuTime;
+		}
+	}
+
+}
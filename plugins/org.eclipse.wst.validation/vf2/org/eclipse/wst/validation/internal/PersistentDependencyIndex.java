@@ -0,0 +1,716 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.validation.DependentResource;
+import org.eclipse.wst.validation.IDependencyIndex;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
+
+/**
+ * An implementation of the IDependencyIndex that is kept in two files, a compacted index and an append only
+ * log of the changes that have been made since the index was last compacted.
+ * <p>
+ * Resources are never resolved when the index is loaded. Instead every resource path and every validator id
+ * is interned to an int, and the edges are held as pairs of those ints. Paths are only turned back into
+ * resources when a caller asks for the dependents of a resource. The index itself isn't loaded until it is
+ * first used.
+ * </p>
+ * <p>
+ * The format of the compacted index is:
+ *
+ * <pre>
+ * Version number
+ * Number of paths
+ *   length of the UTF-8 bytes, UTF-8 bytes
+ * Number of validator ids
+ *   length of the UTF-8 bytes, UTF-8 bytes
+ * Number of edges
+ *   depends on path index, dependent path index, validator id index
+ * </pre>
+ *
+ * The format of each of the log records is:
+ *
+ * <pre>
+ * Add - op, validator id, dependent path, depends on path
+ * Remove - op, validator id, dependent path
+ * Clear - op, project name
+ * </pre>
+ * </p>
+ * <p>
+ * When the index is compacted, the old index is renamed to a backup before the new one is renamed into its
+ * place, and the backup is only deleted after that. If the index is missing when it is loaded, the backup
+ * is used instead; it is still consistent with the log, which is not deleted until the swap is done.
+ * </p>
+ * <p>
+ * The read methods (isDependedOn and the two get methods) are called for every resource in every build, often
+ * from several validation threads at once, so they never take a lock. The depends on edges are kept as
+ * immutable arrays in a concurrent map, and the methods that change the index replace an array rather than
+ * changing it. The changes themselves, and saving, are still serialized.
+ * </p>
+ * <p>
+ * An index or log that can't be read is deleted, and the index starts out empty; the dependencies are
+ * recorded again as the resources are validated.
+ * </p>
+ */
+public class PersistentDependencyIndex implements IDependencyIndex, ISaveParticipant {
+
+	/** Version of the compacted index. */
+	private static final int CurrentVersion = 2;
+
+	/** The log is compacted once it has at least this many records, and more records than there are edges. */
+	private static final int CompactThreshold = 5000;
+
+	private static final byte OpAdd = 1;
+	private static final byte OpRemove = 2;
+	private static final byte OpClear = 3;
+
+	private static final IResource[] EmptyResources = new IResource[0];
+
+	private final Interner	_paths = new Interner();
+	private final Interner	_validators = new Interner();
+
+	/**
+	 * An index so that we can determine which things depend on a path. The key is the depends on path index,
+	 * and the edges are (dependent, validator) pairs. The arrays are never changed once they have been put
+	 * into the map.
+	 */
+	private final ConcurrentMap<Integer, long[]>	_dependsOn = new ConcurrentHashMap<Integer, long[]>(100);
+
+	/**
+	 * An index so that we can determine what a path depends on. The key is the dependent path index, and the
+	 * edges are (depends on, validator) pairs. As with _dependsOn the arrays are replaced rather than changed,
+	 * so that an edge costs a long rather than a boxed set entry. This is only used while holding the lock.
+	 */
+	private final Map<Integer, long[]>	_dependents = new HashMap<Integer, long[]>(100);
+
+	/** Has the index been loaded? */
+	private volatile boolean _loaded;
+
+	/**
+	 * Set while the index is being loaded. During that time only the dependents are maintained, and the
+	 * depends on edges are built in one pass at the end.
+	 */
+	private boolean _loading;
+
+	private int _edgeCount;
+
+	/** The number of records in the log. */
+	private int _logRecords;
+
+	/** Set if the index needs to be compacted at the next save, for example because it was migrated. */
+	private boolean _mustCompact;
+
+	private DataOutputStream _log;
+
+	public synchronized void add(String id, IResource dependent, IResource dependsOn) {
+		init();
+		if (dependsOn == null || dependent == null)return;
+		String dependentPath = toPath(dependent);
+		String dependsOnPath = toPath(dependsOn);
+		if (dependentPath == null || dependsOnPath == null)return;
+		if (addEdge(_validators.intern(id), _paths.intern(dependentPath), _paths.intern(dependsOnPath))){
+			log(OpAdd, id, dependentPath, dependsOnPath);
+		}
+	}
+
+	public synchronized void clear(IProject project) {
+		init();
+		String prefix = project.getFullPath().toPortableString();
+		String folderPrefix = prefix + IPath.SEPARATOR;
+		boolean changed = false;
+		List<Integer> dependents = new ArrayList<Integer>(_dependents.keySet());
+		for (Integer dependent : dependents){
+			String path = _paths.get(dependent);
+			if (path.equals(prefix) || path.startsWith(folderPrefix)){
+				if (removeEdges(dependent, -1))changed = true;
+			}
+		}
+		if (changed)log(OpClear, project.getName(), null, null);
+	}
+
+	public IResource[] get(String validatorId, IResource dependsOn) {
+		init();
+		long[] edges = getEdges(dependsOn);
+		if (edges == null)return EmptyResources;
+		int validator = _validators.find(validatorId);
+		if (validator < 0)return EmptyResources;
+
+		List<IResource> list = new ArrayList<IResource>(edges.length);
+		for (long edge : edges){
+			if (second(edge) != validator)continue;
+			IResource resource = toResource(first(edge));
+			if (resource != null)list.add(resource);
+		}
+
+		if (list.size() == 0)return EmptyResources;
+		IResource[] resources = new IResource[list.size()];
+		list.toArray(resources);
+		return resources;
+	}
+
+	public List<DependentResource> get(IResource dependsOn) {
+		init();
+		long[] edges = getEdges(dependsOn);
+		if (edges == null)return new ArrayList<DependentResource>(0);
+		List<DependentResource> list = new ArrayList<DependentResource>(edges.length);
+		ValManager vm = ValManager.getDefault();
+		for (long edge : edges){
+			IResource dependent = toResource(first(edge));
+			if (dependent == null)continue;
+			Validator v = vm.getValidator(_validators.get(second(edge)), dependent.getProject());
+			if (v != null)list.add(new DependentResource(dependent, v));
+		}
+		return list;
+	}
+
+	public boolean isDependedOn(IResource resource) {
+		init();
+		return getEdges(resource) != null;
+	}
+
+	public synchronized void set(String id, IResource dependent, IResource[] dependsOn) {
+		init();
+		String dependentPath = toPath(dependent);
+		if (dependentPath == null)return;
+		int path = _paths.find(dependentPath);
+		int validator = _validators.find(id);
+		if (path >= 0 && validator >= 0 && removeEdges(path, validator)){
+			log(OpRemove, id, dependentPath, null);
+		}
+		if (dependsOn != null){
+			for (IResource d : dependsOn)add(id, dependent, d);
+		}
+	}
+
+	public void doneSaving(ISaveContext context) {
+	}
+
+	public void prepareToSave(ISaveContext context) throws CoreException {
+	}
+
+	public void rollback(ISaveContext context) {
+	}
+
+	/**
+	 * Make sure that the log has been written to disk, and compact it if it has grown too large.
+	 */
+	public synchronized void saving(ISaveContext context) throws CoreException {
+		if (!_loaded)return;
+		try {
+			if (_log != null)_log.flush();
+		}
+		catch (IOException e){
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		if (_mustCompact || (_logRecords >= CompactThreshold && _logRecords > _edgeCount))compact();
+	}
+
+	/**
+	 * Make sure that the index has been loaded.
+	 */
+	private void init(){
+		if (!_loaded)load();
+	}
+
+	/**
+	 * Load the index. See the class comment for the structure of the files.
+	 */
+	private synchronized void load(){
+		if (_loaded)return;
+		_loading = true;
+
+		File index = getIndexLocation();
+		File log = getLogLocation();
+		File legacy = getLegacyIndexLocation();
+		File backup = getBackupIndexLocation();
+		boolean error = false;
+		try {
+			// a compaction was interrupted after the old index was moved out of the way
+			if (!index.exists() && backup.exists())index = backup;
+			if (index.exists() && index.length() > 0)readIndex(index);
+			else if (legacy.exists() && legacy.length() > 0){
+				readLegacyIndex(legacy);
+				_mustCompact = true;
+			}
+			if (log.exists() && log.length() > 0)replayLog(log);
+		}
+		catch (IOException e){
+			error = true;
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		catch (RuntimeException e){
+			// a damaged file, for example with a count or an index that is out of range
+			error = true;
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		finally {
+			if (error){
+				_dependsOn.clear();
+				_dependents.clear();
+				_edgeCount = 0;
+				_logRecords = 0;
+				index.delete();
+				log.delete();
+				backup.delete();
+			}
+			_loading = false;
+			publish();
+			_loaded = true;
+		}
+	}
+
+	/**
+	 * Build the depends on edges from the dependents. This is used at the end of loading the index, so that
+	 * an array isn't copied for every edge that is read.
+	 */
+	private void publish(){
+		Map<Integer, List<Long>> dependsOn = new HashMap<Integer, List<Long>>(_dependents.size());
+		for (Map.Entry<Integer, long[]> me : _dependents.entrySet()){
+			int dependent = me.getKey();
+			for (long edge : me.getValue()){
+				List<Long> list = dependsOn.get(first(edge));
+				if (list == null){
+					list = new ArrayList<Long>(5);
+					dependsOn.put(first(edge), list);
+				}
+				list.add(pack(dependent, second(edge)));
+			}
+		}
+		for (Map.Entry<Integer, List<Long>> me : dependsOn.entrySet()){
+			List<Long> list = me.getValue();
+			long[] edges = new long[list.size()];
+			for (int i=0; i<edges.length; i++)edges[i] = list.get(i);
+			_dependsOn.put(me.getKey(), edges);
+		}
+	}
+
+	private void readIndex(File f) throws IOException {
+		long length = f.length();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+		try {
+			int version = in.readInt();
+			if (version != CurrentVersion){
+				String msg = NLS.bind(ValMessages.ErrDependencyVersion, CurrentVersion);
+				throw new IllegalStateException(msg);
+			}
+			int numPaths = readCount(in, length);
+			int[] paths = new int[numPaths];
+			for (int i=0; i<numPaths; i++)paths[i] = _paths.intern(readString(in, length));
+
+			int numValidators = readCount(in, length);
+			int[] validators = new int[numValidators];
+			for (int i=0; i<numValidators; i++)validators[i] = _validators.intern(readString(in, length));
+
+			int numEdges = readCount(in, length);
+			for (int i=0; i<numEdges; i++){
+				int dependsOn = in.readInt();
+				int dependent = in.readInt();
+				int validator = in.readInt();
+				addEdge(validators[validator], paths[dependent], paths[dependsOn]);
+			}
+		}
+		finally {
+			Misc.close(in);
+		}
+	}
+
+	/**
+	 * Read a count or a length, which can't be larger than the file that it is read from.
+	 */
+	private static int readCount(DataInputStream in, long length) throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > length)throw new IllegalStateException("The dependency index is damaged"); //$NON-NLS-1$
+		return count;
+	}
+
+	/**
+	 * Read the index that was written by earlier releases, so that the dependencies are not lost
+	 * when migrating to this index.
+	 */
+	private void readLegacyIndex(File f) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+		try {
+			int version = in.readInt();
+			if (version != 1)return;
+			int numDependsOn = in.readInt();
+			for (int i=0; i<numDependsOn; i++){
+				int dependsOn = _paths.intern(in.readUTF());
+				int numDependents = in.readInt();
+				for (int j=0; j<numDependents; j++){
+					int dependent = _paths.intern(in.readUTF());
+					int numVal = in.readInt();
+					for (int k=0; k<numVal; k++){
+						addEdge(_validators.intern(in.readUTF()), dependent, dependsOn);
+					}
+				}
+			}
+		}
+		catch (EOFException e){
+			Tracing.log("Unable to read the dependency index file because of EOF exception");  //$NON-NLS-1$
+		}
+		finally {
+			Misc.close(in);
+		}
+	}
+
+	private void replayLog(File f) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+		try {
+			while(true){
+				byte op = in.readByte();
+				switch (op){
+				case OpAdd:
+					int validator = _validators.intern(in.readUTF());
+					int dependent = _paths.intern(in.readUTF());
+					addEdge(validator, dependent, _paths.intern(in.readUTF()));
+					break;
+				case OpRemove:
+					validator = _validators.intern(in.readUTF());
+					removeEdges(_paths.intern(in.readUTF()), validator);
+					break;
+				case OpClear:
+					String prefix = IPath.SEPARATOR + in.readUTF();
+					String folderPrefix = prefix + IPath.SEPARATOR;
+					List<Integer> dependents = new ArrayList<Integer>(_dependents.keySet());
+					for (Integer d : dependents){
+						String path = _paths.get(d);
+						if (path.equals(prefix) || path.startsWith(folderPrefix))removeEdges(d, -1);
+					}
+					break;
+				default:
+					throw new IllegalStateException(NLS.bind(ValMessages.ErrDependencyVersion, CurrentVersion));
+				}
+				_logRecords++;
+			}
+		}
+		catch (EOFException e){
+			// this is the normal end of the log, or a partially written last record, either way we are done
+		}
+		finally {
+			Misc.close(in);
+		}
+	}
+
+	/**
+	 * Write the current index into a new compacted file, and throw the log away.
+	 */
+	private void compact(){
+		closeLog();
+		File index = getIndexLocation();
+		File temp = new File(index.getPath() + ".tmp"); //$NON-NLS-1$
+		boolean error = false;
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(CurrentVersion);
+
+			// renumber the paths and validators, so that the ones that are no longer used are dropped
+			Interner paths = new Interner();
+			Interner validators = new Interner();
+			int[] edges = new int[_edgeCount*3];
+			int i = 0;
+			for (Map.Entry<Integer, long[]> me : _dependsOn.entrySet()){
+				int dependsOn = paths.intern(_paths.get(me.getKey()));
+				for (long edge : me.getValue()){
+					edges[i++] = dependsOn;
+					edges[i++] = paths.intern(_paths.get(first(edge)));
+					edges[i++] = validators.intern(_validators.get(second(edge)));
+				}
+			}
+
+			writeStrings(out, paths);
+			writeStrings(out, validators);
+			out.writeInt(i/3);
+			for (int j=0; j<i; j++)out.writeInt(edges[j]);
+		}
+		catch (IOException e){
+			error = true;
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		finally {
+			Misc.close(out);
+		}
+
+		// keep the old index until the new one is in place, it is still consistent with the log
+		File backup = getBackupIndexLocation();
+		backup.delete();
+		if (!error && index.exists() && !index.renameTo(backup))error = true;
+		if (error || !temp.renameTo(index)){
+			// put the old index back, it and the log are still consistent with each other
+			if (!index.exists())backup.renameTo(index);
+			temp.delete();
+			return;
+		}
+		getLogLocation().delete();
+		getLegacyIndexLocation().delete();
+		backup.delete();
+		_logRecords = 0;
+		_mustCompact = false;
+	}
+
+	private void writeStrings(DataOutputStream out, Interner strings) throws IOException {
+		out.writeInt(strings.size());
+		for (int i=0; i<strings.size(); i++){
+			byte[] bytes = strings.get(i).getBytes("UTF-8"); //$NON-NLS-1$
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in, long length) throws IOException {
+		byte[] bytes = new byte[readCount(in, length)];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Append a record to the log.
+	 */
+	private void log(byte op, String s1, String s2, String s3){
+		try {
+			if (_log == null){
+				_log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getLogLocation(), true)));
+			}
+			_log.writeByte(op);
+			_log.writeUTF(s1);
+			if (s2 != null)_log.writeUTF(s2);
+			if (s3 != null)_log.writeUTF(s3);
+			_logRecords++;
+		}
+		catch (IOException e){
+			ValidationPlugin.getPlugin().handleException(e);
+			closeLog();
+			// the log can no longer be trusted, so the next save needs to write out everything.
+			_mustCompact = true;
+		}
+	}
+
+	private void closeLog(){
+		Misc.close(_log);
+		_log = null;
+	}
+
+	/**
+	 * @return true if the edge was added, and false if it already existed.
+	 */
+	private boolean addEdge(int validator, int dependent, int dependsOn){
+		long edge = pack(dependsOn, validator);
+		long[] oldDependents = _dependents.get(dependent);
+		long[] dependents;
+		if (oldDependents == null)dependents = new long[1];
+		else {
+			for (long e : oldDependents){
+				if (e == edge)return false;
+			}
+			dependents = new long[oldDependents.length+1];
+			System.arraycopy(oldDependents, 0, dependents, 0, oldDependents.length);
+		}
+		dependents[dependents.length-1] = edge;
+		_dependents.put(dependent, dependents);
+		_edgeCount++;
+		if (_loading)return true;
+
+		long[] old = _dependsOn.get(dependsOn);
+		long[] edges;
+		if (old == null)edges = new long[1];
+		else {
+			edges = new long[old.length+1];
+			System.arraycopy(old, 0, edges, 0, old.length);
+		}
+		edges[edges.length-1] = pack(dependent, validator);
+		_dependsOn.put(dependsOn, edges);
+		return true;
+	}
+
+	/**
+	 * Remove the edges for the dependent.
+	 *
+	 * @param validator only remove the edges for this validator, or -1 to remove them for all the validators.
+	 * @return true if anything was removed.
+	 */
+	private boolean removeEdges(int dependent, int validator){
+		long[] edges = _dependents.get(dependent);
+		if (edges == null)return false;
+		long[] kept = new long[edges.length];
+		int size = 0;
+		for (long edge : edges){
+			if (validator != -1 && second(edge) != validator){
+				kept[size++] = edge;
+				continue;
+			}
+			_edgeCount--;
+			if (!_loading)removeDependsOn(first(edge), pack(dependent, second(edge)));
+		}
+		if (size == edges.length)return false;
+		if (size == 0)_dependents.remove(dependent);
+		else {
+			long[] remaining = new long[size];
+			System.arraycopy(kept, 0, remaining, 0, size);
+			_dependents.put(dependent, remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * Replace the depends on edges with a copy that doesn't have the edge.
+	 */
+	private void removeDependsOn(int dependsOn, long edge){
+		long[] old = _dependsOn.get(dependsOn);
+		if (old == null)return;
+		int pos = -1;
+		for (int i=0; i<old.length; i++){
+			if (old[i] == edge){
+				pos = i;
+				break;
+			}
+		}
+		if (pos < 0)return;
+		if (old.length == 1){
+			_dependsOn.remove(dependsOn);
+			return;
+		}
+		long[] edges = new long[old.length-1];
+		System.arraycopy(old, 0, edges, 0, pos);
+		System.arraycopy(old, pos+1, edges, pos, edges.length-pos);
+		_dependsOn.put(dependsOn, edges);
+	}
+
+	/**
+	 * Answer the (dependent, validator) edges for the resource, without taking the lock.
+	 * 
+	 * @return null if nothing depends on the resource.
+	 */
+	private long[] getEdges(IResource resource){
+		String path = toPath(resource);
+		if (path == null)return null;
+		int index = _paths.find(path);
+		if (index < 0)return null;
+		return _dependsOn.get(index);
+	}
+
+	private static long pack(int first, int second){
+		return (((long)first) << 32) | (second & 0xffffffffL);
+	}
+
+	private static int first(long edge){
+		return (int)(edge >>> 32);
+	}
+
+	private static int second(long edge){
+		return (int)edge;
+	}
+
+	private static String toPath(IResource resource){
+		if (resource == null)return null;
+		IPath path = resource.getFullPath();
+		if (path == null)return null;
+		return path.toPortableString();
+	}
+
+	private IResource toResource(int path){
+		String v = _paths.get(path);
+		IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(v);
+		if (resource == null)Tracing.log(NLS.bind(ValMessages.Error21, v));
+		return resource;
+	}
+
+	private File getIndexLocation() {
+		return ValidationPlugin.getPlugin().getStateLocation().append("dep2.index").toFile(); //$NON-NLS-1$
+	}
+
+	private File getLogLocation() {
+		return ValidationPlugin.getPlugin().getStateLocation().append("dep2.log").toFile(); //$NON-NLS-1$
+	}
+
+	/** The previous compacted index, while it is being replaced. */
+	private File getBackupIndexLocation() {
+		return ValidationPlugin.getPlugin().getStateLocation().append("dep2.index.bak").toFile(); //$NON-NLS-1$
+	}
+
+	/** The index that was written by earlier releases. */
+	private File getLegacyIndexLocation() {
+		return ValidationPlugin.getPlugin().getStateLocation().append("dep.index").toFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Map strings to small integers, and back again. The strings are never removed, they are only dropped
+	 * when the index is compacted.
+	 * <p>
+	 * Only one thread may intern at a time, but find and get can be called from any thread without a lock. A
+	 * string is always stored in the array before its number is published in the map, so anyone that has
+	 * been given a number can also get the string.
+	 * </p>
+	 */
+	private final static class Interner {
+		private final ConcurrentMap<String, Integer> _map = new ConcurrentHashMap<String, Integer>(100);
+		private volatile String[] _strings = new String[100];
+		private int _size;
+
+		public int intern(String s){
+			Integer i = _map.get(s);
+			if (i != null)return i;
+			String[] strings = _strings;
+			if (_size == strings.length){
+				String[] bigger = new String[strings.length*2];
+				System.arraycopy(strings, 0, bigger, 0, _size);
+				strings = bigger;
+			}
+			i = _size;
+			strings[_size++] = s;
+			_strings = strings;
+			_map.put(s, i);
+			return i;
+		}
+
+		/**
+		 * @return -1 if the string has not been interned.
+		 */
+		public int find(String s){
+			Integer i = _map.get(s);
+			if (i == null)return -1;
+			return i;
+		}
+
+		public String get(int i){
+			return _strings[i];
+		}
+
+		public int size(){
+			return _size;
+		}
+	}
+
+}
@@ -106,6 +106,9 @@ public interface PrefConstants {
 	/** override - should we show projects to override the global preferences? */
 	String override = "override"; //$NON-NLS-1$
 	
+	/** parallelism - the maximum number of projects that are validated at the same time during a build. */
+	String parallelism = "parallelism"; //$NON-NLS-1$
+	
 	/** vals - the validators are grouped under this node. */
 	String vals = "vals"; //$NON-NLS-1$
 	
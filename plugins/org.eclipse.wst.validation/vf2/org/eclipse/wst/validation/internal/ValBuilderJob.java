@@ -11,8 +11,11 @@
 package org.eclipse.wst.validation.internal;
 
 import java.text.MessageFormat;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -46,62 +49,165 @@ import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
  * This is the main class for supporting build based validation. When triggered it looks at all of the
  * resource changes and determines what needs to be validated. 
  * </p>
+ * <p>
+ * Normally a single job validates the queued projects one after another. If the parallelism preference
+ * is greater than one, up to that many of these jobs are run as workers, each one validating a different
+ * project. All the workers share the same ValOperation, and a project is never validated by two workers
+ * at the same time. The workers run without a scheduling rule (just like the single job does), since 
+ * validators are free to use their own workspace rules, and those must not be nested inside of ours.
+ * </p>
  * @author karasiuk
  *
  */
 public final class ValBuilderJob extends WorkspaceJob {
 	
-	private static ValBuilderJob _job;
 	private static Queue<ValidationRequest> _work = new LinkedList<ValidationRequest>();
 	
-	private final ValOperation _operation = new ValOperation();
+	/** The projects that are currently being validated by one of the workers. */
+	private static Set<IProject> _active = new HashSet<IProject>(10);
+	
+	/** The number of workers that have been scheduled, but have not yet finished. */
+	private static int _workers;
+	
+	/** The operation that is shared by all the workers, it is null when there are no workers. */
+	private static ValOperation _sharedOperation;
+	
+	/** Has the first worker finished sending out the validationStarting notifications? */
+	private static boolean _started;
+	
+	private final ValOperation _operation;
+	
+	/** Is this the first worker, i.e. the one that needs to send out the validationStarting notifications? */
+	private final boolean _first;
 		
 	/** The types of changes we are interested in. */
 	private final static int	InterestedFlags = IResourceDelta.CONTENT | IResourceDelta.ENCODING |
 		IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
 	
+	private final static IValidatorVisitor StartingVisitor = new IValidatorVisitor(){
+
+		public void visit(Validator validator, IProject project, ValType valType, 
+			ValOperation operation, IProgressMonitor monitor) {
+		
+			Object lock = ValManager.getDefault().getExclusiveLock(validator);
+			if (lock == null)validator.validationStarting(project, operation.getState(), monitor);
+			else {
+				synchronized(lock){
+					validator.validationStarting(project, operation.getState(), monitor);
+				}
+			}
+		}               
+	};
+
+	private final static IValidatorVisitor FinishingVisitor = new IValidatorVisitor(){
+
+		public void visit(Validator validator, IProject project, ValType valType,
+			ValOperation operation, IProgressMonitor monitor) {
+
+			Object lock = ValManager.getDefault().getExclusiveLock(validator);
+			if (lock == null)validator.validationFinishing(project, operation.getState(), monitor);
+			else {
+				synchronized(lock){
+					validator.validationFinishing(project, operation.getState(), monitor);
+				}
+			}
+		}           
+	};
+	
 	public static synchronized void validateProject(IProject project, IResourceDelta delta, int buildKind){
 		ValidationRequest request = new ValidationRequest(project, delta, buildKind);
-		if (_job == null){
-			_job = new ValBuilderJob();
-			_job.add(request);
-			_job.schedule();
-		}
-		else {
-			_job.add(request);
+		_work.add(request);
+		if (_workers == 0){
+			_sharedOperation = new ValOperation();
+			_sharedOperation.batchMarkers();
+			_started = false;
+			startWorker(true);
 		}
+		else if (_started)startWorkers();
 	}
 	
-	private static synchronized ValidationRequest getRequest(){
-		ValidationRequest request = _work.poll();
-		if (request == null){
-			_job = null;
-		}
-		return request;
+	/**
+	 * Schedule enough workers to handle the queued projects, without exceeding the parallelism
+	 * preference.
+	 */
+	private static synchronized void startWorkers(){
+		int parallelism = ValManager.getDefault().getGlobalPreferences().getParallelism();
+		if (parallelism <= _workers)return;
+		
+		Set<IProject> projects = new HashSet<IProject>(_active);
+		for (ValidationRequest request : _work)projects.add(request.getProject());
+		int wanted = Math.min(parallelism, projects.size());
+		while (_workers < wanted)startWorker(false);
+	}
+	
+	private static void startWorker(boolean first){
+		_workers++;
+		ValBuilderJob job = new ValBuilderJob(_sharedOperation, first);
+		job.schedule();
 	}
 	
 	/**
-	 * Each validation run is done in it's own job.
+	 * Answer the next request for a project that isn't already being validated by another worker.
 	 * 
-	 * @param project the project that is being validated
-	 * @param delta the delta that is being validated. This may be null, in which case we do a 
-	 * full validation of the project.
+	 * @param finished the project that this worker has just finished validating. This can be null.
 	 * 
-	 * @param buildKind the kind of build.
-	 * @see org.eclipse.core.resources.IncrementalProjectBuilder#AUTO_BUILD
-	 * @see org.eclipse.core.resources.IncrementalProjectBuilder#CLEAN_BUILD
-	 * @see org.eclipse.core.resources.IncrementalProjectBuilder#FULL_BUILD
-	 * @see org.eclipse.core.resources.IncrementalProjectBuilder#INCREMENTAL_BUILD
+	 * @return null if there is no more work for this worker.
+	 */
+	private static synchronized ValidationRequest getRequest(IProject finished){
+		if (finished != null)_active.remove(finished);
+		for (Iterator<ValidationRequest> it = _work.iterator(); it.hasNext();){
+			ValidationRequest request = it.next();
+			if (_active.contains(request.getProject()))continue;
+			it.remove();
+			_active.add(request.getProject());
+			return request;
+		}
+		return null;
+	}
+	
+	/**
+	 * The worker is exiting.
 	 * 
-	 * @param operation some global context for the validation operation
+	 * @param project the project that the worker was validating when it stopped. This can be null.
 	 * 
+	 * @return true if this was the last worker, in which case it needs to send out the
+	 *         validationFinishing notifications.
 	 */
-	private ValBuilderJob(){
-		super(ValMessages.JobName);
+	private static synchronized boolean retire(IProject project){
+		if (project != null)_active.remove(project);
+		_workers--;
+		if (_workers > 0){
+			if (_started)startWorkers();
+			return false;
+		}
+		
+		// requests may have arrived after we last checked, they need to be run in a new operation
+		_sharedOperation = null;
+		if (!_work.isEmpty()){
+			_sharedOperation = new ValOperation();
+			_sharedOperation.batchMarkers();
+			_started = false;
+			startWorker(true);
+		}
+		return true;
 	}
 	
-	private void add(ValidationRequest request){
-		_work.add(request);
+	private static synchronized void setStarted(){
+		_started = true;
+		startWorkers();
+	}
+	
+	/**
+	 * Each validation run is done in it's own job.
+	 * 
+	 * @param operation some global context for the validation operation, it is shared by all the workers
+	 * 
+	 * @param first set to true if this is the first worker for the operation
+	 */
+	private ValBuilderJob(ValOperation operation, boolean first){
+		super(ValMessages.JobName);
+		_operation = operation;
+		_first = first;
 	}
 	
 	@Override
@@ -118,17 +224,30 @@ public final class ValBuilderJob extends WorkspaceJob {
 	public IStatus runInWorkspace(IProgressMonitor monitor) {
 		Tracing.log("ValBuilderJob-01: Starting"); //$NON-NLS-1$
 		
+		IProject current = null;
 		try {
-			startingValidation(monitor);
+			if (_first){
+				try {
+					startingValidation(monitor);
+				}
+				finally {
+					setStarted();
+				}
+			}
 			
-			ValidationRequest request = getRequest();
+			ValidationRequest request = getRequest(null);
 			while(request != null){
+				current = request.getProject();
 				run(request, monitor);
-				request = getRequest();
+				request = getRequest(current);
+				current = null;
 			}
 		}
 		finally {
-			finishingValidation(monitor);
+			if (retire(current)){
+				finishingValidation(monitor);
+				getOperation().flushMarkers();
+			}
 		}
 		
 		Tracing.log("ValBuilderJob-02: Finished"); //$NON-NLS-1$
@@ -136,44 +255,17 @@ public final class ValBuilderJob extends WorkspaceJob {
 	}
 
 	private void startingValidation(IProgressMonitor monitor) {
-        IValidatorVisitor startingVisitor = new IValidatorVisitor(){
-
-            public void visit(Validator validator, IProject project, ValType valType, 
-                ValOperation operation, IProgressMonitor monitor) {
-                
-                validator.validationStarting(project, operation.getState(), monitor);                   
-            }               
-        };
-
-        ValManager.getDefault().accept(startingVisitor, null, ValType.Build, getOperation(), monitor);
+        ValManager.getDefault().accept(StartingVisitor, null, ValType.Build, getOperation(), monitor);
 	}
 	
 	private void finishingValidation(IProgressMonitor monitor) {
-		
-		IValidatorVisitor finishedVisitor = new IValidatorVisitor(){
-
-		    public void visit(Validator validator, IProject project, ValType valType,
-		      ValOperation operation, IProgressMonitor monitor) {
-
-		      validator.validationFinishing(project, operation.getState(), monitor);              
-		    }           
-		  };
-		  ValManager.getDefault().accept(finishedVisitor, null, ValType.Build, getOperation(), monitor);
+		ValManager.getDefault().accept(FinishingVisitor, null, ValType.Build, getOperation(), monitor);
 	}
 
 	private void run(ValidationRequest request, IProgressMonitor monitor){
 		setName(MessageFormat.format(ValMessages.JobNameWithProjectName,new Object[] { request.getProject().getName() })); 
 		try {		
-	        IValidatorVisitor startingVisitor = new IValidatorVisitor(){
-
-	            public void visit(Validator validator, IProject project, ValType valType, 
-	                ValOperation operation, IProgressMonitor monitor) {
-	                
-	                validator.validationStarting(project, operation.getState(), monitor);                   
-	            }               
-	        };
-
-	        ValManager.getDefault().accept(startingVisitor, request.getProject(), ValType.Build, getOperation(), monitor);
+	        ValManager.getDefault().accept(StartingVisitor, request.getProject(), ValType.Build, getOperation(), monitor);
 		  
 			if (request.getDelta() == null)fullBuild(request, monitor);
 			else deltaBuild(request, monitor);
@@ -190,15 +282,8 @@ public final class ValBuilderJob extends WorkspaceJob {
 			ValidationPlugin.getPlugin().handleException(e);
 		}
 		finally {
-		  IValidatorVisitor finishedVisitor = new IValidatorVisitor(){
-
-		    public void visit(Validator validator, IProject project, ValType valType,
-		      ValOperation operation, IProgressMonitor monitor) {
-
-		      validator.validationFinishing(project, operation.getState(), monitor);              
-		    }           
-		  };
-          ValManager.getDefault().accept(finishedVisitor, request.getProject(), ValType.Build, getOperation(), monitor);
+			ValManager.getDefault().accept(FinishingVisitor, request.getProject(), ValType.Build, getOperation(), monitor);
+			getOperation().flushMarkers();
 		}
 		
 	}
@@ -208,7 +293,12 @@ public final class ValBuilderJob extends WorkspaceJob {
 		request.getDelta().accept(counter);
 		SubMonitor subMonitor = SubMonitor.convert(monitor, counter.getCount());
 		Visitor vistitor = new Visitor(request, subMonitor, monitor, getOperation());
-		request.getDelta().accept(vistitor);		
+		try {
+			request.getDelta().accept(vistitor);
+		}
+		finally {
+			vistitor.join();
+		}
 	}
 
 	private void fullBuild(ValidationRequest request, IProgressMonitor monitor) throws CoreException {
@@ -216,8 +306,12 @@ public final class ValBuilderJob extends WorkspaceJob {
 		request.getProject().accept(counter, 0);
 		SubMonitor subMonitor = SubMonitor.convert(monitor, counter.getCount());
 		Visitor vistitor = new Visitor(request, subMonitor, monitor, getOperation());
-		request.getProject().accept(vistitor);
-		
+		try {
+			request.getProject().accept(vistitor);
+		}
+		finally {
+			vistitor.join();
+		}
 	}
 	
 	private ValOperation getOperation(){
@@ -283,21 +377,43 @@ public final class ValBuilderJob extends WorkspaceJob {
 		private final IProgressMonitor 		_monitor;
 		private final ValOperation			_operation;
 		
+		/** If resources are being validated in parallel, this collects them. Otherwise it is null. */
+		private final ValFanOut				_fanOut;
+		
 		public Visitor(ValidationRequest request, SubMonitor subMonitor, IProgressMonitor monitor, ValOperation operation){
 			_request = request;
 			_subMonitor = subMonitor;
 			_monitor = monitor;
 			_operation = operation;
+			_fanOut = ValFanOut.isEnabled() ? new ValFanOut(request.getProject(), operation, monitor) : null;
+		}
+		
+		/**
+		 * Wait for any resources that have been fanned out to finish validating.
+		 */
+		public void join(){
+			if (_fanOut != null){
+				_fanOut.join();
+				_operation.flushMarkersIfFull();
+			}
+		}
+		
+		private void validate(IResource resource, int kind){
+			if (_fanOut != null)_fanOut.add(resource, kind, _subMonitor.newChild(1));
+			else {
+				ValManager.getDefault().validate(_request.getProject(), resource, kind, ValType.Build, 
+					_request.getBuildKind(), _operation, _subMonitor.newChild(1));
+				_operation.flushMarkersIfFull();
+			}
 		}
 		
 		public boolean visit(IResource resource) throws CoreException {
 			try {
 				if (DisabledResourceManager.getDefault().isDisabled(resource)){
-					MarkerManager.getDefault().deleteMarkers(resource, _operation.getStarted(), IResource.DEPTH_INFINITE);
+					MarkerManager.getDefault().deleteMarkers(resource, _operation, IResource.DEPTH_INFINITE);
 					return false;
 				}
-				ValManager.getDefault().validate(_request.getProject(), resource, IResourceDelta.NO_CHANGE, ValType.Build, 
-					_request.getBuildKind(), _operation, _subMonitor.newChild(1));
+				validate(resource, IResourceDelta.NO_CHANGE);
 			}
 			catch (ResourceUnavailableError e){
 				if (Tracing.isLogging())Tracing.log("ValBuilderJob-02: " + e.toString()); //$NON-NLS-1$
@@ -310,7 +426,7 @@ public final class ValBuilderJob extends WorkspaceJob {
 		public boolean visit(IResourceDelta delta) throws CoreException {
 			IResource resource = delta.getResource();
 			if (DisabledResourceManager.getDefault().isDisabled(resource)){
-				MarkerManager.getDefault().deleteMarkers(resource, _operation.getStarted(), IResource.DEPTH_INFINITE);
+				MarkerManager.getDefault().deleteMarkers(resource, _operation, IResource.DEPTH_INFINITE);
 				return false;
 			}
 			int kind = delta.getKind();
@@ -324,8 +440,7 @@ public final class ValBuilderJob extends WorkspaceJob {
 			}
 
 			if ((kind & (IResourceDelta.ADDED | IResourceDelta.CHANGED)) != 0){
-				ValManager.getDefault().validate(_request.getProject(), resource, delta.getKind(), ValType.Build,
-						_request.getBuildKind(), _operation, _subMonitor.newChild(1));
+				validate(resource, delta.getKind());
 			}
 			
 			if ((kind & (IResourceDelta.REMOVED)) != 0){
@@ -347,7 +462,7 @@ public final class ValBuilderJob extends WorkspaceJob {
 					if (Friend.shouldValidate(val, dr.getResource(), ValType.Build, new ContentTypeWrapper())){
 						_operation.getState().put(ValidationState.TriggerResource, resource);
 						ValidationEvent event = new ValidationEvent(dr.getResource(), IResourceDelta.NO_CHANGE, delta);
-						if (val.shouldClearMarkers(event))mm.clearMarker(dr.getResource(), val);
+						if (val.shouldClearMarkers(event))mm.clearMarker(dr.getResource(), val, _operation);
 							ValManager.getDefault().validate(val, _operation, dr.getResource(),
 									IResourceDelta.NO_CHANGE, _monitor, event);
 						}
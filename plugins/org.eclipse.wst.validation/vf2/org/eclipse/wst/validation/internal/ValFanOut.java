@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.wst.validation.Validator;
+import org.eclipse.wst.validation.internal.model.IValidatorVisitor;
+import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
+
+/**
+ * Validate the resources of a single project, by dispatching each (resource, validator) pair to a shared
+ * pool of validation threads.
+ * <p>
+ * The build visitor adds each resource as it walks the delta (or the project), and then calls join() to
+ * wait for all the validations to complete. The results are merged into the ValOperation by the normal
+ * ValManager validate method, so the caller sees exactly the same results as for a serial build.
+ * </p>
+ * <p>
+ * Only validators that have declared themselves reentrant are called on several resources at the same time.
+ * The other validators are given a lane, where their resources are validated one after another. Validators
+ * that belong to a validator group are run immediately, on the calling thread, so that the group listeners
+ * still bracket the validation.
+ * </p>
+ */
+public final class ValFanOut {
+
+	private static ThreadPoolExecutor _executor;
+
+	private final IProject			_project;
+	private final ValOperation		_operation;
+	private final IProgressMonitor	_monitor;
+
+	/** The work that has been handed to the pool, but has not been joined yet. */
+	private final List<Future<?>>	_pending = new LinkedList<Future<?>>();
+
+	/** The resources for the validators that are not reentrant. The key is the validator id. */
+	private final Map<String, Lane> _lanes = new LinkedHashMap<String, Lane>(20);
+
+	/**
+	 * Answer true if resources should be validated through a ValFanOut.
+	 */
+	public static boolean isEnabled(){
+		return ValManager.getDefault().getGlobalPreferences().getParallelism() > 1;
+	}
+
+	/**
+	 * Answer the pool of validation threads, resizing it if the parallelism preference has changed.
+	 */
+	private static synchronized ExecutorService getExecutor(){
+		int size = Math.max(1, ValManager.getDefault().getGlobalPreferences().getParallelism());
+		if (_executor == null){
+			_executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new WorkerFactory());
+		}
+		else if (_executor.getMaximumPoolSize() < size){
+			_executor.setMaximumPoolSize(size);
+			_executor.setCorePoolSize(size);
+		}
+		else if (_executor.getMaximumPoolSize() > size){
+			_executor.setCorePoolSize(size);
+			_executor.setMaximumPoolSize(size);
+		}
+		return _executor;
+	}
+
+	/**
+	 * Stop the pool of validation threads. This is called when the plug-in is stopped.
+	 */
+	public static synchronized void shutdown(){
+		if (_executor != null){
+			_executor.shutdownNow();
+			_executor = null;
+		}
+	}
+
+	/**
+	 * @param project the project that is being validated
+	 * @param operation the operation that the validation is running under
+	 * @param monitor the job's monitor. It is only used to detect cancellation, since a monitor can't be
+	 * shared between threads.
+	 */
+	public ValFanOut(IProject project, ValOperation operation, IProgressMonitor monitor){
+		_project = project;
+		_operation = operation;
+		_monitor = monitor;
+	}
+
+	/**
+	 * Validate the resource with all of the validators that apply to it. This is the fan out version of
+	 * ValManager.validate(IProject, IResource, int, ValType, int, ValOperation, IProgressMonitor). The
+	 * validation may not have happened by the time that this method returns.
+	 *
+	 * @param resource the resource that is being validated
+	 * @param kind the kind of resource delta. It will be one of the IResourceDelta constants.
+	 * @param monitor the monitor to use to report progress
+	 */
+	public void add(final IResource resource, final int kind, IProgressMonitor monitor){
+		final ValManager vm = ValManager.getDefault();
+		MarkerManager.getDefault().deleteMarkers(resource, _operation, IResource.DEPTH_ZERO);
+
+		IValidatorVisitor visitor = new IValidatorVisitor(){
+
+			public void visit(Validator validator, IProject project, ValType vt,
+				ValOperation operation, IProgressMonitor monitor) {
+
+				Validator.V2 v2 = validator.asV2Validator();
+				if (v2 == null || !project.isOpen())return;
+
+				if (v2.getValidatorGroups().length > 0)vm.validate(validator, operation, resource, kind, monitor, null);
+				else if (validator.isReentrant())submit(new Pair(validator, resource, kind));
+				else {
+					Lane lane = _lanes.get(validator.getId());
+					if (lane == null){
+						lane = new Lane();
+						_lanes.put(validator.getId(), lane);
+					}
+					lane.add(new Pair(validator, resource, kind));
+				}
+			}
+		};
+		vm.accept(visitor, _project, resource, ValType.Build, _operation, monitor);
+	}
+
+	/**
+	 * Wait for all of the resources that have been added to be validated.
+	 */
+	public void join(){
+		for (Lane lane : _lanes.values())submit(lane);
+		_lanes.clear();
+
+		for (Future<?> future : _pending){
+			try {
+				future.get();
+			}
+			catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				break;
+			}
+			catch (ExecutionException e){
+				ValidationPlugin.getPlugin().handleException(e.getCause());
+			}
+		}
+		_pending.clear();
+	}
+
+	private void submit(Runnable runnable){
+		_pending.add(getExecutor().submit(runnable));
+	}
+
+	/**
+	 * A resource that needs to be validated by a particular validator.
+	 */
+	private final class Pair implements Runnable {
+
+		private final Validator _validator;
+		private final IResource	_resource;
+		private final int		_kind;
+
+		public Pair(Validator validator, IResource resource, int kind){
+			_validator = validator;
+			_resource = resource;
+			_kind = kind;
+		}
+
+		public void run() {
+			if (_monitor.isCanceled())return;
+			try {
+				ValManager.getDefault().validate(_validator, _operation, _resource, _kind, new CancelMonitor(), null);
+			}
+			catch (ResourceUnavailableError e){
+				if (Tracing.isLogging())Tracing.log("ValFanOut-01: " + e.toString()); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * All the resources for a validator that can only validate one resource at a time.
+	 */
+	private final class Lane implements Runnable {
+
+		private final List<Pair> _pairs = new LinkedList<Pair>();
+
+		public void add(Pair pair){
+			_pairs.add(pair);
+		}
+
+		public void run() {
+			for (Pair pair : _pairs)pair.run();
+		}
+	}
+
+	/**
+	 * A monitor that can be used on any of the validation threads, it only forwards the cancellation
+	 * state of the job.
+	 */
+	private final class CancelMonitor extends NullProgressMonitor {
+
+		@Override
+		public boolean isCanceled() {
+			return _monitor.isCanceled();
+		}
+	}
+
+	private final static class WorkerFactory implements ThreadFactory {
+
+		private int _count;
+
+		public synchronized Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Validation Worker " + (++_count)); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
@@ -11,6 +11,7 @@
 package org.eclipse.wst.validation.internal;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
@@ -85,6 +86,12 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 	 */
 	private final AtomicInteger _configNumber = new AtomicInteger();
 	
+	/** 
+	 * Locks that are used to serialize the validators that are not thread safe. The key is the validator id, 
+	 * since a validator may have several copies (for example one per project).
+	 */
+	private final ConcurrentMap<String, Object> _exclusiveLocks = new ConcurrentHashMap<String, Object>(20);
+	
 	private final ValidatorIdManager _idManager = new ValidatorIdManager();
 	private final ValidatorCache 	_cache = new ValidatorCache();
 		
@@ -390,22 +397,14 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 	 * @return null if the validator is not found
 	 */
 	public Validator getValidator(String id, IProject project){
-		Validator[] vals = getValidators(project);
-		for (Validator v : vals){
-			if (v.getId().equals(id))return v;
-		}
-		return null;
+		return _cache.getValidatorCached(id, project);
 	}
 	
 	/**
 	 * @see ValidationFramework#getValidator(String, IProject)
 	 */
 	public Validator getValidatorWithId(String id, IProject project){
-		Validator[] vals = getValidators(project);
-		for (Validator v : vals){
-			if (v.getId().equals(id))return v;
-		}
-		return null;
+		return _cache.getValidatorCached(id, project);
 	}
 					
 	/**
@@ -647,7 +646,7 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 	public void validate(IProject project, final IResource resource, final int kind, ValType valType, 
 		int buildKind, ValOperation operation, final IProgressMonitor monitor) {
 		
-		MarkerManager.getDefault().deleteMarkers(resource, operation.getStarted(), IResource.DEPTH_ZERO);
+		MarkerManager.getDefault().deleteMarkers(resource, operation, IResource.DEPTH_ZERO);
 		
 		IValidatorVisitor visitor = new IValidatorVisitor(){
 
@@ -701,7 +700,14 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 	
 		if (resource.exists())
 		{	
-			ValidationResult vr = validator.validate(resource, kind, operation, monitor, event);
+			ValidationResult vr = null;
+			Object lock = getExclusiveLock(validator);
+			if (lock == null)vr = validator.validate(resource, kind, operation, monitor, event);
+			else {
+				synchronized(lock){
+					vr = validator.validate(resource, kind, operation, monitor, event);
+				}
+			}
 	
 			if (pm.isCollecting()){
 				if (cpuTime != -1){
@@ -728,6 +734,27 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		}
 	}
 	
+	/**
+	 * Answer the lock that needs to be held while calling into this validator.
+	 * 
+	 * @param validator
+	 *            The validator that is about to be called.
+	 * @return null if the validator is thread safe, or if projects are not
+	 *         being validated in parallel. Otherwise the lock that serializes
+	 *         all of the calls into the validator.
+	 */
+	public Object getExclusiveLock(Validator validator){
+		if (validator.isThreadSafe() || getGlobalPreferences().getParallelism() < 2)return null;
+		String id = validator.getId();
+		Object lock = _exclusiveLocks.get(id);
+		if (lock == null){
+			Object newLock = new Object();
+			lock = _exclusiveLocks.putIfAbsent(id, newLock);
+			if (lock == null)lock = newLock;
+		}
+		return lock;
+	}
+	
 	/**
 	 * Accept a visitor for all the validators that are enabled for the given project.
 	 * 
@@ -769,6 +796,7 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		Map<String,IValidatorGroupListener[]> groupListeners = new HashMap<String,IValidatorGroupListener[]>();
 		
 		ValProperty vp = getValProperty(resource, valType, _configNumber.get());
+		if (vp == null && !Tracing.isTraceMatches())vp = restoreValProperty(resource, project, valType);
 		if (vp != null){
 			BitSet bs = vp.getConfigSet();
 			for (Validator val : getValidators(project)){
@@ -794,11 +822,23 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		vp = new ValProperty();
 		vp.setConfigNumber(_configNumber.get());
 		ContentTypeWrapper ctw = new ContentTypeWrapper();
+		
+		// When the matches are being traced, each validator's filters need to be run, so that they can 
+		// trace what they have matched.
+		BitSet applicable = null;
+		if (!Tracing.isTraceMatches()){
+			applicable = _cache.getFilterMatcher(project, valType).match(resource, ctw);
+			vp.getConfigSet().or(applicable);
+		}
 		for (Validator val : getValidators(project)){
 			if (!monitor.isCanceled()) {
-				if (!ValidatorProjectManager.get().shouldValidate(val, project, valType))continue;
-				if (Friend.shouldValidate(val, resource, valType, ctw)){
-					vp.getConfigSet().set(_idManager.getIndex(val.getId()));
+				boolean shouldValidate = false;
+				if (applicable != null)shouldValidate = applicable.get(_idManager.getIndex(val.getId()));
+				else if (ValidatorProjectManager.get().shouldValidate(val, project, valType)){
+					shouldValidate = Friend.shouldValidate(val, resource, valType, ctw);
+					if (shouldValidate)vp.getConfigSet().set(_idManager.getIndex(val.getId()));
+				}
+				if (shouldValidate){
 					// we do the suspend check after figuring out if it needs to be validated, because we save
 					// this information for the session.
 					if (operation.isSuspended(val, project))continue;
@@ -884,6 +924,55 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		}
 	}
 
+	/**
+	 * Restore the validators that applied to the resource in an earlier session, if nothing has changed since.
+	 * 
+	 * @return null if the validators need to be determined by running their filters.
+	 */
+	private ValProperty restoreValProperty(IResource resource, IProject project, ValType valType){
+		FilterMatcher matcher = _cache.getFilterMatcher(project, valType);
+		String[] ids = ValPropertyStore.getDefault().restore(resource, valType, matcher.getSignature());
+		if (ids == null)return null;
+		
+		ValProperty vp = new ValProperty();
+		vp.setConfigNumber(_configNumber.get());
+		for (String id : ids)vp.getConfigSet().set(_idManager.getIndex(id));
+		matcher.matchInterpreted(resource, new ContentTypeWrapper(), vp.getConfigSet());
+		putValProperty(vp, resource, valType);
+		return vp;
+	}
+	
+	/**
+	 * Answer the validators that apply to the resource, if they are known for the current configuration.
+	 * 
+	 * @return null if they are not known. The answer must not be changed.
+	 */
+	BitSet getCurrentConfigSet(IResource resource, ValType valType){
+		ValProperty vp = getValProperty(resource, valType, _configNumber.get());
+		return vp == null ? null : vp.getConfigSet();
+	}
+	
+	/**
+	 * Answer the ids of the validators whose bits are set.
+	 */
+	String[] getValidatorIds(BitSet bits){
+		List<String> ids = new ArrayList<String>(bits.cardinality());
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i+1)){
+			String id = _idManager.getId(i);
+			if (id != null)ids.add(id);
+		}
+		return ids.toArray(new String[ids.size()]);
+	}
+	
+	/**
+	 * Answer the signature of the compiled filters that are in effect for the project.
+	 * 
+	 * @see FilterMatcher#getSignature()
+	 */
+	long getFilterSignature(IProject project, ValType valType) throws ProjectUnavailableError {
+		return _cache.getFilterMatcher(project, valType).getSignature();
+	}
+
 	private ValProperty getValProperty(IResource resource, ValType valType, int configNumber) {
 		ValProperty vp = null;
 		try {
@@ -930,6 +1019,7 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		try {
 			resource.setSessionProperty(StatusBuild, null);
 			resource.setSessionProperty(StatusManual, null);
+			ValPropertyStore.getDefault().changed();
 		} 
 		catch (CoreException e) {
 		}		
@@ -940,6 +1030,7 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 			if (!(resource.isAccessible())) return;
 			if (valType == ValType.Build)resource.setSessionProperty(StatusBuild, vp);
 			else if (valType == ValType.Manual)resource.setSessionProperty(StatusManual, vp);
+			ValPropertyStore.getDefault().changed();
 		} 
 		catch (CoreException e) {
 	        // If the resource is not found, it is likely just been deleted 
@@ -1040,6 +1131,9 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		 */
 		private final Map<String, Integer> _map = new HashMap<String, Integer>(100);
 		
+		/** The validator id's, in index order. */
+		private final List<String> _ids = new ArrayList<String>(100);
+		
 		/** Next available bit. */
 		private int _next;
 		
@@ -1054,9 +1148,19 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 			
 			i = _next++;
 			_map.put(id, i);
+			_ids.add(id);
 			
 			return i;
-		}				
+		}
+		
+		/**
+		 * Answer the validator id for this index number.
+		 * @return null if the index number hasn't been allocated.
+		 */
+		public synchronized String getId(int index){
+			if (index >= _ids.size())return null;
+			return _ids.get(index);
+		}
 	}
 	
 	/**
@@ -1248,6 +1352,13 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 		private final ConcurrentMap<IProject, Validator[]> _cache = new ConcurrentHashMap<IProject, Validator[]>(50);
 		private final AtomicReference<Validator[]> _global = new AtomicReference<Validator[]>();
 		
+		/** The compiled filters for each project, indexed by the ordinal of the ValType. */
+		private final ConcurrentMap<IProject, FilterMatcher[]> _matchers = new ConcurrentHashMap<IProject, FilterMatcher[]>(50);
+		
+		/** The validators for each project, keyed by validator id. */
+		private final ConcurrentMap<IProject, ValidatorTable> _tables = new ConcurrentHashMap<IProject, ValidatorTable>(50);
+		private final AtomicReference<ValidatorTable> _globalTable = new AtomicReference<ValidatorTable>();
+		
 		public Validator[] getValidatorsCached(IProject project) throws ProjectUnavailableError {
 			Validator[] vals = null;
 			if (project == null){
@@ -1267,17 +1378,87 @@ public final class ValManager implements IValChangedListener, IFacetedProjectLis
 			return vals;
 		}
 		
+		/**
+		 * Answer the validator with the given id, without having to search through all the validators.
+		 * 
+		 * @return null if the validator is not found
+		 */
+		public Validator getValidatorCached(String id, IProject project) throws ProjectUnavailableError {
+			Validator[] vals = getValidatorsCached(project);
+			ValidatorTable table = project == null ? _globalTable.get() : _tables.get(project);
+			if (table == null || table.getValidators() != vals){
+				table = new ValidatorTable(vals);
+				if (project == null)_globalTable.set(table);
+				else _tables.put(project, table);
+			}
+			return table.get(id);
+		}
+		
+		/**
+		 * Answer the compiled filters of the validators that are in effect for the project.
+		 */
+		public FilterMatcher getFilterMatcher(IProject project, ValType valType) throws ProjectUnavailableError {
+			int configNumber = _configNumber.get();
+			Validator[] vals = getValidatorsCached(project);
+			FilterMatcher[] matchers = _matchers.get(project);
+			if (matchers == null){
+				FilterMatcher[] newMatchers = new FilterMatcher[ValType.values().length];
+				matchers = _matchers.putIfAbsent(project, newMatchers);
+				if (matchers == null)matchers = newMatchers;
+			}
+			FilterMatcher matcher = matchers[valType.ordinal()];
+			if (matcher == null || !matcher.isCurrent(vals, configNumber)){
+				int[] indexes = new int[vals.length];
+				for (int i=0; i<vals.length; i++)indexes[i] = _idManager.getIndex(vals[i].getId());
+				matcher = new FilterMatcher(project, vals, indexes, valType, configNumber);
+				matchers[valType.ordinal()] = matcher;
+			}
+			return matcher;
+		}
+		
 		public void reset(){
 			_cache.clear();
 			_global.set(null);
+			_tables.clear();
+			_globalTable.set(null);
+			_matchers.clear();
 		}
 		
 		public void reset(IProject project){
-			if (project != null)_cache.remove(project);
+			if (project != null){
+				_cache.remove(project);
+				_tables.remove(project);
+				_matchers.remove(project);
+			}
 		}
 
 	}
 	
+	/**
+	 * The validators that are in effect for a project, indexed by their ids. A table is only valid for as
+	 * long as the array that it was built from is still the one in the cache.
+	 */
+	private final static class ValidatorTable {
+		private final Validator[] _validators;
+		private final Map<String, Validator> _byId;
+		
+		public ValidatorTable(Validator[] validators){
+			_validators = validators;
+			_byId = new HashMap<String, Validator>(validators.length*2);
+			for (Validator v : validators){
+				if (!_byId.containsKey(v.getId()))_byId.put(v.getId(), v);
+			}
+		}
+		
+		public Validator[] getValidators(){
+			return _validators;
+		}
+		
+		public Validator get(String id){
+			return _byId.get(id);
+		}
+	}
+	
 	public enum UseProjectPreferences {Normal, MustUse, MustNotUse}
 
 }
@@ -27,7 +27,8 @@ import org.eclipse.wst.validation.Validator;
  * It may be a large operation, as would happen on a clean build, or it may be the validation of just a single
  * resource.
  * <p>
- * The operation can, but doesn't need to, span multiple projects.
+ * The operation can, but doesn't need to, span multiple projects. When projects are validated in parallel
+ * a single operation is shared by all of the workers, so all of the mutable state is guarded.
  * </p>
  * <p>
  * Once the operation has finished, this object goes away.
@@ -64,6 +65,9 @@ public final class ValOperation {
 	
 	private final Set<IResource>	_validatedProjects = new HashSet<IResource>(20);
 	
+	/** The marker changes that have not been made yet. This is null if marker changes are made immediately. */
+	private volatile MarkerBatch	_markerBatch;
+	
 	public ValOperation(){
 		_multiProject = false;
 	}
@@ -76,6 +80,39 @@ public final class ValOperation {
 		_multiProject = multiProject;
 	}
 	
+	/**
+	 * Collect the marker changes for this operation, rather than making them immediately. Whoever calls
+	 * this method needs to call flushMarkers() before the operation ends.
+	 */
+	public void batchMarkers(){
+		if (_markerBatch == null)_markerBatch = new MarkerBatch();
+	}
+	
+	/**
+	 * Answer the marker changes that have not been made yet.
+	 * 
+	 * @return null if the marker changes for this operation are made immediately.
+	 */
+	public MarkerBatch getMarkerBatch(){
+		return _markerBatch;
+	}
+	
+	/**
+	 * Make any of the marker changes that have been collected.
+	 */
+	public void flushMarkers(){
+		MarkerBatch batch = _markerBatch;
+		if (batch != null)batch.flush();
+	}
+	
+	/**
+	 * Make the marker changes that have been collected, if there are enough of them to be worth making.
+	 */
+	public void flushMarkersIfFull(){
+		MarkerBatch batch = _markerBatch;
+		if (batch != null)batch.flushIfFull();
+	}
+	
 	public ValidationState getState() {
 		return _state;
 	}
@@ -188,7 +225,9 @@ public final class ValOperation {
 	void suspendValidation(IProject project, Validator validator) {
 		if (project == null)return;
 		if (validator == null)return;
-		getSuspended(project).add(validator.getId());
+		synchronized(_suspended){
+			getSuspended(project).add(validator.getId());
+		}
 	}
 
 	public long getStarted() {
@@ -201,6 +201,7 @@ public final class ValPrefManagerGlobal {
 		gp.disableAllValidation = pref.getBoolean(PrefConstants.suspend, GlobalPreferences.DefaultSuspend);
 		gp.confirmDialog = pref.getBoolean(PrefConstants.confirmDialog, GlobalPreferences.DefaultConfirm);
 		gp.override = pref.getBoolean(PrefConstants.override, GlobalPreferences.DefaultOverride);
+		gp.parallelism = pref.getInt(PrefConstants.parallelism, GlobalPreferences.DefaultParallelism);
 		gp.version = pref.getInt(PrefConstants.frameworkVersion, GlobalPreferences.DefaultFrameworkVersion);
 		gp.stateTimeStamp = pref.getLong(PrefConstants.stateTS, 0);
 		
@@ -513,6 +514,7 @@ public final class ValPrefManagerGlobal {
 		prefs.putLong(PrefConstants.stateTS, gp.getStateTimeStamp());
 		prefs.putBoolean(PrefConstants.confirmDialog, gp.getConfirmDialog());
 		prefs.putBoolean(PrefConstants.override, gp.getOverride());
+		prefs.putInt(PrefConstants.parallelism, gp.getParallelism());
 		prefs.putInt(PrefConstants.frameworkVersion, ValPrefManagerGlobal.frameworkVersion);
 	}
 
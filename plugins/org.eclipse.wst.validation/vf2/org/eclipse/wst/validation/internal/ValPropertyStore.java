@@ -0,0 +1,438 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.validation.internal.plugin.ValidationPlugin;
+
+/**
+ * Remember, between sessions, which validators apply to which resources. This is the part of the ValProperty
+ * session properties that is the most expensive to recompute, since the filters of every validator need to be
+ * run against every resource, and in the case of content type filters the resource may need to be read.
+ * <p>
+ * The ValProperty config numbers are only meaningful within a session, so they are not saved. Instead each
+ * project is saved with the signatures of its compiled filters (see FilterMatcher#getSignature()), and a
+ * resource's validators are only restored if the project's filters still have the same signature and the
+ * resource still has the same modification stamp. The validators that can't be compiled into the
+ * FilterMatcher are always rechecked when an entry is restored.
+ * </p>
+ * <p>
+ * The format of the file is:
+ * <pre>
+ * Version number
+ * Signature of the content types
+ * Number of projects
+ *   project name, build signature, manual signature
+ *   Number of validator ids
+ *     validator id
+ *   Number of distinct validator sets
+ *     number of validators, (index of the validator id)*
+ *   Number of entries, sorted by path
+ *     length of the prefix shared with the previous path, rest of the path, modification stamp,
+ *     build set + 1, manual set + 1 (0 means that there is no set)
+ * </pre>
+ * The counts and indexes are variable length integers.
+ * </p>
+ */
+public final class ValPropertyStore implements ISaveParticipant {
+
+	private static final int CurrentVersion = 1;
+
+	/** The key is the project name. */
+	private final ConcurrentMap<String, ProjectEntries> _projects = new ConcurrentHashMap<String, ProjectEntries>(50);
+
+	private volatile boolean	_loaded;
+	private volatile boolean	_dirty;
+
+	public static ValPropertyStore getDefault(){
+		return Singleton.valPropertyStore;
+	}
+
+	private ValPropertyStore(){}
+
+	/**
+	 * Answer the validators that applied to the resource in an earlier session.
+	 *
+	 * @param resource the resource that is being validated.
+	 * @param valType the type of validation.
+	 * @param signature the signature of the filters that are now in effect for the resource's project.
+	 *
+	 * @return null if nothing is known about the resource, or if the filters or the resource have changed
+	 * since it was saved. An entry is only answered once, after that the session property takes over.
+	 */
+	public String[] restore(IResource resource, ValType valType, long signature){
+		init();
+		if (_projects.isEmpty())return null;
+		ProjectEntries pe = _projects.get(resource.getProject().getName());
+		if (pe == null)return null;
+		boolean build = valType == ValType.Build;
+		if (!build && valType != ValType.Manual)return null;
+		if ((build ? pe.buildSignature : pe.manualSignature) != signature)return null;
+
+		String path = resource.getProjectRelativePath().toPortableString();
+		Entry entry = pe.entries.get(path);
+		if (entry == null)return null;
+		if (entry.stamp != resource.getModificationStamp()){
+			pe.entries.remove(path, entry);
+			return null;
+		}
+		int set = build ? entry.build : entry.manual;
+		if (set < 0)return null;
+
+		Entry rest = build ? new Entry(entry.stamp, -1, entry.manual) : new Entry(entry.stamp, entry.build, -1);
+		if (rest.build < 0 && rest.manual < 0)pe.entries.remove(path, entry);
+		else pe.entries.replace(path, entry, rest);
+		return pe.sets[set];
+	}
+
+	/**
+	 * Let the store know that the ValProperty of a resource has changed, so that it needs to be saved.
+	 */
+	public void changed(){
+		_dirty = true;
+	}
+
+	public void doneSaving(ISaveContext context) {
+	}
+
+	public void prepareToSave(ISaveContext context) throws CoreException {
+	}
+
+	public void rollback(ISaveContext context) {
+	}
+
+	/**
+	 * The resources are only walked on a full save, since that is when the workspace is being shut down.
+	 */
+	public void saving(ISaveContext context) throws CoreException {
+		if (context.getKind() != ISaveContext.FULL_SAVE || !_dirty)return;
+		init();
+		_dirty = false;
+		File f = getLocation();
+		File temp = new File(f.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		boolean error = false;
+		try {
+			List<ProjectEntries> projects = collect();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			write(out, projects);
+		}
+		catch (IOException e){
+			error = true;
+			ValidationPlugin.getPlugin().handleException(e);
+		}
+		finally {
+			Misc.close(out);
+		}
+		if (!error && f.exists() && !f.delete())error = true;
+		if (error || !temp.renameTo(f)){
+			temp.delete();
+			_dirty = true;
+		}
+	}
+
+	/**
+	 * Gather the entries of all the open projects, from the session properties where they are current, and
+	 * otherwise from the entries that were restored but have not been used yet.
+	 */
+	private List<ProjectEntries> collect(){
+		IProject[] projects = ResourcesPlugin.getWorkspace().getRoot().getProjects();
+		List<ProjectEntries> list = new ArrayList<ProjectEntries>(projects.length);
+		for (IProject project : projects){
+			if (!project.isOpen())continue;
+			try {
+				ProjectCollector pc = new ProjectCollector(project, _projects.get(project.getName()));
+				project.accept(pc, IResource.NONE);
+				ProjectEntries pe = pc.getProjectEntries();
+				if (pe != null)list.add(pe);
+			}
+			catch (CoreException e){
+				// the project has been closed or deleted while we were looking at it
+			}
+			catch (ProjectUnavailableError e){
+			}
+		}
+		return list;
+	}
+
+	private void write(DataOutputStream out, List<ProjectEntries> projects) throws IOException {
+		out.writeInt(CurrentVersion);
+		out.writeLong(ContentTypeCache.getSignature());
+		writeInt(out, projects.size());
+		for (ProjectEntries pe : projects){
+			out.writeUTF(pe.name);
+			out.writeLong(pe.buildSignature);
+			out.writeLong(pe.manualSignature);
+
+			Map<String, Integer> ids = new HashMap<String, Integer>(50);
+			List<String> idList = new ArrayList<String>(50);
+			for (String[] set : pe.sets){
+				for (String id : set){
+					if (!ids.containsKey(id)){
+						ids.put(id, idList.size());
+						idList.add(id);
+					}
+				}
+			}
+			writeInt(out, idList.size());
+			for (String id : idList)out.writeUTF(id);
+
+			writeInt(out, pe.sets.length);
+			for (String[] set : pe.sets){
+				writeInt(out, set.length);
+				for (String id : set)writeInt(out, ids.get(id));
+			}
+
+			List<String> paths = new ArrayList<String>(pe.entries.keySet());
+			Collections.sort(paths);
+			writeInt(out, paths.size());
+			String previous = ""; //$NON-NLS-1$
+			for (String path : paths){
+				Entry entry = pe.entries.get(path);
+				int prefix = commonPrefix(previous, path);
+				writeInt(out, prefix);
+				out.writeUTF(path.substring(prefix));
+				out.writeLong(entry.stamp);
+				writeInt(out, entry.build + 1);
+				writeInt(out, entry.manual + 1);
+				previous = path;
+			}
+		}
+	}
+
+	private void init(){
+		if (!_loaded)load();
+	}
+
+	private synchronized void load(){
+		if (_loaded)return;
+		File f = getLocation();
+		if (f.exists()){
+			DataInputStream in = null;
+			try {
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+				read(in);
+			}
+			catch (IOException e){
+				_projects.clear();
+				Tracing.log("ValPropertyStore-01: Unable to read the validation properties: " + e); //$NON-NLS-1$
+			}
+			finally {
+				Misc.close(in);
+			}
+		}
+		_loaded = true;
+	}
+
+	private void read(DataInputStream in) throws IOException {
+		if (in.readInt() != CurrentVersion)return;
+		if (in.readLong() != ContentTypeCache.getSignature())return;
+
+		int numProjects = readInt(in);
+		for (int p=0; p<numProjects; p++){
+			String name = in.readUTF();
+			long buildSignature = in.readLong();
+			long manualSignature = in.readLong();
+
+			String[] ids = new String[readInt(in)];
+			for (int i=0; i<ids.length; i++)ids[i] = in.readUTF();
+
+			String[][] sets = new String[readInt(in)][];
+			for (int i=0; i<sets.length; i++){
+				sets[i] = new String[readInt(in)];
+				for (int j=0; j<sets[i].length; j++)sets[i][j] = ids[readInt(in)];
+			}
+
+			int numEntries = readInt(in);
+			ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>(numEntries);
+			String previous = ""; //$NON-NLS-1$
+			for (int i=0; i<numEntries; i++){
+				int prefix = readInt(in);
+				String path = previous.substring(0, prefix) + in.readUTF();
+				long stamp = in.readLong();
+				int build = readInt(in) - 1;
+				int manual = readInt(in) - 1;
+				entries.put(path, new Entry(stamp, build, manual));
+				previous = path;
+			}
+			_projects.put(name, new ProjectEntries(name, buildSignature, manualSignature, sets, entries));
+		}
+	}
+
+	private static int commonPrefix(String a, String b){
+		int len = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < len && a.charAt(i) == b.charAt(i))i++;
+		return i;
+	}
+
+	private static void writeInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7f) != 0){
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7){
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)return value;
+		}
+		throw new IOException("ValPropertyStore-02: Malformed integer"); //$NON-NLS-1$
+	}
+
+	private static File getLocation(){
+		IPath path = ValidationPlugin.getPlugin().getStateLocation().append("valprops.index"); //$NON-NLS-1$
+		return path.toFile();
+	}
+
+	/**
+	 * Visit the resources of a project, gathering the validators that apply to each of them.
+	 */
+	private final static class ProjectCollector implements IResourceProxyVisitor {
+
+		private final IProject			_project;
+		private final ProjectEntries	_old;
+		private final ValManager		_vm = ValManager.getDefault();
+		private final Map<String, Entry>	_entries = new HashMap<String, Entry>(1000);
+
+		/** The distinct validator sets, and their position in _sets. */
+		private final Map<List<String>, Integer>	_setIndex = new HashMap<List<String>, Integer>(50);
+		private final List<String[]>	_sets = new ArrayList<String[]>(50);
+
+		private final long		_buildSignature;
+		private final long		_manualSignature;
+
+		ProjectCollector(IProject project, ProjectEntries old){
+			_project = project;
+			_buildSignature = _vm.getFilterSignature(project, ValType.Build);
+			_manualSignature = _vm.getFilterSignature(project, ValType.Manual);
+			_old = old;
+		}
+
+		public boolean visit(IResourceProxy proxy) throws CoreException {
+			IResource resource = proxy.requestResource();
+			String path = resource.getProjectRelativePath().toPortableString();
+			long stamp = proxy.getModificationStamp();
+			Entry old = null;
+			if (_old != null){
+				old = _old.entries.get(path);
+				if (old != null && old.stamp != stamp)old = null;
+			}
+			int build = index(resource, ValType.Build, old, _old == null ? 0 : _old.buildSignature, _buildSignature);
+			int manual = index(resource, ValType.Manual, old, _old == null ? 0 : _old.manualSignature, _manualSignature);
+			if (build >= 0 || manual >= 0)_entries.put(path, new Entry(stamp, build, manual));
+			return true;
+		}
+
+		/**
+		 * Answer the index of the set of validators that apply to the resource, or -1 if they are not known.
+		 */
+		private int index(IResource resource, ValType valType, Entry old, long oldSignature, long signature){
+			String[] ids = null;
+			BitSet bits = _vm.getCurrentConfigSet(resource, valType);
+			if (bits != null)ids = _vm.getValidatorIds(bits);
+			else if (old != null && oldSignature == signature){
+				int set = valType == ValType.Build ? old.build : old.manual;
+				if (set >= 0)ids = _old.sets[set];
+			}
+			if (ids == null)return -1;
+
+			List<String> key = Arrays.asList(ids);
+			Integer index = _setIndex.get(key);
+			if (index == null){
+				index = _sets.size();
+				_setIndex.put(key, index);
+				_sets.add(ids);
+			}
+			return index;
+		}
+
+		ProjectEntries getProjectEntries(){
+			if (_entries.isEmpty())return null;
+			return new ProjectEntries(_project.getName(), _buildSignature, _manualSignature,
+				_sets.toArray(new String[_sets.size()][]), new ConcurrentHashMap<String, Entry>(_entries));
+		}
+	}
+
+	private final static class ProjectEntries {
+		final String		name;
+		final long			buildSignature;
+		final long			manualSignature;
+		final String[][]	sets;
+
+		/** The key is the project relative path of the resource, in portable form. */
+		final ConcurrentMap<String, Entry>	entries;
+
+		ProjectEntries(String name, long buildSignature, long manualSignature, String[][] sets,
+			ConcurrentMap<String, Entry> entries){
+			this.name = name;
+			this.buildSignature = buildSignature;
+			this.manualSignature = manualSignature;
+			this.sets = sets;
+			this.entries = entries;
+		}
+	}
+
+	/**
+	 * The validators that applied to a resource, as indexes into the project's validator sets. An index of -1
+	 * means that they are not known.
+	 */
+	private final static class Entry {
+		final long	stamp;
+		final int	build;
+		final int	manual;
+
+		Entry(long stamp, int build, int manual){
+			this.stamp = stamp;
+			this.build = build;
+			this.manual = manual;
+		}
+	}
+
+	/**
+	 * Store the singleton for the ValPropertyStore. This approach is used to avoid having to synchronize the
+	 * ValPropertyStore.getDefault() method.
+	 */
+	private static class Singleton {
+		static ValPropertyStore valPropertyStore = new ValPropertyStore();
+	}
+
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.validation.internal;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * The workspace only allows a plug-in to have one save participant, so this forwards the save events to
+ * all of the things in the validation framework that need to be saved.
+ */
+public final class ValSaveParticipant implements ISaveParticipant {
+
+	private final List<ISaveParticipant> _participants = new CopyOnWriteArrayList<ISaveParticipant>();
+
+	public static ValSaveParticipant getDefault(){
+		return Singleton.saveParticipant;
+	}
+
+	private ValSaveParticipant(){}
+
+	/**
+	 * Add a participant. The participants are told about the save in the order that they were added.
+	 */
+	public void add(ISaveParticipant participant){
+		_participants.add(participant);
+	}
+
+	public void doneSaving(ISaveContext context) {
+		for (ISaveParticipant p : _participants)p.doneSaving(context);
+	}
+
+	public void prepareToSave(ISaveContext context) throws CoreException {
+		for (ISaveParticipant p : _participants)p.prepareToSave(context);
+	}
+
+	public void rollback(ISaveContext context) {
+		for (ISaveParticipant p : _participants)p.rollback(context);
+	}
+
+	/**
+	 * Let all the participants save, even if one of them fails.
+	 */
+	public void saving(ISaveContext context) throws CoreException {
+		CoreException error = null;
+		for (ISaveParticipant p : _participants){
+			try {
+				p.saving(context);
+			}
+			catch (CoreException e){
+				if (error == null)error = e;
+			}
+		}
+		if (error != null)throw error;
+	}
+
+	/**
+	 * Store the singleton for the ValSaveParticipant. This approach is used to avoid having to synchronize
+	 * the ValSaveParticipant.getDefault() method.
+	 */
+	private static class Singleton {
+		static ValSaveParticipant saveParticipant = new ValSaveParticipant();
+	}
+
+}
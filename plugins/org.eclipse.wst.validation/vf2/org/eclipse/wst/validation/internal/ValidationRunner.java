@@ -102,6 +102,17 @@ public final class ValidationRunner implements IWorkspaceRunnable {
 	
 	private ValOperation execute(IProgressMonitor monitor){
 		_valOperation = new ValOperation();
+		_valOperation.batchMarkers();
+		try {
+			validateProjects(monitor);
+		}
+		finally {
+			_valOperation.flushMarkers();
+		}
+		return _valOperation;
+	}
+	
+	private void validateProjects(IProgressMonitor monitor){
 		ValManager manager = ValManager.getDefault();
 		
 		IValidatorVisitor startingVisitor = new IValidatorVisitor(){
@@ -125,7 +136,7 @@ public final class ValidationRunner implements IWorkspaceRunnable {
 		for (Map.Entry<IProject, Set<IResource>> me : _projects.entrySet()){
 			if (monitor.isCanceled()){
 				_valOperation.setCanceled(true);
-				return _valOperation;
+				return;
 			}
 			IProject project = me.getKey();
 			manager.accept(startingVisitor, project, _valType, _valOperation, monitor);
@@ -141,7 +152,6 @@ public final class ValidationRunner implements IWorkspaceRunnable {
 			manager.accept(finishedVisitor, project, _valType, _valOperation, monitor);
 		}
 		manager.accept(finishedVisitor, null, _valType, _valOperation, monitor);
-		return _valOperation;
 	}
 
 	public void run(IProgressMonitor monitor) throws CoreException {
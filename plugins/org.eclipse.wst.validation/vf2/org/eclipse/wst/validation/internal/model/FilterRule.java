@@ -348,6 +348,11 @@ public abstract class FilterRule implements IAdaptable {
 			return ExtensionConstants.Rule.file;
 		}
 		
+		/** Answer one of the FileTypeXX constants. */
+		public int getFileType(){
+			return _type;
+		}
+		
 		public String getDisplayableType() {
 			if (_type == FileTypeFolder)return ValMessages.RuleFolder;
 			if (_type == FileTypeFull)return ValMessages.RuleFull;
@@ -495,6 +500,15 @@ public abstract class FilterRule implements IAdaptable {
 			return ExtensionConstants.Rule.contentType;
 		}
 		
+		/** Answer the content type, or null if the content type is not known. */
+		public IContentType getContentType(){
+			return _type;
+		}
+		
+		public boolean isExactMatch(){
+			return _exactMatch;
+		}
+		
 		@Override
 		public int hashCodeForConfig() {
 			int h =  super.hashCodeForConfig();
@@ -628,7 +642,16 @@ public abstract class FilterRule implements IAdaptable {
 		public Boolean matchesResource(IResource resource, ContentTypeWrapper wrapper) {
 			String name = PortableFileDelim + resource.getProjectRelativePath().toPortableString();
 			return _compiledPattern.matcher(name).matches();
-		}		
+		}
+		
+		/**
+		 * Answer true if the pattern matches the name.
+		 * 
+		 * @param name the project relative path of the resource, in portable form and with a leading slash.
+		 */
+		public boolean matches(String name){
+			return _compiledPattern.matcher(name).matches();
+		}
 	}
 
 	/**
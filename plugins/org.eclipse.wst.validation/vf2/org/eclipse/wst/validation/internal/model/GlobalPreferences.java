@@ -31,6 +31,9 @@ public final class GlobalPreferences {
 	/** 2 - The version of the framework meta data, if an explicit version isn't found. */
 	public static final int DefaultFrameworkVersion = 2;
 	
+	/** 1 - Default number of projects that can be validated at the same time during a build. */
+	public static final int DefaultParallelism = 1;
+	
 	/** Bit masks for what has changed. */
 	public final static int ConfirmDialogMask = 1;
 	public final static int DisableAllValidationMask = 2;
@@ -38,6 +41,7 @@ public final class GlobalPreferences {
 	public final static int SaveAutomaticallyMask = 8;
 	public final static int StateTimeStampMask = 16;
 	public final static int VersionMask = 32;
+	public final static int ParallelismMask = 64;
 	
 	/**
 	 * The changes that could affect what gets validated.
@@ -50,6 +54,9 @@ public final class GlobalPreferences {
 	private final boolean _override;
 	private final boolean _saveAutomatically;
 	
+	/** The maximum number of projects that are validated at the same time during a build. */
+	private final int _parallelism;
+	
 	/** The plug-in state time stamp. */
 	private final long	_stateTimeStamp;
 	
@@ -66,6 +73,7 @@ public final class GlobalPreferences {
 		_disableAllValidation = gp.disableAllValidation;
 		_override = gp.override;
 		_saveAutomatically = gp.saveAutomatically;
+		_parallelism = gp.parallelism;
 		_stateTimeStamp = gp.stateTimeStamp;
 		_version = gp.version;
 	}
@@ -80,6 +88,7 @@ public final class GlobalPreferences {
 		gp.disableAllValidation = _disableAllValidation;
 		gp.override = _override;
 		gp.saveAutomatically = _saveAutomatically;
+		gp.parallelism = _parallelism;
 		gp.stateTimeStamp = _stateTimeStamp;
 		gp.version = _version;
 		return gp;
@@ -101,6 +110,14 @@ public final class GlobalPreferences {
 		return _confirmDialog;
 	}
 
+	/**
+	 * Answer the maximum number of projects that can be validated at the same time during a build. A value
+	 * of 1 (the default) means that projects are validated one after another.
+	 */
+	public int getParallelism() {
+		return _parallelism;
+	}
+
 	public long getStateTimeStamp() {
 		return _stateTimeStamp;
 	}
@@ -125,6 +142,7 @@ public final class GlobalPreferences {
 		if (_disableAllValidation != gp.getDisableAllValidation())changes |= DisableAllValidationMask;
 		if (_override != gp.getOverride())changes |= OverrideMask;
 		if (_saveAutomatically != gp.getSaveAutomatically())changes |= SaveAutomaticallyMask;
+		if (_parallelism != gp.getParallelism())changes |= ParallelismMask;
 		if (_stateTimeStamp != gp.getStateTimeStamp())changes |= StateTimeStampMask;
 		if (_version != gp.getVersion())changes |= VersionMask;
 		return changes;
@@ -21,6 +21,7 @@ public class GlobalPreferencesValues {
 	public boolean saveAutomatically = GlobalPreferences.DefaultAutoSave;
 	public boolean confirmDialog = GlobalPreferences.DefaultConfirm;
 	public boolean override = GlobalPreferences.DefaultOverride;
+	public int parallelism = GlobalPreferences.DefaultParallelism;
 	
 	/** The plug-in state time stamp. */
 	public long	stateTimeStamp;